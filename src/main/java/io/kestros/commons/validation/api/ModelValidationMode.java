@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api;
+
+import javax.annotation.Nullable;
+
+/**
+ * Enum of modes a model can be validated in. Modes other than FULL may skip validators, in which
+ * case the validation result is partial.
+ */
+public enum ModelValidationMode {
+  /**
+   * Runs every validator.
+   */
+  FULL(false),
+  /**
+   * Runs ERROR validators only.
+   */
+  ERRORS_ONLY(false, ModelValidationMessageType.ERROR),
+  /**
+   * Runs ERROR validators only, and stops at the first one that fails.
+   */
+  FAIL_FAST(true, ModelValidationMessageType.ERROR),
+  /**
+   * Runs WARNING validators only, and stops at the first one that fails.
+   */
+  WARNINGS_FAIL_FAST(true, ModelValidationMessageType.WARNING);
+
+  private final boolean failFast;
+  private final ModelValidationMessageType[] types;
+
+  ModelValidationMode(final boolean failFast, final ModelValidationMessageType... types) {
+    this.failFast = failFast;
+    this.types = types;
+  }
+
+  /**
+   * Whether validators of the specified level are run in this mode.
+   *
+   * @param type Validation level.
+   *
+   * @return Whether validators of the specified level are run in this mode.
+   */
+  public boolean isIncluded(@Nullable final ModelValidationMessageType type) {
+    if (types.length == 0) {
+      return true;
+    }
+    for (final ModelValidationMessageType includedType : types) {
+      if (includedType == type) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether validation stops at the first failing validator.
+   *
+   * @return Whether validation stops at the first failing validator.
+   */
+  public boolean isFailFast() {
+    return failFast;
+  }
+}
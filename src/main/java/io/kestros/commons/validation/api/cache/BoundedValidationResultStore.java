@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ValidationResultStore bounded by the estimated heap size of its results, which evicts using
+ * W-TinyLFU. New results enter a small LRU window. Results leaving the window only stay in the
+ * main space when they have been accessed more often than the result they would replace, so a
+ * one-off crawl cannot flush frequently read results. The main space is a segmented LRU, where
+ * results read again while on probation are promoted to a protected segment. Access frequencies
+ * are estimated with a count-min sketch that outlives the evicted results. Reads that find the
+ * eviction policy busy skip updating it rather than wait.
+ */
+public class BoundedValidationResultStore extends ConcurrentValidationResultStore {
+
+  private static final int WINDOW_PERCENT = 1;
+  private static final int PROTECTED_PERCENT = 80;
+
+  /**
+   * Estimated heap size of a typical result, in bytes, used to size the frequency sketch for the
+   * number of results the maximum weight holds.
+   */
+  private static final int TYPICAL_RESULT_WEIGHT = 256;
+
+  private final long maximumWeight;
+  private final long windowMaximumWeight;
+  private final long protectedMaximumWeight;
+  private final ReentrantLock policyLock = new ReentrantLock();
+  private final Map<CachedValidationResult, Node> nodes = new IdentityHashMap<>();
+  private final FrequencySketch sketch;
+  private final Segment window = new Segment();
+  private final Segment probation = new Segment();
+  private final Segment protectedSegment = new Segment();
+  private long weight;
+  private long evictionCount;
+
+  /**
+   * ValidationResultStore bounded by the estimated heap size of its results.
+   *
+   * @param maximumWeight Maximum estimated heap size of the stored results, in bytes.
+   */
+  public BoundedValidationResultStore(final long maximumWeight) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("Maximum weight must be positive.");
+    }
+    this.maximumWeight = maximumWeight;
+    this.windowMaximumWeight = Math.max(1L, maximumWeight * WINDOW_PERCENT / 100);
+    this.protectedMaximumWeight = (maximumWeight - windowMaximumWeight) * PROTECTED_PERCENT / 100;
+    this.sketch = new FrequencySketch(maximumWeight / TYPICAL_RESULT_WEIGHT);
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    final CachedValidationResult result = super.get(path, modelType);
+    if (policyLock.tryLock()) {
+      try {
+        sketch.increment(hash(path, modelType));
+        final Node node = result != null ? nodes.get(result) : null;
+        if (node != null) {
+          onAccess(node);
+        }
+      } finally {
+        policyLock.unlock();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Estimated number of recent lookups of a resource's result, between 0 and 15. Lookups are
+   * counted whether or not the result was stored, and are still counted after it is evicted.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   *
+   * @return Estimated number of recent lookups of the result.
+   */
+  @Override
+  public int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    policyLock.lock();
+    try {
+      return sketch.frequency(hash(path, modelType));
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /**
+   * Maximum estimated heap size of the stored results, in bytes.
+   *
+   * @return Maximum estimated heap size of the stored results, in bytes.
+   */
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Estimated heap size of the stored results, in bytes.
+   *
+   * @return Estimated heap size of the stored results, in bytes.
+   */
+  public long getWeight() {
+    policyLock.lock();
+    try {
+      return weight;
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /**
+   * Number of results evicted to stay within the maximum weight.
+   *
+   * @return Number of results evicted to stay within the maximum weight.
+   */
+  public long getEvictionCount() {
+    policyLock.lock();
+    try {
+      return evictionCount;
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  protected void onAdded(@Nonnull final CachedValidationResult result) {
+    policyLock.lock();
+    try {
+      if (nodes.containsKey(result)
+          || super.get(result.getPath(), result.getModelType()) != result) {
+        return;
+      }
+      final Node node = new Node(result, hash(result.getPath(), result.getModelType()));
+      sketch.increment(node.key);
+      nodes.put(result, node);
+      window.addLast(node);
+      weight += node.weight;
+      evict();
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  protected void onRemoved(@Nonnull final CachedValidationResult result) {
+    policyLock.lock();
+    try {
+      final Node node = nodes.remove(result);
+      if (node != null) {
+        node.segment.remove(node);
+        weight -= node.weight;
+      }
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  private void onAccess(@Nonnull final Node node) {
+    if (node.segment == probation) {
+      probation.remove(node);
+      protectedSegment.addLast(node);
+      while (protectedSegment.weight > protectedMaximumWeight
+             && protectedSegment.first != node) {
+        final Node demoted = protectedSegment.first;
+        protectedSegment.remove(demoted);
+        probation.addLast(demoted);
+      }
+    } else {
+      node.segment.moveToLast(node);
+    }
+  }
+
+  /**
+   * Moves results that overflowed the window into probation as candidates, then evicts until the
+   * store is within its maximum weight. Each candidate is compared with the least recently used
+   * result on probation, and whichever was accessed less often is evicted.
+   */
+  private void evict() {
+    Node candidate = null;
+    while (window.weight > windowMaximumWeight && window.first != null) {
+      final Node node = window.first;
+      window.remove(node);
+      probation.addLast(node);
+      if (candidate == null) {
+        candidate = node;
+      }
+    }
+    while (weight > maximumWeight) {
+      Node victim = probation.first;
+      if (victim == null) {
+        victim = protectedSegment.first != null ? protectedSegment.first : window.first;
+      }
+      if (victim == null) {
+        break;
+      }
+      final Node evicted;
+      if (candidate != null && candidate.weight > maximumWeight) {
+        evicted = candidate;
+      } else if (candidate == null || candidate == victim) {
+        evicted = victim;
+      } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+        evicted = victim;
+      } else {
+        evicted = candidate;
+      }
+      if (evicted == candidate) {
+        candidate = candidate.next;
+      }
+      evict(evicted);
+    }
+  }
+
+  private void evict(@Nonnull final Node node) {
+    if (!remove(node.result) && nodes.remove(node.result) != null) {
+      node.segment.remove(node);
+      weight -= node.weight;
+    }
+    evictionCount++;
+  }
+
+  private static int hash(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return 31 * path.hashCode() + modelType.getName().hashCode();
+  }
+
+  /**
+   * Stored result, linked into the segment of the eviction policy it is in.
+   */
+  private static final class Node {
+
+    private final CachedValidationResult result;
+    private final int key;
+    private final int weight;
+    private Segment segment;
+    private Node previous;
+    private Node next;
+
+    private Node(@Nonnull final CachedValidationResult result, final int key) {
+      this.result = result;
+      this.key = key;
+      this.weight = result.getWeight();
+    }
+  }
+
+  /**
+   * LRU ordered list of nodes, from least to most recently used.
+   */
+  private static final class Segment {
+
+    private Node first;
+    private Node last;
+    private long weight;
+
+    private void addLast(@Nonnull final Node node) {
+      node.segment = this;
+      node.previous = last;
+      node.next = null;
+      if (last != null) {
+        last.next = node;
+      } else {
+        first = node;
+      }
+      last = node;
+      weight += node.weight;
+    }
+
+    private void remove(@Nonnull final Node node) {
+      if (node.previous != null) {
+        node.previous.next = node.next;
+      } else {
+        first = node.next;
+      }
+      if (node.next != null) {
+        node.next.previous = node.previous;
+      } else {
+        last = node.previous;
+      }
+      node.previous = null;
+      node.next = null;
+      weight -= node.weight;
+    }
+
+    private void moveToLast(@Nonnull final Node node) {
+      if (last != node) {
+        remove(node);
+        addLast(node);
+      }
+    }
+  }
+}
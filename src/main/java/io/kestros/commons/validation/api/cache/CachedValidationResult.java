@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+
+/**
+ * Cached validation messages of a resource, when adapted to a specific model type. Error and
+ * warning messages are held in a single array, and the entry is stamped with the revision of the
+ * resource it was validated at, so stale entries are detected by comparing revisions. Entries
+ * also record the paths of the other resources read during validation, so changes to those
+ * resources can invalidate them. Invalidated entries can be kept as stale copies, which are served
+ * while a fresh result is computed.
+ */
+public final class CachedValidationResult {
+
+  /**
+   * Revision of resources that do not report a modification time.
+   */
+  public static final long UNKNOWN_REVISION = -1L;
+
+  private static final int ENTRY_OVERHEAD = 96;
+  private static final int STRING_OVERHEAD = 48;
+
+  private final String path;
+  private final Class<?> modelType;
+  private final long revision;
+  private final String[] messages;
+  private final int errorCount;
+  private final String[] readPaths;
+  private final int weight;
+  private final boolean stale;
+
+  /**
+   * Cached validation messages of a resource.
+   *
+   * @param path Path of the validated resource.
+   * @param modelType Model type the resource was validated as.
+   * @param revision Revision of the resource when it was validated.
+   * @param errorMessages Error messages.
+   * @param warningMessages Warning messages.
+   */
+  public CachedValidationResult(@Nonnull final String path, @Nonnull final Class<?> modelType,
+          final long revision, @Nonnull final List<String> errorMessages,
+          @Nonnull final List<String> warningMessages) {
+    this(path, modelType, revision, errorMessages, warningMessages, Collections.emptyList());
+  }
+
+  /**
+   * Cached validation messages of a resource, and the paths of the other resources read while
+   * validating it.
+   *
+   * @param path Path of the validated resource.
+   * @param modelType Model type the resource was validated as.
+   * @param revision Revision of the resource when it was validated.
+   * @param errorMessages Error messages.
+   * @param warningMessages Warning messages.
+   * @param readPaths Paths of the other resources read while validating the resource.
+   */
+  public CachedValidationResult(@Nonnull final String path, @Nonnull final Class<?> modelType,
+          final long revision, @Nonnull final List<String> errorMessages,
+          @Nonnull final List<String> warningMessages,
+          @Nonnull final Collection<String> readPaths) {
+    this.path = path;
+    this.modelType = modelType;
+    this.revision = revision;
+    this.errorCount = errorMessages.size();
+    this.messages = new String[errorCount + warningMessages.size()];
+    for (int i = 0; i < errorCount; i++) {
+      messages[i] = errorMessages.get(i);
+    }
+    for (int i = 0; i < warningMessages.size(); i++) {
+      messages[errorCount + i] = warningMessages.get(i);
+    }
+    this.readPaths = readPaths.toArray(new String[0]);
+    long estimatedWeight = ENTRY_OVERHEAD + weigh(path);
+    for (final String message : messages) {
+      estimatedWeight += weigh(message);
+    }
+    for (final String readPath : this.readPaths) {
+      estimatedWeight += weigh(readPath);
+    }
+    this.weight = (int) Math.min(estimatedWeight, Integer.MAX_VALUE);
+    this.stale = false;
+  }
+
+  private CachedValidationResult(@Nonnull final CachedValidationResult result) {
+    this.path = result.path;
+    this.modelType = result.modelType;
+    this.revision = result.revision;
+    this.messages = result.messages;
+    this.errorCount = result.errorCount;
+    this.readPaths = result.readPaths;
+    this.weight = result.weight;
+    this.stale = true;
+  }
+
+  /**
+   * Cached validation messages of a model, stamped with the current revision of its resource.
+   *
+   * @param model Validated model.
+   * @param errorMessages Error messages.
+   * @param warningMessages Warning messages.
+   * @param <T> Model type.
+   *
+   * @return Cached validation messages of the model.
+   */
+  @Nonnull
+  public static <T extends BaseResource> CachedValidationResult of(@Nonnull final T model,
+          @Nonnull final List<String> errorMessages, @Nonnull final List<String> warningMessages) {
+    return new CachedValidationResult(model.getPath(), model.getClass(),
+            getRevision(model.getResource()), errorMessages, warningMessages);
+  }
+
+  /**
+   * Cached validation messages of a model validation result, stamped with the current revision of
+   * the model's resource.
+   *
+   * @param model Validated model.
+   * @param result Validation result of the model.
+   * @param <T> Model type.
+   *
+   * @return Cached validation messages of the model.
+   */
+  @Nonnull
+  public static <T extends BaseResource> CachedValidationResult of(@Nonnull final T model,
+          @Nonnull final ModelValidationResult result) {
+    final Map<ModelValidationMessageType, List<String>> resultMessages = result.getMessages();
+    return new CachedValidationResult(model.getPath(), model.getClass(),
+            getRevision(model.getResource()),
+            resultMessages.getOrDefault(ModelValidationMessageType.ERROR,
+                    Collections.emptyList()),
+            resultMessages.getOrDefault(ModelValidationMessageType.WARNING,
+                    Collections.emptyList()), result.getReadPaths());
+  }
+
+  /**
+   * Revision of a resource, taken from its last modification time.
+   *
+   * @param resource Resource.
+   *
+   * @return Revision of the resource, or {@link #UNKNOWN_REVISION}.
+   */
+  public static long getRevision(@Nullable final Resource resource) {
+    if (resource == null) {
+      return UNKNOWN_REVISION;
+    }
+    final ResourceMetadata metadata = resource.getResourceMetadata();
+    if (metadata == null) {
+      return UNKNOWN_REVISION;
+    }
+    return metadata.getModificationTime();
+  }
+
+  /**
+   * Path of the validated resource.
+   *
+   * @return Path of the validated resource.
+   */
+  @Nonnull
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Model type the resource was validated as.
+   *
+   * @return Model type the resource was validated as.
+   */
+  @Nonnull
+  public Class<?> getModelType() {
+    return modelType;
+  }
+
+  /**
+   * Revision of the resource when it was validated.
+   *
+   * @return Revision of the resource when it was validated.
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  /**
+   * Estimated heap size of the entry, in bytes, counting its path, messages and read paths.
+   *
+   * @return Estimated heap size of the entry, in bytes.
+   */
+  public int getWeight() {
+    return weight;
+  }
+
+  /**
+   * Whether the entry was validated at the specified revision of its resource. Always false when
+   * either revision is {@link #UNKNOWN_REVISION}, since the revisions cannot be compared. Whether
+   * such entries are served anyway, until an event invalidates them, is up to the cache service.
+   *
+   * @param currentRevision Current revision of the resource.
+   *
+   * @return Whether the entry was validated at the specified revision of its resource.
+   */
+  public boolean isCurrent(final long currentRevision) {
+    return revision != UNKNOWN_REVISION && revision == currentRevision;
+  }
+
+  /**
+   * Whether the entry was invalidated, and is only served until a fresh result replaces it.
+   *
+   * @return Whether the entry was invalidated.
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
+  /**
+   * Stale copy of the entry, with the same messages, revision and read paths.
+   *
+   * @return Stale copy of the entry, or the entry itself when it is already stale.
+   */
+  @Nonnull
+  public CachedValidationResult asStale() {
+    return stale ? this : new CachedValidationResult(this);
+  }
+
+  /**
+   * Whether the resource had any error messages.
+   *
+   * @return Whether the resource had any error messages.
+   */
+  public boolean hasErrors() {
+    return errorCount > 0;
+  }
+
+  /**
+   * Whether the resource had any warning messages.
+   *
+   * @return Whether the resource had any warning messages.
+   */
+  public boolean hasWarnings() {
+    return messages.length > errorCount;
+  }
+
+  /**
+   * Error messages.
+   *
+   * @return Error messages.
+   */
+  @Nonnull
+  public List<String> getErrorMessages() {
+    return Collections.unmodifiableList(Arrays.asList(messages).subList(0, errorCount));
+  }
+
+  /**
+   * Warning messages.
+   *
+   * @return Warning messages.
+   */
+  @Nonnull
+  public List<String> getWarningMessages() {
+    return Collections.unmodifiableList(
+            Arrays.asList(messages).subList(errorCount, messages.length));
+  }
+
+  /**
+   * Paths of the other resources read while validating the resource.
+   *
+   * @return Paths of the other resources read while validating the resource.
+   */
+  @Nonnull
+  public List<String> getReadPaths() {
+    return Collections.unmodifiableList(Arrays.asList(readPaths));
+  }
+
+  /**
+   * Whether a resource was read while validating the resource.
+   *
+   * @param readPath Path of the resource.
+   *
+   * @return Whether the resource was read while validating the resource.
+   */
+  public boolean isDependentOn(@Nonnull final String readPath) {
+    for (final String path : readPaths) {
+      if (path.equals(readPath)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long weigh(@Nullable final String value) {
+    return value != null ? STRING_OVERHEAD + 2L * value.length() : 0;
+  }
+}
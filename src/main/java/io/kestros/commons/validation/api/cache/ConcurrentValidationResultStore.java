@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Unbounded ValidationResultStore. Results are grouped by path in a trie of shared path
+ * segments, so a lookup is a walk down the path followed by a scan of the few model types a
+ * resource is validated as, and descendants are found without a scan. A reverse index from each
+ * read path to the results that read it, held in a second trie, lets dependents be invalidated
+ * without a scan.
+ */
+public class ConcurrentValidationResultStore implements ValidationResultStore {
+
+  private static final CachedValidationResult[] EMPTY = new CachedValidationResult[0];
+
+  private final PathTrie<CachedValidationResult[]> results = new PathTrie<>();
+  private final PathTrie<Set<CachedValidationResult>> dependents = new PathTrie<>();
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    final CachedValidationResult[] pathResults = results.get(path);
+    return pathResults != null ? find(pathResults, modelType) : null;
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> get(@Nonnull final String path) {
+    final CachedValidationResult[] pathResults = results.get(path);
+    if (pathResults == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(Arrays.asList(pathResults));
+  }
+
+  @Override
+  public void put(@Nonnull final CachedValidationResult result) {
+    final CachedValidationResult[] replaced = new CachedValidationResult[1];
+    results.compute(result.getPath(), current -> {
+      index(result);
+      if (current == null) {
+        return new CachedValidationResult[]{result};
+      }
+      replaced[0] = find(current, result.getModelType());
+      return with(without(current, result.getModelType()), result);
+    });
+    removed(replaced[0]);
+    onAdded(result);
+  }
+
+  @Override
+  public boolean replace(@Nullable final CachedValidationResult expected,
+          @Nonnull final CachedValidationResult replacement) {
+    final boolean[] replaced = new boolean[1];
+    results.compute(replacement.getPath(), current -> {
+      if ((current != null ? find(current, replacement.getModelType()) : null) != expected) {
+        return current;
+      }
+      replaced[0] = true;
+      index(replacement);
+      if (current == null) {
+        return new CachedValidationResult[]{replacement};
+      }
+      return with(without(current, replacement.getModelType()), replacement);
+    });
+    if (replaced[0]) {
+      removed(expected);
+      onAdded(replacement);
+    }
+    return replaced[0];
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    final CachedValidationResult[] removed = new CachedValidationResult[1];
+    results.computeIfPresent(path, current -> {
+      removed[0] = find(current, modelType);
+      final CachedValidationResult[] remaining = without(current, modelType);
+      return remaining.length == 0 ? null : remaining;
+    });
+    removed(removed[0]);
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path) {
+    final CachedValidationResult[] removed = results.remove(path);
+    if (removed != null) {
+      for (final CachedValidationResult result : removed) {
+        removed(result);
+      }
+    }
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDescendants(@Nonnull final String path) {
+    final List<CachedValidationResult> descendants = new ArrayList<>();
+    results.forEach(path, false, pathResults -> descendants.addAll(Arrays.asList(pathResults)));
+    return descendants;
+  }
+
+  @Override
+  public void invalidateDescendants(@Nonnull final String path) {
+    results.removeAll(path, false, (descendant, removed) -> {
+      for (final CachedValidationResult result : removed) {
+        removed(result);
+      }
+    });
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    final Set<CachedValidationResult> dependentResults = Collections.newSetFromMap(
+            new IdentityHashMap<>());
+    final Set<CachedValidationResult> readers = dependents.get(path);
+    if (readers != null) {
+      dependentResults.addAll(readers);
+    }
+    if (includeDescendants) {
+      dependents.forEach(path, false, dependentResults::addAll);
+    }
+    return new ArrayList<>(dependentResults);
+  }
+
+  @Override
+  public void invalidateDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    invalidateAll(dependents.remove(path));
+    if (includeDescendants) {
+      dependents.removeAll(path, false, (readPath, readers) -> invalidateAll(readers));
+    }
+  }
+
+  @Override
+  public void forEach(@Nonnull final String path,
+          @Nonnull final Consumer<CachedValidationResult> action) {
+    results.forEach(path, true, pathResults -> {
+      for (final CachedValidationResult result : pathResults) {
+        action.accept(result);
+      }
+    });
+  }
+
+  @Override
+  public void clear() {
+    results.removeAll((path, removed) -> {
+      for (final CachedValidationResult result : removed) {
+        removed(result);
+      }
+    });
+  }
+
+  @Override
+  public long size() {
+    final long[] size = new long[1];
+    results.forEach(pathResults -> size[0] += pathResults.length);
+    return size[0];
+  }
+
+  @Override
+  public void forEach(@Nonnull final Consumer<CachedValidationResult> action) {
+    results.forEach(pathResults -> {
+      for (final CachedValidationResult result : pathResults) {
+        action.accept(result);
+      }
+    });
+  }
+
+  /**
+   * Called after a result is stored.
+   *
+   * @param result Stored result.
+   */
+  protected void onAdded(@Nonnull final CachedValidationResult result) {
+  }
+
+  /**
+   * Called after a result is replaced or removed.
+   *
+   * @param result Replaced or removed result.
+   */
+  protected void onRemoved(@Nonnull final CachedValidationResult result) {
+  }
+
+  /**
+   * Removes a result, unless it has already been replaced or removed.
+   *
+   * @param result Result to remove.
+   *
+   * @return Whether the result was removed.
+   */
+  protected boolean remove(@Nonnull final CachedValidationResult result) {
+    final boolean[] removed = new boolean[1];
+    results.computeIfPresent(result.getPath(), current -> {
+      if (find(current, result.getModelType()) != result) {
+        return current;
+      }
+      removed[0] = true;
+      final CachedValidationResult[] remaining = without(current, result.getModelType());
+      return remaining.length == 0 ? null : remaining;
+    });
+    if (removed[0]) {
+      removed(result);
+    }
+    return removed[0];
+  }
+
+  private void invalidateAll(@Nullable final Set<CachedValidationResult> dependentResults) {
+    if (dependentResults != null) {
+      for (final CachedValidationResult dependent : dependentResults) {
+        remove(dependent);
+      }
+    }
+  }
+
+  private void removed(@Nullable final CachedValidationResult result) {
+    if (result != null) {
+      unindex(result);
+      onRemoved(result);
+    }
+  }
+
+  private void index(@Nonnull final CachedValidationResult result) {
+    for (final String readPath : result.getReadPaths()) {
+      dependents.compute(readPath, readers -> {
+        final Set<CachedValidationResult> indexed = readers != null ? readers
+                                                                    : ConcurrentHashMap.newKeySet();
+        indexed.add(result);
+        return indexed;
+      });
+    }
+  }
+
+  private void unindex(@Nonnull final CachedValidationResult result) {
+    for (final String readPath : result.getReadPaths()) {
+      dependents.computeIfPresent(readPath, readers -> {
+        readers.remove(result);
+        return readers.isEmpty() ? null : readers;
+      });
+    }
+  }
+
+  @Nullable
+  private static CachedValidationResult find(@Nonnull final CachedValidationResult[] current,
+          @Nonnull final Class<?> modelType) {
+    for (final CachedValidationResult result : current) {
+      if (result.getModelType() == modelType) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @Nonnull
+  private static CachedValidationResult[] without(@Nonnull final CachedValidationResult[] current,
+          @Nonnull final Class<?> modelType) {
+    int index = -1;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].getModelType() == modelType) {
+        index = i;
+        break;
+      }
+    }
+    if (index < 0) {
+      return current;
+    }
+    if (current.length == 1) {
+      return EMPTY;
+    }
+    final CachedValidationResult[] remaining = new CachedValidationResult[current.length - 1];
+    System.arraycopy(current, 0, remaining, 0, index);
+    System.arraycopy(current, index + 1, remaining, index, remaining.length - index);
+    return remaining;
+  }
+
+  @Nonnull
+  private static CachedValidationResult[] with(@Nonnull final CachedValidationResult[] current,
+          @Nonnull final CachedValidationResult result) {
+    final CachedValidationResult[] added = new CachedValidationResult[current.length + 1];
+    System.arraycopy(current, 0, added, 0, current.length);
+    added[current.length] = result;
+    return added;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/*
+ * Adapted from the FrequencySketch of Caffeine (https://github.com/ben-manes/caffeine).
+ *
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+/**
+ * Count-min sketch estimating how often keys were accessed, with four 4-bit counters per key.
+ * Counters saturate at 15, and every counter is halved once the number of recorded accesses
+ * reaches ten times the capacity, so the estimates favour recent popularity. The sketch is sized
+ * once, so recorded frequencies are never discarded. Adapted from Caffeine's FrequencySketch, by
+ * Ben Manes. Not thread safe.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+          0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MINIMUM_CAPACITY = 16;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * Count-min sketch sized to estimate the frequencies of the specified number of keys.
+   *
+   * @param capacity Number of keys.
+   */
+  FrequencySketch(final long capacity) {
+    final int maximum = (int) Math.min(Math.max(capacity, MINIMUM_CAPACITY), 1 << 30);
+    table = new long[Integer.highestOneBit(maximum - 1) << 1];
+    tableMask = table.length - 1;
+    sampleSize = 10 * maximum;
+  }
+
+  /**
+   * Number of keys the sketch can estimate the frequencies of.
+   *
+   * @return Number of keys the sketch can estimate the frequencies of.
+   */
+  int capacity() {
+    return table.length;
+  }
+
+  /**
+   * Estimated number of recent accesses of a key, between 0 and 15.
+   *
+   * @param key Hash of the key.
+   *
+   * @return Estimated number of recent accesses of the key.
+   */
+  int frequency(final int key) {
+    final int hash = spread(key);
+    final int start = (hash & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; i++) {
+      final int offset = (start + i) << 2;
+      frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access of a key.
+   *
+   * @param key Hash of the key.
+   */
+  void increment(final int key) {
+    final int hash = spread(key);
+    final int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(final int index, final int counter) {
+    final int offset = counter << 2;
+    final long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < table.length; i++) {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size - (odd >>> 2)) >>> 1;
+  }
+
+  private int indexOf(final int hash, final int depth) {
+    long index = (hash + SEEDS[depth]) * SEEDS[depth];
+    index += index >>> 32;
+    return (int) index & tableMask;
+  }
+
+  private static int spread(final int key) {
+    int hash = ((key >>> 16) ^ key) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
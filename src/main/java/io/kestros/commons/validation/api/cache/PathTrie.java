@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Concurrent map from resource paths to values, organised as a trie of path segments. Each node
+ * holds its children in an array sorted by segment, found by binary search and copied on change,
+ * which suits the modest fan-out of content trees. Segments are shared through a small interner
+ * owned by the trie, so the many nodes named alike, such as jcr:content, mostly hold one
+ * instance. A subtree can be visited or removed in time proportional to its size. Reads are lock
+ * free. Updates lock the node of their path, and nodes left without a value or children are
+ * pruned, locking each node after its parent.
+ *
+ * <p>
+ * Absolute and relative paths are held under separate roots, and every path maps to its own
+ * node, so distinct paths never share a value.
+ * </p>
+ *
+ * @param <V> Value type.
+ */
+final class PathTrie<V> {
+
+  private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+  /**
+   * Segments last shared through each slot of the interner, by hash. A segment replaces the one
+   * in its slot when they differ, so the interner stays bounded, unlike the JVM string table, and
+   * racing updates only cost a missed share.
+   */
+  private static final String[] SEGMENTS = new String[1 << 14];
+
+  private final Node<V> absoluteRoot = new Node<>(null, "");
+  private final Node<V> relativeRoot = new Node<>(null, "");
+
+  /**
+   * Value of a path.
+   *
+   * @param path Path.
+   *
+   * @return Value of the path, or null when it has none.
+   */
+  @Nullable
+  V get(@Nonnull final String path) {
+    final Node<V> node = find(path);
+    return node != null ? node.value : null;
+  }
+
+  /**
+   * Replaces the value of a path with the result of a function, which is passed the current value
+   * or null. A null result removes the value.
+   *
+   * @param path Path.
+   * @param function Function computing the new value.
+   *
+   * @return New value of the path.
+   */
+  @Nullable
+  V compute(@Nonnull final String path, @Nonnull final UnaryOperator<V> function) {
+    while (true) {
+      Node<V> node = getRoot(path);
+      for (final String segment : getSegments(path)) {
+        node = getOrCreateChild(node, segment);
+        if (node == null) {
+          break;
+        }
+      }
+      if (node != null) {
+        final V value;
+        synchronized (node) {
+          if (node.removed) {
+            continue;
+          }
+          value = function.apply(node.value);
+          node.value = value;
+        }
+        if (value == null) {
+          prune(node);
+        }
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Replaces the value of a path with the result of a function, when the path has a value. A null
+   * result removes the value.
+   *
+   * @param path Path.
+   * @param function Function computing the new value from the current value.
+   *
+   * @return New value of the path, or null when it had none.
+   */
+  @Nullable
+  V computeIfPresent(@Nonnull final String path, @Nonnull final UnaryOperator<V> function) {
+    final Node<V> node = find(path);
+    if (node == null) {
+      return null;
+    }
+    final V value;
+    synchronized (node) {
+      if (node.removed || node.value == null) {
+        return null;
+      }
+      value = function.apply(node.value);
+      node.value = value;
+    }
+    if (value == null) {
+      prune(node);
+    }
+    return value;
+  }
+
+  /**
+   * Removes the value of a path.
+   *
+   * @param path Path.
+   *
+   * @return Removed value, or null when the path had none.
+   */
+  @Nullable
+  V remove(@Nonnull final String path) {
+    final Node<V> node = find(path);
+    return node != null ? take(node) : null;
+  }
+
+  /**
+   * Removes the values of every path beneath a path.
+   *
+   * @param path Path of the subtree root.
+   * @param includeSelf Whether the value of the path itself is also removed.
+   * @param action Action passed the path and value of each removed value.
+   */
+  void removeAll(@Nonnull final String path, final boolean includeSelf,
+          @Nonnull final BiConsumer<String, V> action) {
+    final Node<V> node = find(path);
+    if (node == null) {
+      return;
+    }
+    final List<Node<V>> nodes = new ArrayList<>();
+    final List<String> paths = new ArrayList<>();
+    collect(node, new StringBuilder(path), includeSelf, nodes, paths);
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      final V value = take(nodes.get(i));
+      if (value != null) {
+        action.accept(paths.get(i), value);
+      }
+    }
+  }
+
+  /**
+   * Removes every value.
+   *
+   * @param action Action passed the path and value of each removed value.
+   */
+  void removeAll(@Nonnull final BiConsumer<String, V> action) {
+    removeAll("/", true, action);
+    removeAll("", true, action);
+  }
+
+  /**
+   * Passes the value of every path beneath a path to an action.
+   *
+   * @param path Path of the subtree root.
+   * @param includeSelf Whether the value of the path itself is also passed.
+   * @param action Action to perform on each value.
+   */
+  void forEach(@Nonnull final String path, final boolean includeSelf,
+          @Nonnull final Consumer<V> action) {
+    final Node<V> node = find(path);
+    if (node != null) {
+      visit(node, includeSelf, action);
+    }
+  }
+
+  /**
+   * Passes every value to an action.
+   *
+   * @param action Action to perform on each value.
+   */
+  void forEach(@Nonnull final Consumer<V> action) {
+    visit(absoluteRoot, true, action);
+    visit(relativeRoot, true, action);
+  }
+
+  @Nullable
+  private Node<V> find(@Nonnull final String path) {
+    Node<V> node = getRoot(path);
+    for (final String segment : getSegments(path)) {
+      final Node<V>[] children = node.children;
+      final int index = indexOf(children, segment);
+      if (index < 0) {
+        return null;
+      }
+      node = children[index];
+    }
+    return node;
+  }
+
+  /**
+   * Child of a node, created when missing. Returns null when the node has been pruned, in which
+   * case the caller starts over from the root.
+   */
+  @Nullable
+  private Node<V> getOrCreateChild(@Nonnull final Node<V> node, @Nonnull final String segment) {
+    final Node<V>[] children = node.children;
+    final int index = indexOf(children, segment);
+    if (index >= 0) {
+      return children[index];
+    }
+    synchronized (node) {
+      if (node.removed) {
+        return null;
+      }
+      final Node<V>[] current = node.children;
+      final int currentIndex = indexOf(current, segment);
+      if (currentIndex >= 0) {
+        return current[currentIndex];
+      }
+      final int insertion = -currentIndex - 1;
+      final Node<V> child = new Node<>(node, intern(segment));
+      final Node<V>[] updated = newChildren(current.length + 1);
+      System.arraycopy(current, 0, updated, 0, insertion);
+      updated[insertion] = child;
+      System.arraycopy(current, insertion, updated, insertion + 1, current.length - insertion);
+      node.children = updated;
+      return child;
+    }
+  }
+
+  @Nullable
+  private V take(@Nonnull final Node<V> node) {
+    final V value;
+    synchronized (node) {
+      value = node.value;
+      node.value = null;
+    }
+    if (value != null) {
+      prune(node);
+    }
+    return value;
+  }
+
+  /**
+   * Detaches a node left without a value or children, and then each of its ancestors left the
+   * same way.
+   */
+  private void prune(@Nonnull final Node<V> node) {
+    Node<V> current = node;
+    while (current.parent != null) {
+      final Node<V> parent = current.parent;
+      synchronized (parent) {
+        synchronized (current) {
+          if (current.removed || current.value != null || current.children.length > 0) {
+            return;
+          }
+          current.removed = true;
+          parent.children = without(parent.children, current);
+        }
+      }
+      current = parent;
+    }
+  }
+
+  private void collect(@Nonnull final Node<V> node, @Nonnull final StringBuilder path,
+          final boolean includeSelf, @Nonnull final List<Node<V>> nodes,
+          @Nonnull final List<String> paths) {
+    if (includeSelf) {
+      nodes.add(node);
+      paths.add(path.toString());
+    }
+    final int length = path.length();
+    for (final Node<V> child : node.children) {
+      if (node.parent != null) {
+        path.append('/');
+      }
+      collect(child, path.append(child.segment), true, nodes, paths);
+      path.setLength(length);
+    }
+  }
+
+  private void visit(@Nonnull final Node<V> node, final boolean includeSelf,
+          @Nonnull final Consumer<V> action) {
+    final V value = node.value;
+    if (includeSelf && value != null) {
+      action.accept(value);
+    }
+    for (final Node<V> child : node.children) {
+      visit(child, true, action);
+    }
+  }
+
+  @Nonnull
+  private Node<V> getRoot(@Nonnull final String path) {
+    return path.startsWith("/") ? absoluteRoot : relativeRoot;
+  }
+
+  /**
+   * Segments of a path, relative to its root. The root of absolute paths is "/" itself.
+   */
+  @Nonnull
+  private static String[] getSegments(@Nonnull final String path) {
+    final String relativePath = path.startsWith("/") ? path.substring(1) : path;
+    if (relativePath.isEmpty()) {
+      return new String[0];
+    }
+    return relativePath.split("/", -1);
+  }
+
+  /**
+   * Index of the child with a segment, or, when there is none, -(insertion point + 1).
+   */
+  private static int indexOf(@Nonnull final Node<?>[] children, @Nonnull final String segment) {
+    int low = 0;
+    int high = children.length - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int comparison = children[middle].segment.compareTo(segment);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  @Nonnull
+  private static <V> Node<V>[] without(@Nonnull final Node<V>[] children,
+          @Nonnull final Node<V> child) {
+    final int index = indexOf(children, child.segment);
+    if (index < 0 || children[index] != child) {
+      return children;
+    }
+    final Node<V>[] remaining = newChildren(children.length - 1);
+    System.arraycopy(children, 0, remaining, 0, index);
+    System.arraycopy(children, index + 1, remaining, index, remaining.length - index);
+    return remaining;
+  }
+
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  private static <V> Node<V>[] newChildren(final int length) {
+    return (Node<V>[]) (length == 0 ? NO_CHILDREN : new Node<?>[length]);
+  }
+
+  @Nonnull
+  private static String intern(@Nonnull final String segment) {
+    final int hash = segment.hashCode();
+    final int slot = (hash ^ hash >>> 16) & SEGMENTS.length - 1;
+    final String shared = SEGMENTS[slot];
+    if (segment.equals(shared)) {
+      return shared;
+    }
+    SEGMENTS[slot] = segment;
+    return segment;
+  }
+
+  /**
+   * Node of the trie. Its value and children are only changed while it is locked.
+   */
+  private static final class Node<V> {
+
+    private final Node<V> parent;
+    private final String segment;
+    private volatile V value;
+    private volatile Node<V>[] children;
+    private boolean removed;
+
+    private Node(@Nullable final Node<V> parent, @Nonnull final String segment) {
+      this.parent = parent;
+      this.segment = segment;
+      this.children = newChildren(0);
+    }
+  }
+}
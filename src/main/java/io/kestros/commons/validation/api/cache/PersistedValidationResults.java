@@ -0,0 +1,578 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Validation results persisted to a memory-mapped file. Records are sorted by path and model type
+ * name, and the file holds a table of record offsets and a table of read paths sorted by path, so
+ * records are found by binary search over the mapping. Loading only checks the header, and
+ * records are decoded when they are looked up. Records that are read or invalidated are marked as
+ * removed in a bitset, which is the only state held on the heap.
+ *
+ * <p>
+ * The file holds a header (magic number, format version, record count, read path count), the
+ * record offsets, the read path table (record index and offset of the read path, for every read
+ * path of every record), and the records: path, model type name, revision, time the result was
+ * persisted, read paths, error count and messages. Strings are length prefixed UTF-8. Corrupt
+ * records are treated as missing.
+ * </p>
+ */
+final class PersistedValidationResults {
+
+  private static final int MAGIC = 0x4b565253;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 16;
+
+  private final ByteBuffer buffer;
+  private final int recordCount;
+  private final int readCount;
+  private final AtomicLongArray removed;
+  private final AtomicInteger removedCount = new AtomicInteger();
+
+  private PersistedValidationResults(@Nullable final ByteBuffer buffer, final int recordCount,
+          final int readCount) {
+    this.buffer = buffer;
+    this.recordCount = recordCount;
+    this.readCount = readCount;
+    this.removed = new AtomicLongArray((recordCount + 63) >>> 6);
+  }
+
+  /**
+   * Maps a file, and checks its header. Missing, unreadable or corrupt files load as empty.
+   *
+   * @param file File to load.
+   *
+   * @return Persisted results of the file.
+   */
+  @Nonnull
+  static PersistedValidationResults load(@Nonnull final Path file) {
+    if (!Files.isRegularFile(file)) {
+      return empty();
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+        return empty();
+      }
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      final int recordCount = buffer.getInt(8);
+      final int readCount = buffer.getInt(12);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || recordCount < 0
+          || readCount < 0 || HEADER_SIZE + 4L * recordCount + 8L * readCount > buffer.limit()) {
+        return empty();
+      }
+      return new PersistedValidationResults(buffer, recordCount, readCount);
+    } catch (final IOException | RuntimeException exception) {
+      return empty();
+    }
+  }
+
+  /**
+   * Writes results, and entries that have not been read yet, to a file. The file is written next
+   * to the target and then moved over it, so readers never see a partial file.
+   *
+   * @param file File to write.
+   * @param results Results to write.
+   * @param remaining Entries of a previously loaded file to carry over, which keep the time they
+   *     were persisted at.
+   * @param persistedAt Time the results were collected, in milliseconds since the epoch.
+   *
+   * @throws IOException Failed to write the file.
+   */
+  static void write(@Nonnull final Path file, @Nonnull final List<CachedValidationResult> results,
+          @Nonnull final List<Entry> remaining, final long persistedAt) throws IOException {
+    final List<Record> records = new ArrayList<>(results.size() + remaining.size());
+    for (final CachedValidationResult result : results) {
+      final List<String> messages = new ArrayList<>(result.getErrorMessages());
+      messages.addAll(result.getWarningMessages());
+      records.add(new Record(result.getPath(), result.getModelType().getName(),
+              result.getRevision(), persistedAt, result.getReadPaths().toArray(new String[0]),
+              result.getErrorMessages().size(), messages.toArray(new String[0])));
+    }
+    for (final Entry entry : remaining) {
+      final Record record = entry.getRecord();
+      if (record != null) {
+        records.add(record);
+      }
+    }
+    records.sort(Comparator.comparing((Record record) -> record.path)
+            .thenComparing(record -> record.modelTypeName));
+
+    final List<byte[]> encoded = new ArrayList<>(records.size());
+    final List<ReadPath> readPaths = new ArrayList<>();
+    int readPathCount = 0;
+    for (final Record record : records) {
+      readPathCount += record.readPaths.length;
+    }
+    long offset = HEADER_SIZE + 4L * records.size() + 8L * readPathCount;
+    final int[] offsets = new int[records.size()];
+    for (int i = 0; i < records.size(); i++) {
+      if (offset > Integer.MAX_VALUE) {
+        throw new IOException("Too many validation results to persist.");
+      }
+      offsets[i] = (int) offset;
+      encoded.add(records.get(i).encode(i, (int) offset, readPaths));
+      offset += encoded.get(i).length;
+    }
+    readPaths.sort(Comparator.comparing((ReadPath readPath) -> readPath.path)
+            .thenComparingInt(readPath -> readPath.recordIndex));
+
+    final Path directory = file.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(),
+            ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(temporaryFile);
+           DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(records.size());
+        output.writeInt(readPaths.size());
+        for (final int recordOffset : offsets) {
+          output.writeInt(recordOffset);
+        }
+        for (final ReadPath readPath : readPaths) {
+          output.writeInt(readPath.recordIndex);
+          output.writeInt(readPath.offset);
+        }
+        for (final byte[] bytes : encoded) {
+          output.write(bytes);
+        }
+      }
+      try {
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+      } catch (final AtomicMoveNotSupportedException exception) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Removes the entry of a resource and model type.
+   *
+   * @param path Resource path.
+   * @param modelTypeName Name of the model type.
+   *
+   * @return Removed entry, or null when none was persisted.
+   */
+  @Nullable
+  Entry remove(@Nonnull final String path, @Nonnull final String modelTypeName) {
+    try {
+      for (int i = lowerBound(recordCount, this::getPath, path);
+           i < recordCount && getPath(i).equals(path); i++) {
+        if (getString(getRecordOffset(i), 1).equals(modelTypeName)) {
+          return markRemoved(i) ? new Entry(i) : null;
+        }
+      }
+    } catch (final RuntimeException exception) {
+      // Corrupt records are treated as missing.
+    }
+    return null;
+  }
+
+  /**
+   * Removes the entries of a resource, for every model type.
+   *
+   * @param path Resource path.
+   *
+   * @return Removed entries.
+   */
+  @Nonnull
+  List<Entry> remove(@Nonnull final String path) {
+    final List<Entry> removedEntries = new ArrayList<>();
+    try {
+      for (int i = lowerBound(recordCount, this::getPath, path);
+           i < recordCount && getPath(i).equals(path); i++) {
+        if (markRemoved(i)) {
+          removedEntries.add(new Entry(i));
+        }
+      }
+    } catch (final RuntimeException exception) {
+      // Corrupt records are treated as missing.
+    }
+    return removedEntries.isEmpty() ? Collections.emptyList() : removedEntries;
+  }
+
+  /**
+   * Removes the entries of every resource beneath a path.
+   *
+   * @param path Path of the subtree root.
+   */
+  void removeDescendants(@Nonnull final String path) {
+    final String prefix = "/".equals(path) ? path : path + "/";
+    try {
+      for (int i = lowerBound(recordCount, this::getPath, prefix);
+           i < recordCount && getPath(i).startsWith(prefix); i++) {
+        markRemoved(i);
+      }
+    } catch (final RuntimeException exception) {
+      // Corrupt records are treated as missing.
+    }
+  }
+
+  /**
+   * Removes the entries that read a resource.
+   *
+   * @param path Path of the resource that changed.
+   * @param includeDescendants Whether entries that read any resource beneath the path are also
+   *     removed.
+   */
+  void removeDependents(@Nonnull final String path, final boolean includeDescendants) {
+    try {
+      for (int i = lowerBound(readCount, this::getReadPath, path);
+           i < readCount && getReadPath(i).equals(path); i++) {
+        markRemoved(getReadRecordIndex(i));
+      }
+      if (includeDescendants) {
+        final String prefix = "/".equals(path) ? path : path + "/";
+        for (int i = lowerBound(readCount, this::getReadPath, prefix);
+             i < readCount && getReadPath(i).startsWith(prefix); i++) {
+          markRemoved(getReadRecordIndex(i));
+        }
+      }
+    } catch (final RuntimeException exception) {
+      // Corrupt records are treated as missing.
+    }
+  }
+
+  /**
+   * Removes every entry.
+   */
+  void clear() {
+    for (int i = 0; i < recordCount; i++) {
+      markRemoved(i);
+    }
+  }
+
+  /**
+   * Number of entries that have not been removed.
+   *
+   * @return Number of entries that have not been removed.
+   */
+  long size() {
+    return recordCount - removedCount.get();
+  }
+
+  /**
+   * Passes every entry that has not been removed to an action.
+   *
+   * @param action Action to perform on each entry.
+   */
+  void forEach(@Nonnull final Consumer<Entry> action) {
+    for (int i = 0; i < recordCount; i++) {
+      if ((removed.get(i >>> 6) & (1L << i)) == 0) {
+        action.accept(new Entry(i));
+      }
+    }
+  }
+
+  private boolean markRemoved(final int index) {
+    if (index < 0 || index >= recordCount) {
+      throw new BufferUnderflowException();
+    }
+    final long bit = 1L << index;
+    long word;
+    do {
+      word = removed.get(index >>> 6);
+      if ((word & bit) != 0) {
+        return false;
+      }
+    } while (!removed.compareAndSet(index >>> 6, word, word | bit));
+    removedCount.incrementAndGet();
+    return true;
+  }
+
+  private int getRecordOffset(final int index) {
+    return buffer.getInt(HEADER_SIZE + 4 * index);
+  }
+
+  @Nonnull
+  private String getPath(final int index) {
+    return getString(getRecordOffset(index), 0);
+  }
+
+  private int getReadRecordIndex(final int index) {
+    return buffer.getInt(HEADER_SIZE + 4 * recordCount + 8 * index);
+  }
+
+  @Nonnull
+  private String getReadPath(final int index) {
+    return getString(buffer.getInt(HEADER_SIZE + 4 * recordCount + 8 * index + 4), 0);
+  }
+
+  /**
+   * Reads a string, after skipping the specified number of strings.
+   */
+  @Nonnull
+  private String getString(final int offset, final int skipped) {
+    final ByteBuffer reader = buffer.duplicate();
+    reader.position(offset);
+    for (int i = 0; i < skipped; i++) {
+      final int length = reader.getInt();
+      if (length < 0 || length > reader.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      reader.position(reader.position() + length);
+    }
+    return readString(reader);
+  }
+
+  private static int lowerBound(final int count, @Nonnull final IntFunction<String> keys,
+          @Nonnull final String key) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (keys.apply(middle).compareTo(key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  @Nonnull
+  private static PersistedValidationResults empty() {
+    return new PersistedValidationResults(null, 0, 0);
+  }
+
+  private static void writeString(@Nonnull final DataOutputStream output,
+          @Nonnull final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  @Nonnull
+  private static String[] readStrings(@Nonnull final ByteBuffer reader) {
+    final int count = reader.getInt();
+    if (count < 0 || count > reader.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = readString(reader);
+    }
+    return values;
+  }
+
+  @Nonnull
+  private static String readString(@Nonnull final ByteBuffer reader) {
+    final int length = reader.getInt();
+    if (length < 0 || length > reader.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final byte[] bytes = new byte[length];
+    reader.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Persisted entry. Its record is decoded from the mapping when it is read.
+   */
+  final class Entry {
+
+    private final int index;
+
+    private Entry(final int index) {
+      this.index = index;
+    }
+
+    /**
+     * Name of the model type the resource was validated as.
+     *
+     * @return Name of the model type the resource was validated as, or null when the record is
+     *     corrupt.
+     */
+    @Nullable
+    String getModelTypeName() {
+      final Record record = getRecord();
+      return record != null ? record.modelTypeName : null;
+    }
+
+    /**
+     * Whether the entry can still be trusted. Its revision must be known, and every resource it
+     * read must report a known revision no later than the time the entry was persisted.
+     * Otherwise, a dependency may have changed while the entry was not observed.
+     *
+     * @param revisions Current revision of a resource path, or
+     *     {@link CachedValidationResult#UNKNOWN_REVISION} when the resource is missing or does
+     *     not report one.
+     *
+     * @return Whether the entry can still be trusted.
+     */
+    boolean isVerified(@Nonnull final ToLongFunction<String> revisions) {
+      final Record record = getRecord();
+      if (record == null || record.revision == CachedValidationResult.UNKNOWN_REVISION) {
+        return false;
+      }
+      for (final String readPath : record.readPaths) {
+        final long revision = revisions.applyAsLong(readPath);
+        if (revision == CachedValidationResult.UNKNOWN_REVISION
+            || revision > record.persistedAt) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Decodes the entry.
+     *
+     * @param modelType Model type the resource was validated as.
+     *
+     * @return Decoded result, or null when the record is corrupt.
+     */
+    @Nullable
+    CachedValidationResult decode(@Nonnull final Class<?> modelType) {
+      final Record record = getRecord();
+      if (record == null) {
+        return null;
+      }
+      final List<String> messages = Arrays.asList(record.messages);
+      return new CachedValidationResult(record.path, modelType, record.revision,
+              messages.subList(0, record.errorCount),
+              messages.subList(record.errorCount, messages.size()),
+              Arrays.asList(record.readPaths));
+    }
+
+    @Nullable
+    private Record getRecord() {
+      try {
+        final ByteBuffer reader = buffer.duplicate();
+        reader.position(getRecordOffset(index));
+        final String path = readString(reader);
+        final String modelTypeName = readString(reader);
+        final long revision = reader.getLong();
+        final long persistedAt = reader.getLong();
+        final String[] readPaths = readStrings(reader);
+        final int errorCount = reader.getInt();
+        final String[] messages = readStrings(reader);
+        if (errorCount < 0 || errorCount > messages.length) {
+          return null;
+        }
+        return new Record(path, modelTypeName, revision, persistedAt, readPaths, errorCount,
+                messages);
+      } catch (final RuntimeException exception) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Decoded record.
+   */
+  private static final class Record {
+
+    private final String path;
+    private final String modelTypeName;
+    private final long revision;
+    private final long persistedAt;
+    private final String[] readPaths;
+    private final int errorCount;
+    private final String[] messages;
+
+    private Record(@Nonnull final String path, @Nonnull final String modelTypeName,
+            final long revision, final long persistedAt, @Nonnull final String[] readPaths,
+            final int errorCount, @Nonnull final String[] messages) {
+      this.path = path;
+      this.modelTypeName = modelTypeName;
+      this.revision = revision;
+      this.persistedAt = persistedAt;
+      this.readPaths = readPaths;
+      this.errorCount = errorCount;
+      this.messages = messages;
+    }
+
+    /**
+     * Encodes the record, adding the offsets of its read paths to the read path table.
+     */
+    @Nonnull
+    private byte[] encode(final int recordIndex, final int offset,
+            @Nonnull final List<ReadPath> readPathTable) throws IOException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream output = new DataOutputStream(bytes);
+      writeString(output, path);
+      writeString(output, modelTypeName);
+      output.writeLong(revision);
+      output.writeLong(persistedAt);
+      output.writeInt(readPaths.length);
+      for (final String readPath : readPaths) {
+        readPathTable.add(new ReadPath(readPath, recordIndex, offset + output.size()));
+        writeString(output, readPath);
+      }
+      output.writeInt(errorCount);
+      output.writeInt(messages.length);
+      for (final String message : messages) {
+        writeString(output, message);
+      }
+      output.flush();
+      return bytes.toByteArray();
+    }
+  }
+
+  /**
+   * Read path of a record, in the read path table.
+   */
+  private static final class ReadPath {
+
+    private final String path;
+    private final int recordIndex;
+    private final int offset;
+
+    private ReadPath(@Nonnull final String path, final int recordIndex, final int offset) {
+      this.path = path;
+      this.recordIndex = recordIndex;
+      this.offset = offset;
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ValidationResultStore that persists results to a local file, so a restarted instance can serve
+ * results cached before the restart. The file is memory-mapped on first use, and persisted
+ * results are found by binary search over the mapping. A persisted result is decoded and moved
+ * into the in-memory store when it is first read, and the caller is expected to check it against
+ * the current revision of its resource. Invalidations apply to persisted results that have not
+ * been read yet, as well as to the in-memory store.
+ *
+ * <p>
+ * Changes made while results were not observed, such as while the instance was down, do not
+ * invalidate persisted results. A persisted result is therefore only restored when its revision
+ * is known, and every resource it read reports a known revision no later than the time it was
+ * persisted. Other persisted results are dropped when read. Lookups through
+ * {@link #get(String, Class)} and {@link #get(String)} cannot check the resources a result read,
+ * so they only restore results that read no other resources.
+ * </p>
+ *
+ * <p>
+ * Persisted results are matched to model types by class name. Until a model type has been
+ * stored or looked up since the file was loaded, its persisted results are not returned by
+ * {@link #get(String)} or {@link #forEach(Consumer)}, and {@link #get(String)} drops them, since
+ * their dependencies cannot be checked. Results passed to {@link #forEach(Consumer)} are not
+ * checked.
+ * </p>
+ */
+public class PersistentValidationResultStore implements ValidationResultStore {
+
+  private static final ToLongFunction<String> UNKNOWN_REVISIONS
+          = path -> CachedValidationResult.UNKNOWN_REVISION;
+
+  private final Path file;
+  private final ValidationResultStore memoryStore;
+  private final ConcurrentMap<String, Class<?>> modelTypes = new ConcurrentHashMap<>();
+  private volatile PersistedValidationResults persistedResults;
+
+  /**
+   * ValidationResultStore that persists results to a local file.
+   *
+   * @param file File results are persisted to.
+   * @param memoryStore Store results are held in while the instance runs.
+   */
+  public PersistentValidationResultStore(@Nonnull final Path file,
+          @Nonnull final ValidationResultStore memoryStore) {
+    this.file = file;
+    this.memoryStore = memoryStore;
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    return get(path, modelType, UNKNOWN_REVISIONS);
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType, @Nonnull final ToLongFunction<String> revisions) {
+    modelTypes.putIfAbsent(modelType.getName(), modelType);
+    final CachedValidationResult result = memoryStore.get(path, modelType);
+    if (result != null) {
+      return result;
+    }
+    return restore(getPersistedResults().remove(path, modelType.getName()), modelType,
+            revisions);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> get(@Nonnull final String path) {
+    for (final PersistedValidationResults.Entry entry : getPersistedResults().remove(path)) {
+      final String modelTypeName = entry.getModelTypeName();
+      final Class<?> modelType = modelTypeName != null ? modelTypes.get(modelTypeName) : null;
+      if (modelType != null) {
+        restore(entry, modelType, UNKNOWN_REVISIONS);
+      }
+    }
+    return memoryStore.get(path);
+  }
+
+  @Override
+  public void put(@Nonnull final CachedValidationResult result) {
+    modelTypes.putIfAbsent(result.getModelType().getName(), result.getModelType());
+    getPersistedResults().remove(result.getPath(), result.getModelType().getName());
+    memoryStore.put(result);
+  }
+
+  @Override
+  public boolean replace(@Nullable final CachedValidationResult expected,
+          @Nonnull final CachedValidationResult replacement) {
+    modelTypes.putIfAbsent(replacement.getModelType().getName(), replacement.getModelType());
+    if (!memoryStore.replace(expected, replacement)) {
+      return false;
+    }
+    getPersistedResults().remove(replacement.getPath(), replacement.getModelType().getName());
+    return true;
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    getPersistedResults().remove(path, modelType.getName());
+    memoryStore.invalidate(path, modelType);
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path) {
+    getPersistedResults().remove(path);
+    memoryStore.invalidate(path);
+  }
+
+  @Override
+  public void invalidateDescendants(@Nonnull final String path) {
+    getPersistedResults().removeDescendants(path);
+    memoryStore.invalidateDescendants(path);
+  }
+
+  @Override
+  public void invalidateDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    getPersistedResults().removeDependents(path, includeDescendants);
+    memoryStore.invalidateDependents(path, includeDescendants);
+  }
+
+  @Override
+  public int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return memoryStore.getAccessFrequency(path, modelType);
+  }
+
+  @Override
+  public void clear() {
+    getPersistedResults().clear();
+    memoryStore.clear();
+  }
+
+  @Override
+  public long size() {
+    return getPersistedResults().size() + memoryStore.size();
+  }
+
+  @Override
+  public void forEach(@Nonnull final Consumer<CachedValidationResult> action) {
+    memoryStore.forEach(action);
+    getPersistedResults().forEach(entry -> {
+      final String modelTypeName = entry.getModelTypeName();
+      final Class<?> modelType = modelTypeName != null ? modelTypes.get(modelTypeName) : null;
+      final CachedValidationResult result = modelType != null ? entry.decode(modelType) : null;
+      if (result != null) {
+        action.accept(result);
+      }
+    });
+  }
+
+  /**
+   * Writes the results held in memory, and the persisted results that have not been read yet, to
+   * the file. Results of model types not seen since the file was loaded are carried over as they
+   * are. Stale results are not written. Results are stamped with the time before they are
+   * collected, so any later change to a resource they read is detected when they are restored.
+   * Carried over results keep the time they were first persisted at.
+   *
+   * @throws IOException Failed to write the file.
+   */
+  public synchronized void persist() throws IOException {
+    final long persistedAt = System.currentTimeMillis();
+    final List<CachedValidationResult> results = new ArrayList<>();
+    memoryStore.forEach(result -> {
+      if (!result.isStale()) {
+        results.add(result);
+      }
+    });
+    final List<PersistedValidationResults.Entry> remaining = new ArrayList<>();
+    getPersistedResults().forEach(remaining::add);
+    PersistedValidationResults.write(file, results, remaining, persistedAt);
+  }
+
+  @Nullable
+  private CachedValidationResult restore(@Nullable final PersistedValidationResults.Entry entry,
+          @Nonnull final Class<?> modelType, @Nonnull final ToLongFunction<String> revisions) {
+    if (entry == null || !entry.isVerified(revisions)) {
+      return null;
+    }
+    final CachedValidationResult result = entry.decode(modelType);
+    if (result != null) {
+      memoryStore.put(result);
+    }
+    return result;
+  }
+
+  @Nonnull
+  private PersistedValidationResults getPersistedResults() {
+    PersistedValidationResults results = persistedResults;
+    if (results == null) {
+      synchronized (this) {
+        results = persistedResults;
+        if (results == null) {
+          results = PersistedValidationResults.load(file);
+          persistedResults = results;
+        }
+      }
+    }
+    return results;
+  }
+}
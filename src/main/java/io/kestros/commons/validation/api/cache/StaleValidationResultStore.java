@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ValidationResultStore that keeps invalidated results as stale copies, instead of removing them.
+ * Stale results are served until a fresh result is stored in their place, or until they are
+ * removed through {@link #remove(String, Class)}. A stale copy only takes the place of the result
+ * it was copied from, so a fresh result stored meanwhile is kept. Results are held in another
+ * store, which may still evict stale results under its own bounds. The store also tracks which
+ * stale results are being validated again, so each is only revalidated once at a time.
+ */
+public class StaleValidationResultStore implements ValidationResultStore {
+
+  private final ValidationResultStore store;
+  private final Set<Map.Entry<String, Class<?>>> revalidating = ConcurrentHashMap.newKeySet();
+
+  /**
+   * ValidationResultStore that keeps invalidated results as stale copies.
+   *
+   * @param store Store results are held in.
+   */
+  public StaleValidationResultStore(@Nonnull final ValidationResultStore store) {
+    this.store = store;
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    return store.get(path, modelType);
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType, @Nonnull final ToLongFunction<String> revisions) {
+    return store.get(path, modelType, revisions);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> get(@Nonnull final String path) {
+    return store.get(path);
+  }
+
+  @Override
+  public void put(@Nonnull final CachedValidationResult result) {
+    store.put(result);
+  }
+
+  @Override
+  public boolean replace(@Nullable final CachedValidationResult expected,
+          @Nonnull final CachedValidationResult replacement) {
+    return store.replace(expected, replacement);
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    final CachedValidationResult result = store.get(path, modelType);
+    if (result != null && !result.isStale()) {
+      store.replace(result, result.asStale());
+    }
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path) {
+    for (final CachedValidationResult result : store.get(path)) {
+      if (!result.isStale()) {
+        store.replace(result, result.asStale());
+      }
+    }
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDescendants(@Nonnull final String path) {
+    return store.getDescendants(path);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    return store.getDependents(path, includeDescendants);
+  }
+
+  /**
+   * Marks the cached results of every resource beneath a path as stale. The results are removed
+   * from the underlying store, so any it cannot return are dropped, and then stored again as stale
+   * copies, unless a fresh result has been stored meanwhile.
+   *
+   * @param path Path of the subtree root.
+   */
+  @Override
+  public void invalidateDescendants(@Nonnull final String path) {
+    final List<CachedValidationResult> descendants = store.getDescendants(path);
+    store.invalidateDescendants(path);
+    putStale(descendants);
+  }
+
+  /**
+   * Marks the cached results that read a resource while being validated as stale. The results
+   * are removed from the underlying store, so any it cannot return are dropped, and then stored
+   * again as stale copies, unless a fresh result has been stored meanwhile.
+   *
+   * @param path Path of the resource that changed.
+   * @param includeDescendants Whether results that read any resource beneath the path are also
+   *     marked as stale.
+   */
+  @Override
+  public void invalidateDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    final List<CachedValidationResult> dependents = store.getDependents(path,
+            includeDescendants);
+    store.invalidateDependents(path, includeDescendants);
+    putStale(dependents);
+  }
+
+  /**
+   * Removes the cached result of a resource, adapted to a model type, instead of marking it as
+   * stale.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   */
+  public void remove(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    store.invalidate(path, modelType);
+  }
+
+  /**
+   * Marks the result of a resource, adapted to a model type, as being validated again.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   *
+   * @return Whether the result was not already being validated again.
+   */
+  public boolean startRevalidation(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    return revalidating.add(new AbstractMap.SimpleImmutableEntry<>(path, modelType));
+  }
+
+  /**
+   * Marks the result of a resource, adapted to a model type, as no longer being validated again.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   */
+  public void finishRevalidation(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    revalidating.remove(new AbstractMap.SimpleImmutableEntry<>(path, modelType));
+  }
+
+  @Override
+  public void forEach(@Nonnull final String path,
+          @Nonnull final Consumer<CachedValidationResult> action) {
+    store.forEach(path, action);
+  }
+
+  @Override
+  public int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return store.getAccessFrequency(path, modelType);
+  }
+
+  @Override
+  public void clear() {
+    store.clear();
+  }
+
+  @Override
+  public long size() {
+    return store.size();
+  }
+
+  @Override
+  public void forEach(@Nonnull final Consumer<CachedValidationResult> action) {
+    store.forEach(action);
+  }
+
+  /**
+   * Underlying store results are held in.
+   *
+   * @return Underlying store results are held in.
+   */
+  @Nonnull
+  public ValidationResultStore getStore() {
+    return store;
+  }
+
+  private void putStale(@Nonnull final List<CachedValidationResult> results) {
+    for (final CachedValidationResult result : results) {
+      store.replace(null, result.asStale());
+    }
+  }
+}
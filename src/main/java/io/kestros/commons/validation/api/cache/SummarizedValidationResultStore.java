@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ValidationResultStore that summarizes stored results in a {@link ValidationSummaryIndex}, so
+ * whether a resource had errors or warnings can be answered without its messages. Messages are
+ * held in another store, which may evict them under its own bounds while their summaries remain.
+ * The index has its own bound, and only summarizes results that read no other resources.
+ * Invalidations apply to both.
+ */
+public class SummarizedValidationResultStore implements ValidationResultStore {
+
+  private final ValidationResultStore store;
+  private final ValidationSummaryIndex summaryIndex;
+
+  /**
+   * ValidationResultStore that summarizes stored results.
+   *
+   * @param store Store results, and their messages, are held in.
+   * @param maximumSummaryWeight Maximum estimated heap size of the summaries, in bytes.
+   */
+  public SummarizedValidationResultStore(@Nonnull final ValidationResultStore store,
+          final long maximumSummaryWeight) {
+    this.store = store;
+    this.summaryIndex = new ValidationSummaryIndex(maximumSummaryWeight);
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType) {
+    return store.get(path, modelType);
+  }
+
+  @Nullable
+  @Override
+  public CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType, @Nonnull final ToLongFunction<String> revisions) {
+    return store.get(path, modelType, revisions);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> get(@Nonnull final String path) {
+    return store.get(path);
+  }
+
+  @Override
+  public void put(@Nonnull final CachedValidationResult result) {
+    summaryIndex.put(result);
+    store.put(result);
+  }
+
+  @Override
+  public boolean replace(@Nullable final CachedValidationResult expected,
+          @Nonnull final CachedValidationResult replacement) {
+    if (!store.replace(expected, replacement)) {
+      return false;
+    }
+    summaryIndex.put(replacement);
+    return true;
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    summaryIndex.remove(path, modelType);
+    store.invalidate(path, modelType);
+  }
+
+  @Override
+  public void invalidate(@Nonnull final String path) {
+    summaryIndex.remove(path);
+    store.invalidate(path);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDescendants(@Nonnull final String path) {
+    return store.getDescendants(path);
+  }
+
+  @Nonnull
+  @Override
+  public List<CachedValidationResult> getDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    return store.getDependents(path, includeDescendants);
+  }
+
+  @Override
+  public void invalidateDescendants(@Nonnull final String path) {
+    summaryIndex.removeDescendants(path);
+    store.invalidateDescendants(path);
+  }
+
+  @Override
+  public void invalidateDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    store.invalidateDependents(path, includeDescendants);
+  }
+
+  @Override
+  public void forEach(@Nonnull final String path,
+          @Nonnull final Consumer<CachedValidationResult> action) {
+    store.forEach(path, action);
+  }
+
+  @Override
+  public int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return store.getAccessFrequency(path, modelType);
+  }
+
+  @Override
+  public void clear() {
+    summaryIndex.clear();
+    store.clear();
+  }
+
+  @Override
+  public long size() {
+    return store.size();
+  }
+
+  @Override
+  public void forEach(@Nonnull final Consumer<CachedValidationResult> action) {
+    store.forEach(action);
+  }
+
+  /**
+   * Summaries of the stored results.
+   *
+   * @return Summaries of the stored results.
+   */
+  @Nonnull
+  public ValidationSummaryIndex getSummaryIndex() {
+    return summaryIndex;
+  }
+
+  /**
+   * Underlying store results are held in.
+   *
+   * @return Underlying store results are held in.
+   */
+  @Nonnull
+  public ValidationResultStore getStore() {
+    return store;
+  }
+}
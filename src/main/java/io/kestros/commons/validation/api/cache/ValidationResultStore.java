@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Storage of cached validation results, keyed by resource path and model type.
+ */
+public interface ValidationResultStore {
+
+  /**
+   * Retrieves the cached result of a resource, adapted to a model type.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   *
+   * @return Cached result, or null when none is stored.
+   */
+  @Nullable
+  CachedValidationResult get(@Nonnull String path, @Nonnull Class<?> modelType);
+
+  /**
+   * Retrieves the cached result of a resource, adapted to a model type. Stores that restore
+   * results cached outside the running instance check them against the current revisions of the
+   * resources they read. By default, the result is retrieved through
+   * {@link #get(String, Class)}.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   * @param revisions Current revision of a resource path, or
+   *     {@link CachedValidationResult#UNKNOWN_REVISION} when the resource is missing or does not
+   *     report one.
+   *
+   * @return Cached result, or null when none is stored.
+   */
+  @Nullable
+  default CachedValidationResult get(@Nonnull final String path,
+          @Nonnull final Class<?> modelType, @Nonnull final ToLongFunction<String> revisions) {
+    return get(path, modelType);
+  }
+
+  /**
+   * Retrieves the cached results of a resource, for every model type.
+   *
+   * @param path Resource path.
+   *
+   * @return Cached results of the resource.
+   */
+  @Nonnull
+  List<CachedValidationResult> get(@Nonnull String path);
+
+  /**
+   * Stores a result, replacing any result of the same resource and model type.
+   *
+   * @param result Result to store.
+   */
+  void put(@Nonnull CachedValidationResult result);
+
+  /**
+   * Stores a result in place of the cached result of the same resource and model type, only when
+   * that is still the expected instance. By default, the cached result is compared through
+   * {@link #get(String, Class)} and replaced through {@link #put(CachedValidationResult)}, which
+   * is not atomic.
+   *
+   * @param expected Result expected to be cached, or null when none is expected.
+   * @param replacement Result to store.
+   *
+   * @return Whether the result was stored.
+   */
+  default boolean replace(@Nullable final CachedValidationResult expected,
+          @Nonnull final CachedValidationResult replacement) {
+    if (get(replacement.getPath(), replacement.getModelType()) != expected) {
+      return false;
+    }
+    put(replacement);
+    return true;
+  }
+
+  /**
+   * Removes the cached result of a resource, adapted to a model type.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   */
+  void invalidate(@Nonnull String path, @Nonnull Class<?> modelType);
+
+  /**
+   * Removes the cached results of a resource, for every model type.
+   *
+   * @param path Resource path.
+   */
+  void invalidate(@Nonnull String path);
+
+  /**
+   * Retrieves the cached results of every resource beneath a path, excluding the path itself. By
+   * default, every cached result is scanned.
+   *
+   * @param path Path of the subtree root.
+   *
+   * @return Cached results of the resources beneath the path.
+   */
+  @Nonnull
+  default List<CachedValidationResult> getDescendants(@Nonnull final String path) {
+    final String prefix = "/".equals(path) ? path : path + "/";
+    final List<CachedValidationResult> descendants = new ArrayList<>();
+    forEach(result -> {
+      if (result.getPath().startsWith(prefix) && result.getPath().length() > prefix.length()) {
+        descendants.add(result);
+      }
+    });
+    return descendants;
+  }
+
+  /**
+   * Retrieves the cached results that read a resource while being validated. By default, every
+   * cached result is scanned.
+   *
+   * @param path Path of the resource.
+   * @param includeDescendants Whether results that read any resource beneath the path are also
+   *     retrieved.
+   *
+   * @return Cached results that read the resource.
+   */
+  @Nonnull
+  default List<CachedValidationResult> getDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    final String prefix = "/".equals(path) ? path : path + "/";
+    final List<CachedValidationResult> dependents = new ArrayList<>();
+    forEach(result -> {
+      for (final String readPath : result.getReadPaths()) {
+        if (readPath.equals(path) || includeDescendants && readPath.startsWith(prefix)) {
+          dependents.add(result);
+          break;
+        }
+      }
+    });
+    return dependents;
+  }
+
+  /**
+   * Removes the cached results of every resource beneath a path, excluding the path itself. By
+   * default, the results are found through {@link #getDescendants(String)}.
+   *
+   * @param path Path of the subtree root.
+   */
+  default void invalidateDescendants(@Nonnull final String path) {
+    for (final CachedValidationResult descendant : getDescendants(path)) {
+      invalidate(descendant.getPath(), descendant.getModelType());
+    }
+  }
+
+  /**
+   * Removes the cached results that read a resource while being validated. By default, the
+   * results are found through {@link #getDependents(String, boolean)}.
+   *
+   * @param path Path of the resource that changed.
+   * @param includeDescendants Whether results that read any resource beneath the path are also
+   *     removed.
+   */
+  default void invalidateDependents(@Nonnull final String path,
+          final boolean includeDescendants) {
+    for (final CachedValidationResult dependent : getDependents(path, includeDescendants)) {
+      invalidate(dependent.getPath(), dependent.getModelType());
+    }
+  }
+
+  /**
+   * Passes every cached result of a resource, or of any resource beneath it, to an action. By
+   * default, every cached result is scanned.
+   *
+   * @param path Path of the subtree root.
+   * @param action Action to perform on each cached result.
+   */
+  default void forEach(@Nonnull final String path,
+          @Nonnull final Consumer<CachedValidationResult> action) {
+    final String prefix = "/".equals(path) ? path : path + "/";
+    forEach(result -> {
+      if (result.getPath().equals(path) || result.getPath().startsWith(prefix)) {
+        action.accept(result);
+      }
+    });
+  }
+
+  /**
+   * Estimated number of recent lookups of a resource's result, when adapted to a model type.
+   * Stores that do not track access frequency return 0.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   *
+   * @return Estimated number of recent lookups of the result.
+   */
+  default int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return 0;
+  }
+
+  /**
+   * Removes every cached result.
+   */
+  void clear();
+
+  /**
+   * Number of cached results.
+   *
+   * @return Number of cached results.
+   */
+  long size();
+
+  /**
+   * Passes every cached result to an action.
+   *
+   * @param action Action to perform on each cached result.
+   */
+  void forEach(@Nonnull Consumer<CachedValidationResult> action);
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+/**
+ * Compact index of whether cached results had errors or warnings, kept apart from their messages.
+ * Resource paths are held in a trie of path segments, so the summaries below a path can be
+ * removed together. Each path maps to the revision its results were cached at, and to four bits
+ * per model type: whether a result is cached, whether it had errors, whether it had warnings, and
+ * whether it is stale. Model types are numbered by class name as they are first seen.
+ *
+ * <p>
+ * Summaries can outlive messages evicted from a bounded store, so they are only kept for results
+ * that read no other resources, which stay correct as long as their own revision is current.
+ * Results that read other resources are checked through their messages instead.
+ * </p>
+ *
+ * <p>
+ * The index is bounded by the estimated heap size of its summaries. Summaries are added to a
+ * young generation, and when it is full, the old generation is dropped and the young generation
+ * takes its place. Summaries read from the old generation are not moved back, so summaries that
+ * are not cached again within two generations are evicted.
+ * </p>
+ */
+public class ValidationSummaryIndex {
+
+  /**
+   * Flag of a model type whose result is summarized.
+   */
+  public static final int CACHED = 1;
+
+  /**
+   * Flag of a result that had error messages.
+   */
+  public static final int ERRORS = 1 << 1;
+
+  /**
+   * Flag of a result that had warning messages.
+   */
+  public static final int WARNINGS = 1 << 2;
+
+  /**
+   * Flag of a result that was invalidated, and is only served until it is replaced.
+   */
+  public static final int STALE = 1 << 3;
+
+  /**
+   * Estimated heap size of a resource's summaries, in bytes, including its trie node.
+   */
+  private static final int SUMMARY_WEIGHT = 128;
+
+  private static final int BITS_PER_TYPE = 4;
+  private static final int TYPES_PER_WORD = Long.SIZE / BITS_PER_TYPE;
+  private static final long TYPE_MASK = (1L << BITS_PER_TYPE) - 1;
+
+  private final long maximumWeight;
+  private final long generationMaximumSize;
+  private final ConcurrentMap<String, Integer> typeIndexes = new ConcurrentHashMap<>();
+  private final AtomicInteger typeCount = new AtomicInteger();
+  private volatile Generation youngGeneration = new Generation();
+  private volatile Generation oldGeneration = new Generation();
+
+  /**
+   * Compact index of whether cached results had errors or warnings.
+   *
+   * @param maximumWeight Maximum estimated heap size of the summaries, in bytes.
+   */
+  public ValidationSummaryIndex(final long maximumWeight) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("Maximum weight must be positive.");
+    }
+    this.maximumWeight = maximumWeight;
+    this.generationMaximumSize = Math.max(1L, maximumWeight / SUMMARY_WEIGHT / 2);
+  }
+
+  /**
+   * Flags summarizing a cached result.
+   *
+   * @param result Cached result.
+   *
+   * @return Flags summarizing the result.
+   */
+  public static int getFlags(@Nonnull final CachedValidationResult result) {
+    int flags = CACHED;
+    if (result.hasErrors()) {
+      flags |= ERRORS;
+    }
+    if (result.hasWarnings()) {
+      flags |= WARNINGS;
+    }
+    if (result.isStale()) {
+      flags |= STALE;
+    }
+    return flags;
+  }
+
+  /**
+   * Summarizes a cached result, replacing the summary of the same resource and model type. When
+   * the result was cached at another revision than the resource's other summaries, those are
+   * dropped. Results that read other resources are not summarized, and only remove the summary
+   * they replace.
+   *
+   * @param result Cached result.
+   */
+  public void put(@Nonnull final CachedValidationResult result) {
+    if (!result.getReadPaths().isEmpty()) {
+      remove(result.getPath(), result.getModelType());
+      return;
+    }
+    final String path = result.getPath();
+    final int typeIndex = getTypeIndex(result.getModelType());
+    final long flags = getFlags(result);
+    final Generation generation = youngGeneration;
+    final Generation older = oldGeneration;
+    final Summary moved = older != generation ? older.summaries.remove(path) : null;
+    generation.summaries.compute(path, current -> {
+      final Summary summary = current != null ? current : moved;
+      if (current == null) {
+        generation.size.incrementAndGet();
+      }
+      final long[] words;
+      if (summary == null || summary.revision != result.getRevision()) {
+        words = new long[word(typeIndex) + 1];
+      } else {
+        words = Arrays.copyOf(summary.words,
+                Math.max(summary.words.length, word(typeIndex) + 1));
+      }
+      words[word(typeIndex)] = words[word(typeIndex)] & ~(TYPE_MASK << shift(typeIndex))
+                               | flags << shift(typeIndex);
+      return new Summary(result.getRevision(), words);
+    });
+    if (generation.size.get() > generationMaximumSize) {
+      promote(generation);
+    }
+  }
+
+  /**
+   * Flags of a resource's summarized result, when adapted to a model type.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   * @param revision Current revision of the resource.
+   *
+   * @return Flags of the summarized result, or 0 when none is summarized at the revision.
+   */
+  public int getFlags(@Nonnull final String path, @Nonnull final Class<?> modelType,
+          final long revision) {
+    final Integer typeIndex = typeIndexes.get(modelType.getName());
+    if (typeIndex == null) {
+      return 0;
+    }
+    Summary summary = youngGeneration.summaries.get(path);
+    if (summary == null) {
+      summary = oldGeneration.summaries.get(path);
+    }
+    if (summary == null || summary.revision != revision
+        || word(typeIndex) >= summary.words.length) {
+      return 0;
+    }
+    return (int) (summary.words[word(typeIndex)] >>> shift(typeIndex) & TYPE_MASK);
+  }
+
+  /**
+   * Removes the summary of a resource, when adapted to a model type.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   */
+  public void remove(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    final Integer typeIndex = typeIndexes.get(modelType.getName());
+    if (typeIndex == null) {
+      return;
+    }
+    for (final Generation generation : getGenerations()) {
+      generation.summaries.computeIfPresent(path, current -> {
+        if (word(typeIndex) >= current.words.length) {
+          return current;
+        }
+        final long[] words = current.words.clone();
+        words[word(typeIndex)] &= ~(TYPE_MASK << shift(typeIndex));
+        for (final long word : words) {
+          if (word != 0) {
+            return new Summary(current.revision, words);
+          }
+        }
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Removes the summaries of a resource, for every model type.
+   *
+   * @param path Resource path.
+   */
+  public void remove(@Nonnull final String path) {
+    for (final Generation generation : getGenerations()) {
+      generation.summaries.remove(path);
+    }
+  }
+
+  /**
+   * Removes the summaries of every resource beneath a path, excluding the path itself.
+   *
+   * @param path Path of the subtree root.
+   */
+  public void removeDescendants(@Nonnull final String path) {
+    for (final Generation generation : getGenerations()) {
+      generation.summaries.removeAll(path, false, (summaryPath, summary) -> { });
+    }
+  }
+
+  /**
+   * Removes every summary.
+   */
+  public synchronized void clear() {
+    oldGeneration = new Generation();
+    youngGeneration = new Generation();
+  }
+
+  /**
+   * Number of resources with summarized results. A resource whose summaries are being moved to
+   * the young generation may be counted twice.
+   *
+   * @return Number of resources with summarized results.
+   */
+  public long size() {
+    final long[] size = new long[1];
+    for (final Generation generation : getGenerations()) {
+      generation.summaries.forEach(summary -> size[0]++);
+    }
+    return size[0];
+  }
+
+  /**
+   * Maximum estimated heap size of the summaries, in bytes.
+   *
+   * @return Maximum estimated heap size of the summaries, in bytes.
+   */
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Drops the old generation, and replaces it with a full young generation, unless another
+   * thread already has.
+   */
+  private synchronized void promote(@Nonnull final Generation generation) {
+    if (youngGeneration == generation) {
+      oldGeneration = generation;
+      youngGeneration = new Generation();
+    }
+  }
+
+  @Nonnull
+  private Generation[] getGenerations() {
+    return new Generation[]{youngGeneration, oldGeneration};
+  }
+
+  private int getTypeIndex(@Nonnull final Class<?> modelType) {
+    return typeIndexes.computeIfAbsent(modelType.getName(),
+            name -> typeCount.getAndIncrement());
+  }
+
+  private static int word(final int typeIndex) {
+    return typeIndex / TYPES_PER_WORD;
+  }
+
+  private static int shift(final int typeIndex) {
+    return typeIndex % TYPES_PER_WORD * BITS_PER_TYPE;
+  }
+
+  /**
+   * Summaries added since a generation was started, and the number of resources added.
+   */
+  private static final class Generation {
+
+    private final PathTrie<Summary> summaries = new PathTrie<>();
+    private final AtomicLong size = new AtomicLong();
+  }
+
+  /**
+   * Summaries of a resource's results, at the revision they were cached at.
+   */
+  private static final class Summary {
+
+    private final long revision;
+    private final long[] words;
+
+    private Summary(final long revision, @Nonnull final long[] words) {
+      this.revision = revision;
+      this.words = words;
+    }
+  }
+}
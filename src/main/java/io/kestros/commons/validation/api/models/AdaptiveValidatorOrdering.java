@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * Evaluation order of a ModelValidatorBundle's validators, learned from their observed cost and
+ * pass rate. Validators that are cheap and likely to short-circuit the bundle (fail for bundles
+ * where all must be true, pass for bundles where one must be true) are moved to the front.
+ *
+ * @param <T> Model type.
+ */
+public final class AdaptiveValidatorOrdering<T extends BaseSlingModel> {
+
+  static final int REORDER_INTERVAL = 1024;
+
+  private final ModelValidator<T>[] validators;
+  private final boolean allMustBeTrue;
+  private final LongAdder[] costs;
+  private final LongAdder[] evaluations;
+  private final LongAdder[] passes;
+  private final AtomicLong evaluationCount = new AtomicLong();
+  private volatile int[] order;
+
+  AdaptiveValidatorOrdering(@Nonnull final ModelValidator<T>[] validators,
+          final boolean allMustBeTrue) {
+    this.validators = validators;
+    this.allMustBeTrue = allMustBeTrue;
+    this.costs = new LongAdder[validators.length];
+    this.evaluations = new LongAdder[validators.length];
+    this.passes = new LongAdder[validators.length];
+    this.order = new int[validators.length];
+    for (int i = 0; i < validators.length; i++) {
+      costs[i] = new LongAdder();
+      evaluations[i] = new LongAdder();
+      passes[i] = new LongAdder();
+      order[i] = i;
+    }
+  }
+
+  /**
+   * Evaluates the bundle's validators in the learned order, recording cost and outcome of each
+   * validator that runs.
+   *
+   * @param model Model to validate.
+   *
+   * @return Whether the bundle is valid.
+   */
+  boolean isValid(@Nonnull final T model) {
+    final int[] current = order;
+    boolean result = true;
+    for (final int index : current) {
+      final long start = System.nanoTime();
+      final boolean valid = ModelValidator.evaluate(validators[index], model);
+      costs[index].add(System.nanoTime() - start);
+      evaluations[index].increment();
+      if (valid) {
+        passes[index].increment();
+      }
+      if (allMustBeTrue && !valid) {
+        result = false;
+        break;
+      } else if (!allMustBeTrue && valid) {
+        break;
+      }
+    }
+    if (evaluationCount.incrementAndGet() % REORDER_INTERVAL == 0) {
+      reorder();
+    }
+    return result;
+  }
+
+  /**
+   * Whether the ordering was built for the specified validator snapshot.
+   *
+   * @param snapshot Validator snapshot of the bundle.
+   *
+   * @return Whether the ordering was built for the specified validator snapshot.
+   */
+  boolean isFor(@Nonnull final ModelValidator<T>[] snapshot) {
+    return validators == snapshot;
+  }
+
+  /**
+   * Recomputes the evaluation order, ascending by expected cost per short-circuit.
+   */
+  void reorder() {
+    final double[] scores = new double[validators.length];
+    final Integer[] indexes = new Integer[validators.length];
+    for (int i = 0; i < validators.length; i++) {
+      indexes[i] = i;
+      final long evaluated = evaluations[i].sum();
+      if (evaluated == 0) {
+        continue;
+      }
+      final double passRate = getPassRate(i);
+      final double shortCircuitRate = allMustBeTrue ? 1 - passRate : passRate;
+      scores[i] = ((double) costs[i].sum() / evaluated + 1) / shortCircuitRate;
+    }
+    Arrays.sort(indexes, Comparator.comparingDouble(index -> scores[index]));
+    final int[] next = new int[indexes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      next[i] = indexes[i];
+    }
+    order = next;
+  }
+
+  /**
+   * Validators of the bundle, in the order they are currently evaluated.
+   *
+   * @return Validators of the bundle, in the order they are currently evaluated.
+   */
+  @Nonnull
+  public List<ModelValidator<T>> getEvaluationOrder() {
+    final int[] current = order;
+    final List<ModelValidator<T>> ordered = new ArrayList<>(current.length);
+    for (final int index : current) {
+      ordered.add(validators[index]);
+    }
+    return Collections.unmodifiableList(ordered);
+  }
+
+  /**
+   * Average time in nanoseconds a validator took to evaluate.
+   *
+   * @param validator Validator of the bundle.
+   *
+   * @return Average time in nanoseconds the validator took to evaluate, or 0 if it has not run.
+   */
+  public double getAverageCost(@Nonnull final ModelValidator<T> validator) {
+    final int index = indexOf(validator);
+    final long evaluated = evaluations[index].sum();
+    return evaluated == 0 ? 0 : (double) costs[index].sum() / evaluated;
+  }
+
+  /**
+   * Share of evaluations in which a validator passed. Smoothed, so that validators with few
+   * observations do not report a rate of exactly 0 or 1.
+   *
+   * @param validator Validator of the bundle.
+   *
+   * @return Share of evaluations in which the validator passed.
+   */
+  public double getPassRate(@Nonnull final ModelValidator<T> validator) {
+    return getPassRate(indexOf(validator));
+  }
+
+  private double getPassRate(final int index) {
+    return (passes[index].sum() + 1.0) / (evaluations[index].sum() + 2.0);
+  }
+
+  private int indexOf(@Nonnull final ModelValidator<T> validator) {
+    for (int i = 0; i < validators.length; i++) {
+      if (validators[i] == validator) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Validator is not part of the bundle.");
+  }
+}
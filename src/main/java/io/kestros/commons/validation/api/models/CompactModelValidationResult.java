@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.exceptions.ValidationDeadlineExceededException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ModelValidationResult that stores the outcome of each validator as a bit, indexed against the
+ * CompiledValidatorPlan the model was validated with. ValidatorResults and the message map are
+ * only built when requested. Validators skipped by the validation mode are tracked in a second
+ * bitset, and are left out of the results and messages. When the plan flattened bundles, the
+ * outcomes of their validators are recorded during validation as well, so the bundled results are
+ * built from what was run, and validators are never run again when results are read.
+ */
+public final class CompactModelValidationResult implements ModelValidationResult {
+
+  static final String CYCLE_MESSAGE
+          = "Reference cycle detected. Model is already being validated further up the chain.";
+
+  private final BaseSlingModel model;
+  private final CompiledValidatorPlan plan;
+  private final long[] passed;
+  private final long[] evaluated;
+  private final long[] leafOutcomes;
+  private final boolean cyclic;
+  private final boolean valid;
+  private volatile List<ValidatorResult> results;
+  private volatile Map<ModelValidationMessageType, List<String>> messages;
+  private volatile Set<String> readPaths = Collections.emptySet();
+
+  CompactModelValidationResult(@Nonnull final BaseSlingModel model,
+          @Nonnull final CompiledValidatorPlan plan, @Nonnull final long[] passed,
+          @Nullable final long[] evaluated, @Nullable final long[] leafOutcomes) {
+    this(model, plan, passed, evaluated, leafOutcomes, false);
+  }
+
+  private CompactModelValidationResult(@Nonnull final BaseSlingModel model,
+          @Nonnull final CompiledValidatorPlan plan, @Nonnull final long[] passed,
+          @Nullable final long[] evaluated, @Nullable final long[] leafOutcomes,
+          final boolean cyclic) {
+    this.model = model;
+    this.plan = plan;
+    this.passed = passed;
+    this.evaluated = evaluated;
+    this.leafOutcomes = leafOutcomes;
+    this.cyclic = cyclic;
+    this.valid = !hasFailures(ModelValidationMessageType.ERROR);
+  }
+
+  /**
+   * Validates a model against every validator of a plan.
+   *
+   * @param model Model to validate.
+   * @param plan Plan of the validators registered to the model's type.
+   * @param <T> Model type.
+   *
+   * @return Result of the validation.
+   */
+  @Nonnull
+  public static <T extends BaseSlingModel> CompactModelValidationResult validate(
+          @Nonnull final T model, @Nonnull final CompiledValidatorPlan<T> plan) {
+    return validate(model, plan, ModelValidationMode.FULL);
+  }
+
+  /**
+   * Validates a model against the validators of a plan that are included in a validation mode.
+   * When the current validation pass has a time budget, validators that have not run once it is
+   * exceeded are skipped.
+   *
+   * @param model Model to validate.
+   * @param plan Plan of the validators registered to the model's type.
+   * @param mode Validation mode.
+   * @param <T> Model type.
+   *
+   * @return Result of the validation, which is partial if any validator was skipped.
+   */
+  @Nonnull
+  public static <T extends BaseSlingModel> CompactModelValidationResult validate(
+          @Nonnull final T model, @Nonnull final CompiledValidatorPlan<T> plan,
+          @Nonnull final ModelValidationMode mode) {
+    final long[] passed = new long[(plan.size() + 63) >>> 6];
+    return evaluate(model, plan, passed, new long[passed.length], plan.newLeafOutcomes(),
+            index -> mode.isIncluded(plan.getType(index)), mode.isFailFast());
+  }
+
+  /**
+   * Result of a model that was reached again through a reference cycle, while it was already
+   * being validated further up the chain. None of its validators are run, and the result is
+   * invalid, with an error reporting the cycle.
+   *
+   * @param model Model that was reached through a reference cycle.
+   * @param plan Plan of the validators registered to the model's type.
+   *
+   * @return Partial, invalid result, with every validator of the plan skipped.
+   */
+  @Nonnull
+  public static CompactModelValidationResult cyclic(@Nonnull final BaseSlingModel model,
+          @Nonnull final CompiledValidatorPlan plan) {
+    final long[] passed = new long[(plan.size() + 63) >>> 6];
+    return new CompactModelValidationResult(model, plan, passed, new long[passed.length], null,
+            true);
+  }
+
+  /**
+   * Revalidates a changed model, running only the validators whose declared dependencies are
+   * affected by the changes, and the validators that were skipped by the previous result. The
+   * outcomes of all other validators are carried over from the previous result.
+   *
+   * @param model Changed model.
+   * @param previous Result of the previous validation of the model.
+   * @param changes Changes to the model since the previous validation.
+   * @param <T> Model type.
+   *
+   * @return Result of the validation.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public static <T extends BaseSlingModel> CompactModelValidationResult revalidate(
+          @Nonnull final T model, @Nonnull final CompactModelValidationResult previous,
+          @Nonnull final ModelChangeSet changes) {
+    final CompiledValidatorPlan<T> plan = previous.plan;
+    final long[] evaluated = new long[previous.passed.length];
+    for (int i = 0; i < plan.size(); i++) {
+      if (previous.isEvaluated(i)) {
+        evaluated[i >>> 6] |= 1L << i;
+      }
+    }
+    final long[] leafOutcomes = previous.leafOutcomes != null ? previous.leafOutcomes.clone()
+                                                              : plan.newLeafOutcomes();
+    return evaluate(model, plan, previous.passed.clone(), evaluated, leafOutcomes,
+            index -> !previous.isEvaluated(index) || plan.getValidator(index).getDependencies()
+                    .isAffectedBy(changes), false);
+  }
+
+  /**
+   * Runs the selected validators of a plan, recording their outcomes in the bitsets. Once the
+   * time budget of the current pass runs out, or a validator fails in fail fast mode, the
+   * remaining selected validators are marked as not run.
+   */
+  @Nonnull
+  private static <T extends BaseSlingModel> CompactModelValidationResult evaluate(
+          @Nonnull final T model, @Nonnull final CompiledValidatorPlan<T> plan,
+          @Nonnull final long[] passed, @Nonnull final long[] evaluated,
+          @Nullable final long[] leafOutcomes, @Nonnull final IntPredicate selected,
+          final boolean failFast) {
+    final ValidationContext context = ValidationContext.getCurrent();
+    boolean stopped = false;
+    for (int i = 0; i < plan.size(); i++) {
+      if (!selected.test(i)) {
+        continue;
+      }
+      passed[i >>> 6] &= ~(1L << i);
+      evaluated[i >>> 6] &= ~(1L << i);
+      plan.clearLeafOutcomes(i, leafOutcomes);
+      if (stopped || context != null && context.isDeadlineExceeded()) {
+        stopped = true;
+        continue;
+      }
+      final boolean valid;
+      try {
+        valid = plan.isValid(i, model, leafOutcomes);
+      } catch (final ValidationDeadlineExceededException exception) {
+        stopped = true;
+        continue;
+      }
+      evaluated[i >>> 6] |= 1L << i;
+      if (valid) {
+        passed[i >>> 6] |= 1L << i;
+      } else if (failFast) {
+        stopped = true;
+      }
+    }
+    int evaluatedCount = 0;
+    for (final long word : evaluated) {
+      evaluatedCount += Long.bitCount(word);
+    }
+    return new CompactModelValidationResult(model, plan, passed,
+            evaluatedCount == plan.size() ? null : evaluated, leafOutcomes);
+  }
+
+  /**
+   * Plan the model was validated with.
+   *
+   * @return Plan the model was validated with.
+   */
+  @Nonnull
+  @JsonIgnore
+  public CompiledValidatorPlan getPlan() {
+    return plan;
+  }
+
+  /**
+   * Whether the validator at the specified index of the plan passed.
+   *
+   * @param index Index of the validator in the plan.
+   *
+   * @return Whether the validator at the specified index of the plan passed.
+   */
+  public boolean isPassed(final int index) {
+    return (passed[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Whether the validator at the specified index of the plan was run.
+   *
+   * @param index Index of the validator in the plan.
+   *
+   * @return Whether the validator at the specified index of the plan was run.
+   */
+  public boolean isEvaluated(final int index) {
+    return evaluated == null || (evaluated[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Whether validation of the model was stopped by a reference cycle.
+   *
+   * @return Whether validation of the model was stopped by a reference cycle.
+   */
+  public boolean isCyclic() {
+    return cyclic;
+  }
+
+  /**
+   * Whether any validator of the specified level was run and failed. Does not build any messages.
+   * A reference cycle counts as an error.
+   *
+   * @param type Validation level.
+   *
+   * @return Whether any validator of the specified level failed.
+   */
+  public boolean hasFailures(@Nonnull final ModelValidationMessageType type) {
+    if (cyclic && type == ModelValidationMessageType.ERROR) {
+      return true;
+    }
+    for (int i = 0; i < plan.size(); i++) {
+      if (!isPassed(i) && isEvaluated(i) && plan.getType(i) == type) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Nonnull
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ValidatorResult> getResults() {
+    List<ValidatorResult> current = results;
+    if (current == null) {
+      final List<ValidatorResult> built = new ArrayList<>(plan.size());
+      for (int i = 0; i < plan.size(); i++) {
+        if (!isEvaluated(i)) {
+          continue;
+        }
+        built.add(new LazyValidatorResult(plan.getNode(i), isPassed(i), model, leafOutcomes));
+      }
+      current = Collections.unmodifiableList(built);
+      results = current;
+    }
+    return current;
+  }
+
+  @Nonnull
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends BaseSlingModel> T getModel() {
+    return (T) model;
+  }
+
+  @Nonnull
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ModelValidator> getValidators() {
+    if (evaluated == null) {
+      return plan.getValidators();
+    }
+    return getValidators(true);
+  }
+
+  @Override
+  public boolean isPartial() {
+    return evaluated != null;
+  }
+
+  @Nonnull
+  @Override
+  @JsonIgnore
+  public List<ModelValidator> getSkippedValidators() {
+    if (evaluated == null) {
+      return Collections.emptyList();
+    }
+    return getValidators(false);
+  }
+
+  @Nonnull
+  @Override
+  @JsonIgnore
+  public Set<String> getReadPaths() {
+    return readPaths;
+  }
+
+  /**
+   * Records the paths of the resources read while validating the model. Set by the
+   * ValidationContext the model was validated in.
+   *
+   * @param readPaths Paths of the resources read while validating the model.
+   */
+  void setReadPaths(@Nonnull final Set<String> readPaths) {
+    this.readPaths = readPaths;
+  }
+
+  @Override
+  public boolean isValid() {
+    return valid;
+  }
+
+  @Nonnull
+  @Override
+  public Map<ModelValidationMessageType, List<String>> getMessages() {
+    Map<ModelValidationMessageType, List<String>> current = messages;
+    if (current == null) {
+      final Map<ModelValidationMessageType, List<String>> built = new EnumMap<>(
+              ModelValidationMessageType.class);
+      for (final ModelValidationMessageType type : ModelValidationMessageType.values()) {
+        built.put(type, new ArrayList<>());
+      }
+      if (cyclic) {
+        built.get(ModelValidationMessageType.ERROR).add(CYCLE_MESSAGE);
+      }
+      for (int i = 0; i < plan.size(); i++) {
+        if (!isPassed(i) && isEvaluated(i) && plan.getType(i) != null) {
+          built.get(plan.getType(i)).add(plan.getValidator(i).getMessage());
+        }
+      }
+      for (final ModelValidationMessageType type : ModelValidationMessageType.values()) {
+        built.put(type, Collections.unmodifiableList(built.get(type)));
+      }
+      current = Collections.unmodifiableMap(built);
+      messages = current;
+    }
+    return current;
+  }
+
+  @Nonnull
+  private List<ModelValidator> getValidators(final boolean wasEvaluated) {
+    final List<ModelValidator> validators = new ArrayList<>();
+    for (int i = 0; i < plan.size(); i++) {
+      if (isEvaluated(i) == wasEvaluated) {
+        validators.add(plan.getValidator(i));
+      }
+    }
+    return Collections.unmodifiableList(validators);
+  }
+}
@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable, array-backed evaluation plan for a list of ModelValidators. Nested
+ * ModelValidatorBundles are flattened into a single table of leaf validators, and the AND/OR
+ * short-circuit of every bundle is resolved into pass/fail jump targets when the plan is compiled.
+ * Evaluating a plan does not allocate and never reads the bundles' validator lists. Bundles that
+ * customize their own evaluation are kept as leaves. The plan keeps the tree of the bundles it
+ * flattened, so the outcomes of their validators can be recorded while the plan is evaluated.
+ *
+ * @param <T> Model type.
+ */
+public final class CompiledValidatorPlan<T extends BaseSlingModel> {
+
+  static final int PASS = -1;
+  static final int FAIL = -2;
+
+  private final ModelValidator<T>[] validators;
+  private final ModelValidationMessageType[] types;
+  private final Node<T>[] nodes;
+  private final int[] entryPoints;
+  private final ModelValidator<T>[] leaves;
+  private final int[] onPass;
+  private final int[] onFail;
+  private final boolean flattened;
+
+  private CompiledValidatorPlan(@Nonnull final ModelValidator<T>[] validators,
+          @Nonnull final Node<T>[] nodes, @Nonnull final ModelValidator<T>[] leaves,
+          @Nonnull final int[] onPass, @Nonnull final int[] onFail) {
+    this.validators = validators;
+    this.types = new ModelValidationMessageType[validators.length];
+    for (int i = 0; i < validators.length; i++) {
+      types[i] = validators[i].getType();
+    }
+    this.nodes = nodes;
+    this.entryPoints = new int[nodes.length];
+    boolean hasBundles = false;
+    for (int i = 0; i < nodes.length; i++) {
+      entryPoints[i] = nodes[i].entry;
+      hasBundles |= nodes[i].children != null;
+    }
+    this.leaves = leaves;
+    this.onPass = onPass;
+    this.onFail = onFail;
+    this.flattened = hasBundles;
+  }
+
+  /**
+   * Compiles a list of ModelValidators into an evaluation plan. Bundles are registered (if they
+   * have not been already) and flattened, so later changes to a bundle are not reflected in a plan
+   * that was compiled before them.
+   *
+   * @param validators Top level validators of the plan.
+   * @param <T> Model type.
+   *
+   * @return Evaluation plan for the specified validators.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public static <T extends BaseSlingModel> CompiledValidatorPlan<T> compile(
+          @Nonnull final List<? extends ModelValidator> validators) {
+    final ModelValidator<T>[] entries = validators.toArray(new ModelValidator[0]);
+    final Compiler<T> compiler = new Compiler<>();
+    final Node<T>[] nodes = new Node[entries.length];
+    for (int i = entries.length - 1; i >= 0; i--) {
+      nodes[i] = compiler.link(entries[i], PASS, FAIL);
+    }
+    return compiler.build(entries, nodes);
+  }
+
+  /**
+   * Compiles a bundle into an evaluation plan with the bundle as its only top level validator.
+   * The bundle itself is always flattened, so that evaluating the plan does not call back into
+   * the bundle.
+   *
+   * @param bundle Bundle to compile.
+   * @param <T> Model type.
+   *
+   * @return Evaluation plan for the bundle.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  static <T extends BaseSlingModel> CompiledValidatorPlan<T> compileBundle(
+          @Nonnull final ModelValidatorBundle<T> bundle) {
+    final Compiler<T> compiler = new Compiler<>();
+    final Node<T>[] nodes = new Node[]{compiler.linkBundle(bundle, PASS, FAIL)};
+    return compiler.build(new ModelValidator[]{bundle}, nodes);
+  }
+
+  /**
+   * Number of top level validators in the plan.
+   *
+   * @return Number of top level validators in the plan.
+   */
+  public int size() {
+    return validators.length;
+  }
+
+  /**
+   * Number of leaf validators the plan was flattened into.
+   *
+   * @return Number of leaf validators the plan was flattened into.
+   */
+  public int getLeafCount() {
+    return leaves.length;
+  }
+
+  /**
+   * Top level validator at the specified index.
+   *
+   * @param index Index of the top level validator.
+   *
+   * @return Top level validator at the specified index.
+   */
+  @Nonnull
+  public ModelValidator<T> getValidator(final int index) {
+    return validators[index];
+  }
+
+  /**
+   * Validation level of the top level validator at the specified index, as reported when the plan
+   * was compiled.
+   *
+   * @param index Index of the top level validator.
+   *
+   * @return Validation level of the top level validator at the specified index.
+   */
+  @Nonnull
+  public ModelValidationMessageType getType(final int index) {
+    return types[index];
+  }
+
+  /**
+   * Top level validators of the plan, in evaluation order.
+   *
+   * @return Top level validators of the plan, in evaluation order.
+   */
+  @Nonnull
+  public List<ModelValidator<T>> getValidators() {
+    return Collections.unmodifiableList(Arrays.asList(validators));
+  }
+
+  /**
+   * Evaluates a single top level validator against a model.
+   *
+   * @param index Index of the top level validator.
+   * @param model Model to validate.
+   *
+   * @return Whether the top level validator passed.
+   */
+  public boolean isValid(final int index, @Nonnull final T model) {
+    return isValid(index, model, null);
+  }
+
+  /**
+   * Evaluates a single top level validator against a model, recording the outcome of every leaf
+   * validator that is run.
+   *
+   * @param index Index of the top level validator.
+   * @param model Model to validate.
+   * @param leafOutcomes Outcomes of the leaf validators, from {@link #newLeafOutcomes()}. When
+   *     null, nothing is recorded.
+   *
+   * @return Whether the top level validator passed.
+   */
+  boolean isValid(final int index, @Nonnull final T model, @Nullable final long[] leafOutcomes) {
+    int cursor = entryPoints[index];
+    while (cursor >= 0) {
+      final boolean valid = ModelValidator.evaluate(leaves[cursor], model);
+      if (leafOutcomes != null) {
+        leafOutcomes[cursor >>> 5] |= (valid ? 3L : 1L) << (cursor << 1);
+      }
+      cursor = valid ? onPass[cursor] : onFail[cursor];
+    }
+    return cursor == PASS;
+  }
+
+  /**
+   * Empty outcomes of the plan's leaf validators, two bits per leaf.
+   *
+   * @return Empty outcomes of the plan's leaf validators, or null when the plan has no flattened
+   *     bundles, since the outcomes of its top level validators are then all there is to record.
+   */
+  @Nullable
+  long[] newLeafOutcomes() {
+    return flattened ? new long[(leaves.length + 31) >>> 5] : null;
+  }
+
+  /**
+   * Clears the recorded outcomes of the leaf validators of a top level validator.
+   *
+   * @param index Index of the top level validator.
+   * @param leafOutcomes Outcomes of the leaf validators.
+   */
+  void clearLeafOutcomes(final int index, @Nullable final long[] leafOutcomes) {
+    if (leafOutcomes != null) {
+      for (int leaf = nodes[index].first; leaf < nodes[index].end; leaf++) {
+        leafOutcomes[leaf >>> 5] &= ~(3L << (leaf << 1));
+      }
+    }
+  }
+
+  /**
+   * Node of the top level validator at the specified index.
+   *
+   * @param index Index of the top level validator.
+   *
+   * @return Node of the top level validator at the specified index.
+   */
+  @Nonnull
+  Node<T> getNode(final int index) {
+    return nodes[index];
+  }
+
+  /**
+   * Whether every top level validator passes for the specified model. Stops at the first failure.
+   *
+   * @param model Model to validate.
+   *
+   * @return Whether every top level validator passes for the specified model.
+   */
+  public boolean isAllValid(@Nonnull final T model) {
+    for (int i = 0; i < entryPoints.length; i++) {
+      if (!isValid(i, model)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Validator of a plan. Flattened bundles hold the nodes of their validators, in evaluation
+   * order. All other validators are leaves of the plan.
+   */
+  static final class Node<T extends BaseSlingModel> {
+
+    static final int NOT_RUN = 0;
+    static final int FAILED = 1;
+    static final int PASSED = 3;
+
+    private final ModelValidator<T> validator;
+    private final Node<T>[] children;
+    private final boolean allMustBeTrue;
+    private int leaf;
+    private int entry;
+    private int first;
+    private int end;
+
+    private Node(@Nonnull final ModelValidator<T> validator, @Nullable final Node<T>[] children,
+            final boolean allMustBeTrue, final int leaf, final int entry) {
+      this.validator = validator;
+      this.children = children;
+      this.allMustBeTrue = allMustBeTrue;
+      this.leaf = leaf;
+      this.entry = entry;
+    }
+
+    @Nonnull
+    ModelValidator<T> getValidator() {
+      return validator;
+    }
+
+    /**
+     * Nodes of the validators of a flattened bundle.
+     *
+     * @return Nodes of the validators of a flattened bundle, or null for a leaf.
+     */
+    @Nullable
+    Node<T>[] getChildren() {
+      return children;
+    }
+
+    boolean isAllMustBeTrue() {
+      return allMustBeTrue;
+    }
+
+    /**
+     * Recorded outcome of the validator, assuming the evaluation reached it. A flattened bundle
+     * folds the outcomes of its validators with the same short-circuit as the plan.
+     *
+     * @param leafOutcomes Outcomes of the plan's leaf validators.
+     *
+     * @return NOT_RUN, FAILED or PASSED.
+     */
+    int getOutcome(@Nonnull final long[] leafOutcomes) {
+      if (children == null) {
+        return (int) (leafOutcomes[leaf >>> 5] >>> (leaf << 1)) & 3;
+      }
+      for (final Node<T> child : children) {
+        final int outcome = child.getOutcome(leafOutcomes);
+        if (outcome == NOT_RUN || outcome == (allMustBeTrue ? FAILED : PASSED)) {
+          return outcome;
+        }
+      }
+      // A bundle where no validator passes is still valid, see ModelValidatorBundle.
+      return PASSED;
+    }
+
+    private void flip(final int count) {
+      entry = Compiler.flip(entry, count);
+      if (children == null) {
+        leaf = Compiler.flip(leaf, count);
+        first = leaf;
+        end = leaf + 1;
+        return;
+      }
+      first = count;
+      end = 0;
+      for (final Node<T> child : children) {
+        child.flip(count);
+        if (child.first < child.end) {
+          first = Math.min(first, child.first);
+          end = Math.max(end, child.end);
+        }
+      }
+      if (first > end) {
+        first = end;
+      }
+    }
+  }
+
+  /**
+   * Links validators back to front, so every jump target already exists when a leaf is added.
+   * Leaves therefore receive descending indexes, which are flipped once compilation completes.
+   */
+  private static final class Compiler<T extends BaseSlingModel> {
+
+    private final List<ModelValidator<T>> leaves = new ArrayList<>();
+    private final List<Integer> onPass = new ArrayList<>();
+    private final List<Integer> onFail = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    Node<T> link(@Nonnull final ModelValidator<T> validator, final int pass, final int fail) {
+      if (validator instanceof ModelValidatorBundle
+          && ((ModelValidatorBundle<T>) validator).isFlattenable()) {
+        return linkBundle((ModelValidatorBundle<T>) validator, pass, fail);
+      }
+      leaves.add(validator);
+      onPass.add(pass);
+      onFail.add(fail);
+      return new Node<>(validator, null, false, leaves.size() - 1, leaves.size() - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    Node<T> linkBundle(@Nonnull final ModelValidatorBundle<T> bundle, final int pass,
+            final int fail) {
+      final List<ModelValidator<T>> validators = bundle.getRegisteredValidators();
+      final boolean allMustBeTrue = bundle.isAllMustBeTrue();
+      final Node<T>[] children = new Node[validators.size()];
+      int next = pass;
+      if (allMustBeTrue) {
+        for (int i = validators.size() - 1; i >= 0; i--) {
+          children[i] = link(validators.get(i), next, fail);
+          next = children[i].entry;
+        }
+      } else {
+        // A bundle where no validator passes is still valid, see ModelValidatorBundle.
+        for (int i = validators.size() - 1; i >= 0; i--) {
+          children[i] = link(validators.get(i), pass, next);
+          next = children[i].entry;
+        }
+      }
+      return new Node<>(bundle, children, allMustBeTrue, -1, next);
+    }
+
+    @SuppressWarnings("unchecked")
+    CompiledValidatorPlan<T> build(@Nonnull final ModelValidator<T>[] entries,
+            @Nonnull final Node<T>[] nodes) {
+      final int count = leaves.size();
+      final ModelValidator<T>[] leafArray = new ModelValidator[count];
+      final int[] passArray = new int[count];
+      final int[] failArray = new int[count];
+      for (int i = 0; i < count; i++) {
+        final int index = count - 1 - i;
+        leafArray[index] = leaves.get(i);
+        passArray[index] = flip(onPass.get(i), count);
+        failArray[index] = flip(onFail.get(i), count);
+      }
+      for (final Node<T> node : nodes) {
+        node.flip(count);
+      }
+      return new CompiledValidatorPlan<>(entries, nodes, leafArray, passArray, failArray);
+    }
+
+    private static int flip(final int target, final int count) {
+      return target < 0 ? target : count - 1 - target;
+    }
+  }
+}
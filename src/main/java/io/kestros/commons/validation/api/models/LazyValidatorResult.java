@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * ValidatorResult built on demand from a validator and its outcome. Messages are rendered when
+ * read. Results of a bundle's validators are built from the leaf outcomes recorded while the plan
+ * was evaluated, and only include the validators that were run. Bundles that were kept as leaves
+ * of the plan, like parallel and adaptive ones, have no recorded bundled results.
+ */
+final class LazyValidatorResult implements ValidatorResult {
+
+  private final CompiledValidatorPlan.Node node;
+  private final ModelValidator validator;
+  private final boolean valid;
+  private final BaseSlingModel model;
+  private final long[] leafOutcomes;
+  private volatile List<ValidatorResult> bundled;
+
+  LazyValidatorResult(@Nonnull final CompiledValidatorPlan.Node node, final boolean valid,
+          @Nonnull final BaseSlingModel model, @Nullable final long[] leafOutcomes) {
+    this.node = node;
+    this.validator = node.getValidator();
+    this.valid = valid;
+    this.model = model;
+    this.leafOutcomes = leafOutcomes;
+  }
+
+  @Override
+  public boolean isValid() {
+    return valid;
+  }
+
+  @Nonnull
+  @Override
+  public String getMessage() {
+    return validator.getMessage();
+  }
+
+  @Nonnull
+  @Override
+  @SuppressWarnings("unchecked")
+  public String getDetailedMessage() {
+    return validator.getDetailedMessage(model);
+  }
+
+  @Nullable
+  @Override
+  public String getDocumentationResourceType() {
+    if (validator instanceof DocumentedModelValidator) {
+      return ((DocumentedModelValidator) validator).getResourceType();
+    }
+    return null;
+  }
+
+  @Nullable
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ValidatorResult> getBundled() {
+    if (!(validator instanceof ModelValidatorBundle)) {
+      return null;
+    }
+    List<ValidatorResult> current = bundled;
+    if (current == null) {
+      final CompiledValidatorPlan.Node[] children = node.getChildren();
+      if (children == null || leafOutcomes == null) {
+        current = Collections.emptyList();
+      } else {
+        final List<ValidatorResult> built = new ArrayList<>(children.length);
+        for (final CompiledValidatorPlan.Node child : children) {
+          final int outcome = child.getOutcome(leafOutcomes);
+          if (outcome == CompiledValidatorPlan.Node.NOT_RUN) {
+            break;
+          }
+          built.add(new LazyValidatorResult(child, outcome == CompiledValidatorPlan.Node.PASSED,
+                  model, leafOutcomes));
+          if (outcome == (node.isAllMustBeTrue() ? CompiledValidatorPlan.Node.FAILED
+                                                 : CompiledValidatorPlan.Node.PASSED)) {
+            break;
+          }
+        }
+        current = Collections.unmodifiableList(built);
+      }
+      bundled = current;
+    }
+    return current;
+  }
+
+  @Nonnull
+  @Override
+  public String getValidatorClassPath() {
+    return validator.getClass().getName();
+  }
+
+  @Nonnull
+  @Override
+  public ModelValidationMessageType getType() {
+    return validator.getType();
+  }
+
+  @Nonnull
+  @Override
+  public Map<ModelValidationMessageType, List<String>> getMessages() {
+    if (valid) {
+      return Collections.emptyMap();
+    }
+    return Collections.singletonMap(getType(), Collections.singletonList(getMessage()));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * Properties and child resources of a model that changed since it was last validated.
+ */
+public final class ModelChangeSet {
+
+  /**
+   * Change set used when what changed is not known. Affects every validator.
+   */
+  public static final ModelChangeSet UNKNOWN = new ModelChangeSet(Collections.emptySet(),
+          Collections.emptySet(), true);
+
+  private final Set<String> properties;
+  private final Set<String> children;
+  private final boolean unknown;
+
+  private ModelChangeSet(@Nonnull final Set<String> properties,
+          @Nonnull final Set<String> children, final boolean unknown) {
+    this.properties = properties;
+    this.children = children;
+    this.unknown = unknown;
+  }
+
+  /**
+   * Change set of modified properties.
+   *
+   * @param properties Names of the modified properties.
+   *
+   * @return Change set of modified properties.
+   */
+  @Nonnull
+  public static ModelChangeSet properties(@Nonnull final String... properties) {
+    return of(Arrays.asList(properties), Collections.emptyList());
+  }
+
+  /**
+   * Change set of modified properties and child resources.
+   *
+   * @param properties Names of the modified properties.
+   * @param children Names of the child resources that were added, removed, or modified anywhere
+   *     beneath.
+   *
+   * @return Change set of modified properties and child resources.
+   */
+  @Nonnull
+  public static ModelChangeSet of(@Nonnull final Collection<String> properties,
+          @Nonnull final Collection<String> children) {
+    return new ModelChangeSet(Collections.unmodifiableSet(new LinkedHashSet<>(properties)),
+            Collections.unmodifiableSet(new LinkedHashSet<>(children)), false);
+  }
+
+  /**
+   * Whether what changed is not known.
+   *
+   * @return Whether what changed is not known.
+   */
+  public boolean isUnknown() {
+    return unknown;
+  }
+
+  /**
+   * Names of the modified properties.
+   *
+   * @return Names of the modified properties.
+   */
+  @Nonnull
+  public Set<String> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Names of the modified child resources.
+   *
+   * @return Names of the modified child resources.
+   */
+  @Nonnull
+  public Set<String> getChildren() {
+    return children;
+  }
+}
@@ -23,8 +23,10 @@ package io.kestros.commons.validation.api.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.kestros.commons.structuredslingmodels.BaseSlingModel;
 import io.kestros.commons.validation.api.ModelValidationMessageType;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
 /**
@@ -75,4 +77,37 @@ public interface ModelValidationResult {
    */
   @Nonnull
   Map<ModelValidationMessageType, List<String>> getMessages();
+
+  /**
+   * Whether any registered validators were skipped, in which case the result only reflects the
+   * validators that ran.
+   *
+   * @return Whether any registered validators were skipped.
+   */
+  default boolean isPartial() {
+    return false;
+  }
+
+  /**
+   * Returns the registered validators that were not run on the model.
+   *
+   * @return the registered validators that were not run on the model.
+   */
+  @Nonnull
+  @JsonIgnore
+  default List<ModelValidator> getSkippedValidators() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the paths of the other resources that were read while validating the model, such as
+   * child resources and list members.
+   *
+   * @return the paths of the other resources that were read while validating the model.
+   */
+  @Nonnull
+  @JsonIgnore
+  default Set<String> getReadPaths() {
+    return Collections.emptySet();
+  }
 }
@@ -30,9 +30,37 @@ import javax.annotation.Nonnull;
  */
 public abstract class ModelValidator<T extends BaseSlingModel> {
 
+  private static final ClassValue<Evaluation> EVALUATION = new ClassValue<Evaluation>() {
+    @Override
+    protected Evaluation computeValue(final Class<?> type) {
+      final Class<?> test = getDeclaringClass(type, "test");
+      final Class<?> isValidCheck = getDeclaringClass(type, "isValidCheck");
+      if (test == ModelValidator.class && isValidCheck == ModelValidator.class) {
+        return Evaluation.NONE;
+      }
+      if (test != isValidCheck && isValidCheck.isAssignableFrom(test)) {
+        return Evaluation.TEST;
+      }
+      return Evaluation.IS_VALID_CHECK;
+    }
+  };
 
   /**
-   * Boolean logic To determine whether the current validator passes validation.
+   * Constructs a ModelValidator.
+   *
+   * @throws IllegalStateException The validator overrides neither
+   *     {@link #test(BaseSlingModel)} nor {@link #isValidCheck(BaseSlingModel)}.
+   */
+  protected ModelValidator() {
+    if (EVALUATION.get(getClass()) == Evaluation.NONE) {
+      throw new IllegalStateException(String.format(
+              "%s must override either test or isValidCheck.", getClass().getName()));
+    }
+  }
+
+  /**
+   * Boolean logic To determine whether the current validator passes validation. Bridges to
+   * {@link #test(BaseSlingModel)} when not overridden.
    *
    * @param model Model to validate.
    *
@@ -40,7 +68,61 @@ public abstract class ModelValidator<T extends BaseSlingModel> {
    */
   @Nonnull
   @JsonIgnore
-  public abstract Boolean isValidCheck(@Nonnull T model);
+  public Boolean isValidCheck(@Nonnull T model) {
+    return test(model);
+  }
+
+  /**
+   * Primitive boolean logic to determine whether the current validator passes validation.
+   * Validators must override either this method or {@link #isValidCheck(BaseSlingModel)}, and
+   * should prefer this one, which avoids boxing. Bridges to isValidCheck when not overridden, and
+   * treats a null result from it as invalid.
+   *
+   * @param model Model to validate.
+   *
+   * @return Whether the current Validator is valid or not.
+   */
+  public boolean test(@Nonnull T model) {
+    return Boolean.TRUE.equals(isValidCheck(model));
+  }
+
+  /**
+   * Evaluates a validator through the method its class overrides most specifically. Validators
+   * that only override test, like bundles, are evaluated through test. All others, including
+   * subclasses overriding isValidCheck below a class that overrides test, and classes overriding
+   * both (such as mocks), are evaluated through isValidCheck.
+   *
+   * @param validator Validator to evaluate.
+   * @param model Model to validate.
+   * @param <T> Model type.
+   *
+   * @return Whether the validator passes.
+   */
+  static <T extends BaseSlingModel> boolean evaluate(@Nonnull final ModelValidator<T> validator,
+          @Nonnull final T model) {
+    if (EVALUATION.get(validator.getClass()) == Evaluation.TEST) {
+      return validator.test(model);
+    }
+    return Boolean.TRUE.equals(validator.isValidCheck(model));
+  }
+
+  /**
+   * Class declaring the implementation of a single argument validation method that a validator
+   * class inherits.
+   *
+   * @param type Validator class.
+   * @param name Method name, test or isValidCheck.
+   *
+   * @return Class declaring the implementation of the method.
+   */
+  @Nonnull
+  static Class<?> getDeclaringClass(@Nonnull final Class<?> type, @Nonnull final String name) {
+    try {
+      return type.getMethod(name, BaseSlingModel.class).getDeclaringClass();
+    } catch (final NoSuchMethodException exception) {
+      return ModelValidator.class;
+    }
+  }
 
   /**
    * Message to be shown when the current validator is not valid.
@@ -60,6 +142,44 @@ public abstract class ModelValidator<T extends BaseSlingModel> {
   @Nonnull
   public abstract String getDetailedMessage(@Nonnull T model);
 
+  /**
+   * Message to be shown when the current validator is not valid, as an unformatted template.
+   * Validators with parameterized messages should override this, and render getMessage from it.
+   *
+   * @return Message to be shown when the current validator is not valid.
+   */
+  @Nonnull
+  @JsonIgnore
+  public ValidationMessage getValidationMessage() {
+    return ValidationMessage.of(getMessage());
+  }
+
+  /**
+   * Detailed message to be shown when the current validator is not valid, as an unformatted
+   * template. Validators with parameterized messages should override this, and render
+   * getDetailedMessage from it.
+   *
+   * @param model Model providing context for the detailed message.
+   *
+   * @return Detailed message to be shown when the current validator is not valid.
+   */
+  @Nonnull
+  public ValidationMessage getDetailedValidationMessage(@Nonnull T model) {
+    return ValidationMessage.of(getDetailedMessage(model));
+  }
+
+  /**
+   * Properties and child resources of the model the current validator reads. Validators that
+   * declare their dependencies are only rerun when one of them changes.
+   *
+   * @return Properties and child resources of the model the current validator reads.
+   */
+  @Nonnull
+  @JsonIgnore
+  public ValidatorDependencies getDependencies() {
+    return ValidatorDependencies.UNKNOWN;
+  }
+
   /**
    * The error level of the current validator.  Can be ERROR, WARNING or INFO.
    *
@@ -67,4 +187,11 @@ public abstract class ModelValidator<T extends BaseSlingModel> {
    */
   @Nonnull
   public abstract ModelValidationMessageType getType();
-}
\ No newline at end of file
+
+  /**
+   * Method a validator class is evaluated through.
+   */
+  private enum Evaluation {
+    TEST, IS_VALID_CHECK, NONE
+  }
+}
@@ -19,39 +19,186 @@
 
 package io.kestros.commons.validation.api.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.kestros.commons.structuredslingmodels.BaseSlingModel;
 import io.kestros.commons.validation.api.ModelValidationMessageType;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * ModelValidator that holds a set of ModelValidators.
  */
 public abstract class ModelValidatorBundle<T extends BaseSlingModel> extends ModelValidator<T> {
 
-  private final List<ModelValidator<T>> validators = new ArrayList();
+  private static final VarHandle STATE;
+
+  static {
+    try {
+      STATE = MethodHandles.lookup().findVarHandle(ModelValidatorBundle.class, "state",
+              State.class);
+    } catch (final ReflectiveOperationException exception) {
+      throw new ExceptionInInitializerError(exception);
+    }
+  }
+
+  private final ThreadLocal<List<ModelValidator<T>>> pendingRegistrations = new ThreadLocal<>();
+
+  private volatile State<T> state = new State<>(new ModelValidator[0], false, null);
+
+  private volatile AdaptiveValidatorOrdering<T> adaptiveValidatorOrdering;
 
   /**
    * Constructs ModelValidator that holds a set of ModelValidators.
    */
 
 
+  /**
+   * Evaluates the bundle. Subclasses customizing how the bundle is evaluated should override this
+   * method. Such bundles, like parallel and adaptive ones, are not flattened into the plans of
+   * bundles or validator lists containing them.
+   *
+   * @param model Model to validate.
+   *
+   * @return Whether the bundle is valid.
+   */
+  @Override
+  public boolean test(@Nonnull T model) {
+    if (isParallelEvaluation()) {
+      final ModelValidator<T>[] registered = ensureRegistered().validators;
+      if (registered.length > 1) {
+        try {
+          return ParallelValidatorEvaluation.isValid(registered, isAllMustBeTrue(), model,
+                  getParallelExecutor());
+        } catch (final InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    if (isAdaptiveOrdering()) {
+      return getAdaptiveValidatorOrdering().isValid(model);
+    }
+    return getCompiledValidatorPlan().isValid(0, model);
+  }
+
+  /**
+   * Whether the bundle should learn the evaluation order of its validators from their observed
+   * cost and pass rate, instead of evaluating them in the order they were added. Validators are
+   * then evaluated one by one rather than through the compiled plan, so this suits bundles with
+   * expensive validators. Defaults to false.
+   *
+   * @return Whether the bundle should learn the evaluation order of its validators.
+   */
+  public boolean isAdaptiveOrdering() {
+    return false;
+  }
+
+  /**
+   * Whether the bundle's validators should be evaluated concurrently on
+   * {@link #getParallelExecutor()}. Once one validator decides the result (fails when all must be
+   * true, or passes when one must be true), the remaining validators are cancelled. Suited to
+   * bundles with expensive validators. Validators run on other threads share the model's
+   * ResourceResolver, which is not thread safe, so only enable this when the validators do not
+   * use the resolver, or the model comes from a thread-safe one. Defaults to false.
+   *
+   * @return Whether the bundle's validators should be evaluated concurrently.
+   */
+  public boolean isParallelEvaluation() {
+    return false;
+  }
+
+  /**
+   * Executor that validators are evaluated on when {@link #isParallelEvaluation()} is true.
+   * Defaults to the common ForkJoinPool. Bundles with blocking validators should return a
+   * dedicated executor.
+   *
+   * @return Executor that validators are evaluated on.
+   */
+  @Nonnull
+  @JsonIgnore
+  public Executor getParallelExecutor() {
+    return ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Learned evaluation order of the bundle's validators, along with the statistics it is based
+   * on. Used when {@link #isAdaptiveOrdering()} is true.
+   *
+   * @return Learned evaluation order of the bundle's validators.
+   */
+  @Nonnull
+  @JsonIgnore
+  public AdaptiveValidatorOrdering<T> getAdaptiveValidatorOrdering() {
+    final ModelValidator<T>[] registered = ensureRegistered().validators;
+    AdaptiveValidatorOrdering<T> ordering = adaptiveValidatorOrdering;
+    if (ordering == null || !ordering.isFor(registered)) {
+      ordering = new AdaptiveValidatorOrdering<>(registered, isAllMustBeTrue());
+      adaptiveValidatorOrdering = ordering;
+    }
+    return ordering;
+  }
+
+  /**
+   * ModelValidators of the bundle, in the order they are evaluated.
+   *
+   * @return ModelValidators of the bundle, in the order they are evaluated.
+   */
+  @Nonnull
+  @JsonIgnore
+  public List<ModelValidator<T>> getEvaluationOrder() {
+    if (isAdaptiveOrdering()) {
+      return getAdaptiveValidatorOrdering().getEvaluationOrder();
+    }
+    return getRegisteredValidators();
+  }
+
+  /**
+   * Evaluation plan of the current bundle, with all nested bundles flattened into it. Compiled on
+   * first use, and recompiled after validators are added to the bundle.
+   *
+   * @return Evaluation plan of the current bundle.
+   */
+  @Nonnull
+  @JsonIgnore
+  public CompiledValidatorPlan<T> getCompiledValidatorPlan() {
+    State<T> current = state;
+    while (current.plan == null) {
+      current = ensureRegistered();
+      final CompiledValidatorPlan<T> plan = CompiledValidatorPlan.compileBundle(this);
+      final State<T> compiled = new State<>(current.validators, true, plan);
+      if (STATE.compareAndSet(this, current, compiled)) {
+        return plan;
+      }
+      current = state;
+    }
+    return current.plan;
+  }
+
+  /**
+   * Combined dependencies of the bundle's ModelValidators.
+   *
+   * @return Combined dependencies of the bundle's ModelValidators.
+   */
   @Nonnull
+  @JsonIgnore
   @Override
-  public Boolean isValidCheck(@Nonnull T model) {
-    if (validators.isEmpty()) {
-      registerValidators();
-    }
-    for (final ModelValidator validator : getValidators()) {
-      if (isAllMustBeTrue() && !validator.isValidCheck(model)) {
-        return Boolean.FALSE;
-      } else if (!isAllMustBeTrue() && validator.isValidCheck(model)) {
-        return Boolean.TRUE;
+  public ValidatorDependencies getDependencies() {
+    ValidatorDependencies dependencies = ValidatorDependencies.NONE;
+    for (final ModelValidator<T> validator : getRegisteredValidators()) {
+      dependencies = dependencies.and(validator.getDependencies());
+      if (dependencies.isUnknown()) {
+        break;
       }
     }
-    return Boolean.TRUE;
+    return dependencies;
   }
 
   /**
@@ -91,7 +238,16 @@ public abstract class ModelValidatorBundle<T extends BaseSlingModel> extends Mod
    */
   @SuppressFBWarnings("OPM_OVERLY_PERMISSIVE_METHOD")
   public void addValidator(@Nonnull final ModelValidator<T> validator) {
-    validators.add(validator);
+    final List<ModelValidator<T>> pending = pendingRegistrations.get();
+    if (pending != null) {
+      pending.add(validator);
+      return;
+    }
+    State<T> current;
+    do {
+      current = state;
+    } while (!STATE.compareAndSet(this, current,
+            current.append(Collections.singletonList(validator), current.registered)));
   }
 
   /**
@@ -115,11 +271,71 @@ public abstract class ModelValidatorBundle<T extends BaseSlingModel> extends Mod
    */
   @Nonnull
   public List<ModelValidator<T>> getValidators() {
-    return new ArrayList<>(validators);
+    return new ArrayList<>(Arrays.asList(state.validators));
+  }
+
+  /**
+   * List of all ModelValidators in the bundle, registering them first if the bundle is empty.
+   *
+   * @return List of all ModelValidators in the bundle.
+   */
+  @Nonnull
+  List<ModelValidator<T>> getRegisteredValidators() {
+    return Collections.unmodifiableList(Arrays.asList(ensureRegistered().validators));
+  }
+
+  /**
+   * Whether the bundle can be flattened into the plan of a bundle or validator list containing
+   * it. Bundles that evaluate their validators in parallel, in a learned order, or through an
+   * overridden {@link #test(BaseSlingModel)} or {@link #isValidCheck(BaseSlingModel)} are kept as
+   * a single validator instead.
+   *
+   * @return Whether the bundle can be flattened into the plan of a containing bundle or list.
+   */
+  boolean isFlattenable() {
+    if (isParallelEvaluation() || isAdaptiveOrdering()) {
+      return false;
+    }
+    return getDeclaringClass(getClass(), "test") == ModelValidatorBundle.class
+           && getDeclaringClass(getClass(), "isValidCheck") == ModelValidator.class;
   }
 
   /**
-   * Validation level of the current bundle.
+   * Runs {@link #registerValidators()} once, if the bundle is still empty. Validators added during
+   * registration are collected privately and published in a single step, so threads racing on
+   * first use never see a partially registered bundle, and only one registration is kept.
+   *
+   * @return Registered state of the bundle.
+   */
+  @Nonnull
+  private State<T> ensureRegistered() {
+    State<T> current = state;
+    if (current.registered) {
+      return current;
+    }
+    List<ModelValidator<T>> registered = Collections.emptyList();
+    if (current.validators.length == 0) {
+      registered = new ArrayList<>();
+      pendingRegistrations.set(registered);
+      try {
+        registerValidators();
+      } finally {
+        pendingRegistrations.remove();
+      }
+    }
+    while (!current.registered) {
+      final State<T> next = current.append(registered, true);
+      if (STATE.compareAndSet(this, current, next)) {
+        return next;
+      }
+      current = state;
+    }
+    return current;
+  }
+
+  /**
+   * Validation level of the current bundle, registering its validators first if the bundle is
+   * empty.
    *
    * @return Validation level of the current bundle.
    */
@@ -127,7 +343,7 @@ public abstract class ModelValidatorBundle<T extends BaseSlingModel> extends Mod
   @Nonnull
   public ModelValidationMessageType getType() {
     ModelValidationMessageType type = ModelValidationMessageType.INFO;
-    for (ModelValidator validator : getValidators()) {
+    for (ModelValidator validator : getRegisteredValidators()) {
       if (validator.getType().name().equals(ModelValidationMessageType.ERROR.name())) {
         return ModelValidationMessageType.ERROR;
       } else if (validator.getType().name().equals(ModelValidationMessageType.WARNING.name())) {
@@ -136,4 +352,31 @@ public abstract class ModelValidatorBundle<T extends BaseSlingModel> extends Mod
     }
     return type;
   }
+
+  /**
+   * Immutable snapshot of the bundle's validators, and the plan compiled from them.
+   */
+  private static final class State<T extends BaseSlingModel> {
+
+    private final ModelValidator<T>[] validators;
+    private final boolean registered;
+    private final CompiledValidatorPlan<T> plan;
+
+    private State(@Nonnull final ModelValidator<T>[] validators, final boolean registered,
+            @Nullable final CompiledValidatorPlan<T> plan) {
+      this.validators = validators;
+      this.registered = registered;
+      this.plan = plan;
+    }
+
+    @Nonnull
+    private State<T> append(@Nonnull final List<ModelValidator<T>> added,
+            final boolean registered) {
+      final ModelValidator<T>[] next = Arrays.copyOf(validators, validators.length + added.size());
+      for (int i = 0; i < added.size(); i++) {
+        next[validators.length + i] = added.get(i);
+      }
+      return new State<>(next, registered, null);
+    }
+  }
 }
\ No newline at end of file
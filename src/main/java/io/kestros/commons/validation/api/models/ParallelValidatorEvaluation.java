@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+/**
+ * Evaluates the validators of a bundle concurrently. Outcomes are resolved in the order the
+ * validators were added, so the result, including which exception is thrown, is the same as
+ * evaluating them one by one. Validators after one that decides the bundle's result or throws are
+ * cancelled as soon as that is known. Waiting for results is a managed block, so a ForkJoinPool
+ * worker evaluating a (nested) parallel bundle lets its pool add a compensating thread instead of
+ * starving it.
+ */
+final class ParallelValidatorEvaluation {
+
+  private static final byte PASSED = 1;
+  private static final byte FAILED = 2;
+  private static final byte THREW = 3;
+
+  private ParallelValidatorEvaluation() {
+  }
+
+  /**
+   * Evaluates validators concurrently, with the same result as evaluating them in order. The
+   * first validator that either decides the result or throws ends the evaluation, so the
+   * exception of a validator is rethrown unless an earlier validator decided the result, and is
+   * never hidden by a later one.
+   *
+   * @param validators Validators to evaluate.
+   * @param allMustBeTrue Whether all validators must pass, or just one.
+   * @param model Model to validate.
+   * @param executor Executor to run the validators on.
+   * @param <T> Model type.
+   *
+   * @return Whether the bundle is valid.
+   *
+   * @throws InterruptedException Calling thread was interrupted while waiting for results.
+   */
+  static <T extends BaseSlingModel> boolean isValid(@Nonnull final ModelValidator<T>[] validators,
+          final boolean allMustBeTrue, @Nonnull final T model, @Nonnull final Executor executor)
+          throws InterruptedException {
+    final CompletionService<Integer> completionService = new ExecutorCompletionService<>(
+            executor);
+    final byte[] outcomes = new byte[validators.length];
+    final Throwable[] failures = new Throwable[validators.length];
+    final List<Future<Integer>> futures = new ArrayList<>(validators.length);
+    try {
+      for (int i = 0; i < validators.length; i++) {
+        final int index = i;
+        final ModelValidator<T> validator = validators[i];
+        futures.add(completionService.submit(ValidationContext.wrap(() -> {
+          try {
+            outcomes[index] = ModelValidator.evaluate(validator, model) ? PASSED : FAILED;
+          } catch (final RuntimeException | Error exception) {
+            failures[index] = exception;
+            outcomes[index] = THREW;
+          }
+          return index;
+        })));
+      }
+      // Outcomes are only read once their future was taken, which makes them visible.
+      final boolean[] taken = new boolean[validators.length];
+      // Index of the first validator known to decide the result or throw.
+      int end = validators.length;
+      int next = 0;
+      while (next < end) {
+        final Future<Integer> completed = take(completionService);
+        if (completed.isCancelled()) {
+          continue;
+        }
+        final int index = getIndex(completed);
+        taken[index] = true;
+        if (index < end && outcomes[index] != (allMustBeTrue ? PASSED : FAILED)) {
+          for (int i = index + 1; i < end; i++) {
+            futures.get(i).cancel(true);
+          }
+          end = index;
+        }
+        while (next < end && taken[next]) {
+          next++;
+        }
+      }
+      if (end == validators.length) {
+        return true;
+      }
+      if (outcomes[end] == THREW) {
+        throw asRuntimeException(failures[end]);
+      }
+      return outcomes[end] == PASSED;
+    } finally {
+      for (final Future<Integer> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Takes the next completed future, blocking through ForkJoinPool.managedBlock.
+   */
+  @Nonnull
+  private static <V> Future<V> take(@Nonnull final CompletionService<V> completionService)
+          throws InterruptedException {
+    final CompletionBlocker<V> blocker = new CompletionBlocker<>(completionService);
+    ForkJoinPool.managedBlock(blocker);
+    return blocker.completed;
+  }
+
+  private static int getIndex(@Nonnull final Future<Integer> completed)
+          throws InterruptedException {
+    try {
+      return completed.get();
+    } catch (final ExecutionException exception) {
+      throw asRuntimeException(exception.getCause());
+    }
+  }
+
+  private static RuntimeException asRuntimeException(final Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IllegalStateException(cause);
+  }
+
+  /**
+   * ManagedBlocker waiting for the next completed future of a CompletionService.
+   */
+  private static final class CompletionBlocker<V> implements ForkJoinPool.ManagedBlocker {
+
+    private final CompletionService<V> completionService;
+    private Future<V> completed;
+
+    private CompletionBlocker(@Nonnull final CompletionService<V> completionService) {
+      this.completionService = completionService;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (completed == null) {
+        completed = completionService.take();
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (completed == null) {
+        completed = completionService.poll();
+      }
+      return completed != null;
+    }
+  }
+}
@@ -0,0 +1,581 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.exceptions.ChildResourceNotFoundException;
+import io.kestros.commons.structuredslingmodels.exceptions.InvalidResourceTypeException;
+import io.kestros.commons.structuredslingmodels.utils.SlingModelUtils;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.exceptions.ValidationDeadlineExceededException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * State shared by all validators run during a single validation pass. The context is bound to
+ * the validating thread, so validators can reach it through {@link #getCurrent()} without it
+ * being passed to each validator. Contexts are thread safe, and can be bound to several threads
+ * when a pass fans out. Child lookups and the results of nested model validations are memoized
+ * for the rest of the pass. The paths of the resources read while validating each model are
+ * recorded, so cached results can be invalidated when any of them changes.
+ */
+public final class ValidationContext {
+
+  private static final ThreadLocal<ValidationContext> CURRENT = new ThreadLocal<>();
+  private static final ThreadLocal<Ancestor> ANCESTORS = new ThreadLocal<>();
+  private static final ThreadLocal<Deadline> DEADLINE = new ThreadLocal<>();
+
+  private final ConcurrentMap<ChildKey, Object> childLookups = new ConcurrentHashMap<>();
+  private final ConcurrentMap<ResultKey, ModelValidationResult> results
+          = new ConcurrentHashMap<>();
+  private final ConcurrentMap<ResultKey, Set<String>> readPaths = new ConcurrentHashMap<>();
+
+  /**
+   * Context bound to the current thread.
+   *
+   * @return Context bound to the current thread, or null when no validation pass is open.
+   */
+  @Nullable
+  public static ValidationContext getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Opens a validation pass on the current thread. If a pass is already open, the returned scope
+   * joins it, so nested validations share the outer pass's context.
+   *
+   * @return Scope of the validation pass. Must be closed once the pass completes.
+   */
+  @Nonnull
+  public static Scope open() {
+    final ValidationContext current = CURRENT.get();
+    return enter(current != null ? current : new ValidationContext());
+  }
+
+  /**
+   * Opens a validation pass on the current thread with a time budget. If a pass is already open,
+   * the returned scope joins it, and its deadline is brought forward to the end of the budget
+   * until the scope is closed. Deadlines belong to the thread that opened them, and to the tasks
+   * it wraps with {@link #wrap(Callable)}, so scopes opened on other threads of the same pass do
+   * not affect each other.
+   *
+   * @param budget Time budget of the pass.
+   *
+   * @return Scope of the validation pass. Must be closed once the pass completes.
+   */
+  @Nonnull
+  public static Scope open(@Nonnull final Duration budget) {
+    final Scope scope = open();
+    final ValidationContext context = scope.getContext();
+    final Deadline previous = DEADLINE.get();
+    final long candidate = System.nanoTime() + budget.toNanos();
+    if (previous == null || previous.context != context || candidate - previous.nanos < 0) {
+      scope.restoreDeadline(previous);
+      DEADLINE.set(new Deadline(context, candidate));
+    }
+    return scope;
+  }
+
+  /**
+   * Binds a context to the current thread, until the returned scope is closed. Used to continue a
+   * validation pass on another thread. The deadline of the pass is not carried over, use
+   * {@link #wrap(Callable)} for that.
+   *
+   * @param context Context to bind. When null, the current binding is left untouched.
+   *
+   * @return Scope of the binding.
+   */
+  @Nonnull
+  public static Scope enter(@Nullable final ValidationContext context) {
+    final ValidationContext previous = CURRENT.get();
+    if (context != null) {
+      CURRENT.set(context);
+    }
+    return new Scope(context != null ? context : previous, previous);
+  }
+
+  /**
+   * Wraps a task so that it runs within the context and deadline bound to the calling thread.
+   *
+   * @param task Task to wrap.
+   * @param <V> Result type.
+   *
+   * @return Task running within the calling thread's context.
+   */
+  @Nonnull
+  public static <V> Callable<V> wrap(@Nonnull final Callable<V> task) {
+    final ValidationContext context = CURRENT.get();
+    final Ancestor ancestors = ANCESTORS.get();
+    final Deadline deadline = DEADLINE.get();
+    if (context == null && ancestors == null && deadline == null) {
+      return task;
+    }
+    return () -> {
+      final Ancestor previousAncestors = ANCESTORS.get();
+      final Deadline previousDeadline = DEADLINE.get();
+      setAncestors(ancestors);
+      setDeadline(deadline);
+      try (Scope ignored = enter(context)) {
+        return task.call();
+      } finally {
+        setAncestors(previousAncestors);
+        setDeadline(previousDeadline);
+      }
+    };
+  }
+
+  /**
+   * Validates a model once per pass and validation mode. Results are memoized by model path, type
+   * and mode, and a result of a FULL validation is reused for any mode. Validations of a model
+   * that is already being validated further up the current chain of nested validations are not
+   * run, which stops reference cycles from recursing. Models without a path are always
+   * validated. The nested model, and every resource read while validating it, are recorded as
+   * reads of the model being validated further up the chain.
+   *
+   * @param model Model to validate.
+   * @param mode Validation mode.
+   * @param validation Validates the model, when no memoized result exists.
+   * @param <T> Model type.
+   *
+   * @return Validation result, or null when the model is already being validated further up the
+   *     chain. Callers should report null as a failure, as the model closes a reference cycle.
+   */
+  @Nullable
+  public <T extends BaseResource> ModelValidationResult validate(@Nullable final T model,
+          @Nonnull final ModelValidationMode mode,
+          @Nonnull final Function<T, ModelValidationResult> validation) {
+    return validate(model, mode, validation, false);
+  }
+
+  /**
+   * Validates a model once per pass and validation mode, like
+   * {@link #validate(BaseResource, ModelValidationMode, Function)}, for validations that are
+   * delegated to a ModelValidationService. The service may itself memoize the validation through
+   * this context, and that one nested call for the same model is not treated as a cycle.
+   *
+   * @param model Model to validate.
+   * @param mode Validation mode.
+   * @param validation Delegates the validation of the model, when no memoized result exists.
+   * @param <T> Model type.
+   *
+   * @return Validation result, or null when the model is already being validated further up the
+   *     chain. Callers should report null as a failure, as the model closes a reference cycle.
+   */
+  @Nullable
+  public <T extends BaseResource> ModelValidationResult delegate(@Nullable final T model,
+          @Nonnull final ModelValidationMode mode,
+          @Nonnull final Function<T, ModelValidationResult> validation) {
+    return validate(model, mode, validation, true);
+  }
+
+  @Nullable
+  private <T extends BaseResource> ModelValidationResult validate(@Nullable final T model,
+          @Nonnull final ModelValidationMode mode,
+          @Nonnull final Function<T, ModelValidationResult> validation,
+          final boolean delegating) {
+    final String path = model != null ? model.getPath() : null;
+    if (path == null) {
+      return validation.apply(model);
+    }
+    final ResultKey key = new ResultKey(path, model.getClass(), mode);
+    ModelValidationResult result = results.get(key);
+    if (result == null && mode != ModelValidationMode.FULL) {
+      result = results.get(new ResultKey(path, model.getClass(), ModelValidationMode.FULL));
+    }
+    final Ancestor ancestors = ANCESTORS.get();
+    if (result != null) {
+      recordNestedReads(ancestors, key);
+      return result;
+    }
+    final boolean delegated = !delegating && ancestors != null && ancestors.delegating
+                              && ancestors.key.isSameModel(key);
+    if (!delegated) {
+      for (Ancestor ancestor = ancestors; ancestor != null; ancestor = ancestor.parent) {
+        if (ancestor.key.isSameModel(key)) {
+          ancestors.reads.add(path);
+          return null;
+        }
+      }
+    }
+    final Ancestor entry = new Ancestor(key, delegated ? ancestors.parent : ancestors, delegating);
+    setAncestors(entry);
+    try {
+      result = validation.apply(model);
+    } finally {
+      setAncestors(ancestors);
+    }
+    readPaths.putIfAbsent(key, Collections.unmodifiableSet(entry.reads));
+    final ModelValidationResult existing = results.putIfAbsent(key, result);
+    if (existing == null && result instanceof CompactModelValidationResult) {
+      ((CompactModelValidationResult) result).setReadPaths(readPaths.get(key));
+    }
+    recordNestedReads(ancestors, key);
+    return existing != null ? existing : result;
+  }
+
+  /**
+   * Records that a resource was read by the validator that is currently running on this thread.
+   * Child lookups made through this context and nested model validations are recorded
+   * automatically. Validators that resolve other resources, such as referenced resources, should
+   * record them, so that changes to those resources invalidate the cached result of the model.
+   *
+   * @param path Path of the resource that was read.
+   */
+  public void recordRead(@Nonnull final String path) {
+    final Ancestor ancestors = ANCESTORS.get();
+    if (ancestors != null && !path.equals(ancestors.key.path)) {
+      ancestors.reads.add(path);
+    }
+  }
+
+  /**
+   * Paths of the resources read while validating a model during this pass, across every
+   * validation mode it was validated in. Does not include the path of the model itself.
+   *
+   * @param model Validated model.
+   *
+   * @return Paths of the resources read while validating the model.
+   */
+  @Nonnull
+  public Set<String> getReadPaths(@Nonnull final BaseResource model) {
+    final Set<String> modelReadPaths = new LinkedHashSet<>();
+    if (model.getPath() == null) {
+      return modelReadPaths;
+    }
+    for (final ModelValidationMode mode : ModelValidationMode.values()) {
+      final Set<String> modeReadPaths = readPaths.get(
+              new ResultKey(model.getPath(), model.getClass(), mode));
+      if (modeReadPaths != null) {
+        modelReadPaths.addAll(modeReadPaths);
+      }
+    }
+    return modelReadPaths;
+  }
+
+  private void recordNestedReads(@Nullable final Ancestor ancestors,
+          @Nonnull final ResultKey key) {
+    if (ancestors == null) {
+      return;
+    }
+    recordRead(key.path);
+    final Set<String> nestedReadPaths = readPaths.get(key);
+    if (nestedReadPaths != null) {
+      for (final String nestedReadPath : nestedReadPaths) {
+        recordRead(nestedReadPath);
+      }
+    }
+  }
+
+  private static void setAncestors(@Nullable final Ancestor ancestors) {
+    if (ancestors != null) {
+      ANCESTORS.set(ancestors);
+    } else {
+      ANCESTORS.remove();
+    }
+  }
+
+  private static void setDeadline(@Nullable final Deadline deadline) {
+    if (deadline != null) {
+      DEADLINE.set(deadline);
+    } else {
+      DEADLINE.remove();
+    }
+  }
+
+  /**
+   * Whether the time budget of the pass has run out on the current thread. Always false when the
+   * pass has no budget.
+   *
+   * @return Whether the time budget of the pass has run out.
+   */
+  public boolean isDeadlineExceeded() {
+    final Deadline deadline = DEADLINE.get();
+    return deadline != null && deadline.context == this && System.nanoTime() - deadline.nanos >= 0;
+  }
+
+  /**
+   * Stops the calling validator when the time budget of the pass has run out. Validators that
+   * loop over many models should call this between models.
+   *
+   * @throws ValidationDeadlineExceededException Time budget of the pass has run out.
+   */
+  public void checkDeadline() {
+    if (isDeadlineExceeded()) {
+      throw new ValidationDeadlineExceededException();
+    }
+  }
+
+  /**
+   * Retrieves a child resource as a BaseResource. Lookups are cached for the rest of the pass.
+   *
+   * @param childName Name of the child resource.
+   * @param resource Parent resource.
+   *
+   * @return Child resource as a BaseResource.
+   *
+   * @throws ChildResourceNotFoundException Child resource does not exist.
+   */
+  @Nonnull
+  public BaseResource getChildAsBaseResource(@Nonnull final String childName,
+          @Nonnull final Resource resource) throws ChildResourceNotFoundException {
+    try {
+      return getChildAsType(childName, resource, BaseResource.class);
+    } catch (final InvalidResourceTypeException exception) {
+      // BaseResource adapts from any resource.
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * Retrieves a child resource adapted to the specified type. Lookups are cached for the rest of
+   * the pass. The child is resolved once per parent path and child name, and adapted from that
+   * cached child once per type. Once a child is known to be missing, it is not resolved again.
+   *
+   * @param childName Name of the child resource.
+   * @param resource Parent resource.
+   * @param type Model type to adapt the child to.
+   * @param <S> Model type.
+   *
+   * @return Child resource adapted to the specified type.
+   *
+   * @throws InvalidResourceTypeException Child could not be adapted to the type.
+   * @throws ChildResourceNotFoundException Child resource does not exist.
+   */
+  @Nonnull
+  public <S extends BaseResource> S getChildAsType(@Nonnull final String childName,
+          @Nonnull final Resource resource, @Nonnull final Class<S> type)
+          throws InvalidResourceTypeException, ChildResourceNotFoundException {
+    final String parentPath = resource.getPath();
+    if (parentPath == null) {
+      return SlingModelUtils.getChildAsType(childName, resource, type);
+    }
+    recordRead("/".equals(parentPath) ? "/" + childName : parentPath + "/" + childName);
+    final BaseResource child = getChild(parentPath, childName, resource);
+    if (type == BaseResource.class) {
+      return type.cast(child);
+    }
+    final ChildKey key = new ChildKey(parentPath, childName, type);
+    Object lookup = childLookups.get(key);
+    if (lookup == null) {
+      try {
+        lookup = SlingModelUtils.adaptTo(child.getResource(), type);
+      } catch (final InvalidResourceTypeException exception) {
+        lookup = exception;
+      }
+      final Object existing = childLookups.putIfAbsent(key, lookup);
+      if (existing != null) {
+        lookup = existing;
+      }
+    }
+    if (lookup instanceof InvalidResourceTypeException) {
+      throw (InvalidResourceTypeException) lookup;
+    }
+    return type.cast(lookup);
+  }
+
+  /**
+   * Resolves a child resource once per pass, caching either the child or the exception thrown
+   * because it is missing.
+   */
+  @Nonnull
+  private BaseResource getChild(@Nonnull final String parentPath, @Nonnull final String childName,
+          @Nonnull final Resource resource) throws ChildResourceNotFoundException {
+    final ChildKey key = new ChildKey(parentPath, childName, null);
+    Object lookup = childLookups.get(key);
+    if (lookup == null) {
+      try {
+        lookup = SlingModelUtils.getChildAsBaseResource(childName, resource);
+      } catch (final ChildResourceNotFoundException exception) {
+        lookup = exception;
+      }
+      final Object existing = childLookups.putIfAbsent(key, lookup);
+      if (existing != null) {
+        lookup = existing;
+      }
+    }
+    if (lookup instanceof ChildResourceNotFoundException) {
+      throw (ChildResourceNotFoundException) lookup;
+    }
+    return (BaseResource) lookup;
+  }
+
+  /**
+   * Binding of a context to the current thread. Closing the scope restores the previous binding.
+   */
+  public static final class Scope implements AutoCloseable {
+
+    private final ValidationContext context;
+    private final ValidationContext previous;
+    private boolean restoreDeadline;
+    private Deadline previousDeadline;
+
+    private Scope(@Nullable final ValidationContext context,
+            @Nullable final ValidationContext previous) {
+      this.context = context;
+      this.previous = previous;
+    }
+
+    /**
+     * Context of the scope.
+     *
+     * @return Context of the scope, or null when nothing was bound.
+     */
+    @Nullable
+    public ValidationContext getContext() {
+      return context;
+    }
+
+    private void restoreDeadline(@Nullable final Deadline deadline) {
+      restoreDeadline = true;
+      previousDeadline = deadline;
+    }
+
+    @Override
+    public void close() {
+      if (restoreDeadline) {
+        setDeadline(previousDeadline);
+      }
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  /**
+   * Deadline of a pass, as seen by the threads of one scope. Scopes that bring the deadline
+   * forward bind a new instance rather than changing a shared one.
+   */
+  private static final class Deadline {
+
+    private final ValidationContext context;
+    private final long nanos;
+
+    private Deadline(@Nullable final ValidationContext context, final long nanos) {
+      this.context = context;
+      this.nanos = nanos;
+    }
+  }
+
+  /**
+   * Key of a memoized validation result.
+   */
+  private static final class ResultKey {
+
+    private final String path;
+    private final Class<?> type;
+    private final ModelValidationMode mode;
+
+    private ResultKey(@Nonnull final String path, @Nonnull final Class<?> type,
+            @Nonnull final ModelValidationMode mode) {
+      this.path = path;
+      this.type = type;
+      this.mode = mode;
+    }
+
+    private boolean isSameModel(@Nonnull final ResultKey other) {
+      return path.equals(other.path) && type == other.type;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ResultKey)) {
+        return false;
+      }
+      final ResultKey other = (ResultKey) object;
+      return isSameModel(other) && mode == other.mode;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, type, mode);
+    }
+  }
+
+  /**
+   * Model being validated, linked to the models whose validation led to it. A delegating entry
+   * allows one nested validation of the same model, by the service it was delegated to. Reads
+   * are collected concurrently when the validation fans out across threads.
+   */
+  private static final class Ancestor {
+
+    private final ResultKey key;
+    private final Ancestor parent;
+    private final boolean delegating;
+    private final Set<String> reads = ConcurrentHashMap.newKeySet();
+
+    private Ancestor(@Nonnull final ResultKey key, @Nullable final Ancestor parent,
+            final boolean delegating) {
+      this.key = key;
+      this.parent = parent;
+      this.delegating = delegating;
+    }
+  }
+
+  /**
+   * Key of a cached child lookup. A null type marks the resolved child itself, or the exception
+   * thrown because it does not exist.
+   */
+  private static final class ChildKey {
+
+    private final String parentPath;
+    private final String childName;
+    private final Class<?> type;
+
+    private ChildKey(@Nonnull final String parentPath, @Nonnull final String childName,
+            @Nullable final Class<?> type) {
+      this.parentPath = parentPath;
+      this.childName = childName;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ChildKey)) {
+        return false;
+      }
+      final ChildKey other = (ChildKey) object;
+      return parentPath.equals(other.parentPath) && childName.equals(other.childName)
+             && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(parentPath, childName, type);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Validation message held as a constant template and its arguments. The message is only
+ * formatted when it is rendered, through {@link #toString()} or serialization.
+ */
+public final class ValidationMessage {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final String template;
+  private final Object[] arguments;
+  private String rendered;
+
+  private ValidationMessage(@Nonnull final String template, @Nonnull final Object[] arguments) {
+    this.template = template;
+    this.arguments = arguments;
+  }
+
+  /**
+   * Creates a validation message. Templates use {@link String#format(String, Object...)} syntax,
+   * and are returned as is when there are no arguments.
+   *
+   * @param template Message template.
+   * @param arguments Arguments of the template.
+   *
+   * @return Validation message.
+   */
+  @Nonnull
+  public static ValidationMessage of(@Nonnull final String template,
+          @Nonnull final Object... arguments) {
+    return new ValidationMessage(template, arguments.length == 0 ? NO_ARGUMENTS : arguments);
+  }
+
+  /**
+   * Template of the message.
+   *
+   * @return Template of the message.
+   */
+  @Nonnull
+  public String getTemplate() {
+    return template;
+  }
+
+  /**
+   * Arguments of the message template.
+   *
+   * @return Arguments of the message template.
+   */
+  @Nonnull
+  public Object[] getArguments() {
+    return arguments.clone();
+  }
+
+  /**
+   * The formatted message. Formatted on first call.
+   *
+   * @return The formatted message.
+   */
+  @Nonnull
+  @JsonValue
+  @Override
+  public String toString() {
+    String message = rendered;
+    if (message == null) {
+      message = arguments.length == 0 ? template : String.format(template, arguments);
+      rendered = message;
+    }
+    return message;
+  }
+
+  @Override
+  public boolean equals(final Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof ValidationMessage)) {
+      return false;
+    }
+    final ValidationMessage other = (ValidationMessage) object;
+    return template.equals(other.template) && Arrays.equals(arguments, other.arguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * template.hashCode() + Arrays.hashCode(arguments);
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * Properties and child resources of a model that a validator reads. Used to decide which
+ * validators have to run again after a model changes.
+ */
+public final class ValidatorDependencies {
+
+  /**
+   * Dependencies of a validator that does not declare them. Affected by every change.
+   */
+  public static final ValidatorDependencies UNKNOWN = new ValidatorDependencies(
+          Collections.emptySet(), Collections.emptySet(), true);
+
+  /**
+   * Dependencies of a validator that reads nothing from the model.
+   */
+  public static final ValidatorDependencies NONE = new ValidatorDependencies(
+          Collections.emptySet(), Collections.emptySet(), false);
+
+  private final Set<String> properties;
+  private final Set<String> children;
+  private final boolean unknown;
+
+  private ValidatorDependencies(@Nonnull final Set<String> properties,
+          @Nonnull final Set<String> children, final boolean unknown) {
+    this.properties = properties;
+    this.children = children;
+    this.unknown = unknown;
+  }
+
+  /**
+   * Dependencies on properties of the model.
+   *
+   * @param properties Names of the properties read.
+   *
+   * @return Dependencies on properties of the model.
+   */
+  @Nonnull
+  public static ValidatorDependencies properties(@Nonnull final String... properties) {
+    return of(Arrays.asList(properties), Collections.emptyList());
+  }
+
+  /**
+   * Dependencies on child resources of the model, including anything beneath them.
+   *
+   * @param children Names of the child resources read.
+   *
+   * @return Dependencies on child resources of the model.
+   */
+  @Nonnull
+  public static ValidatorDependencies children(@Nonnull final String... children) {
+    return of(Collections.emptyList(), Arrays.asList(children));
+  }
+
+  /**
+   * Dependencies on properties and child resources of the model.
+   *
+   * @param properties Names of the properties read.
+   * @param children Names of the child resources read.
+   *
+   * @return Dependencies on properties and child resources of the model.
+   */
+  @Nonnull
+  public static ValidatorDependencies of(@Nonnull final Collection<String> properties,
+          @Nonnull final Collection<String> children) {
+    return new ValidatorDependencies(
+            Collections.unmodifiableSet(new LinkedHashSet<>(properties)),
+            Collections.unmodifiableSet(new LinkedHashSet<>(children)), false);
+  }
+
+  /**
+   * Whether the validator did not declare what it reads.
+   *
+   * @return Whether the validator did not declare what it reads.
+   */
+  public boolean isUnknown() {
+    return unknown;
+  }
+
+  /**
+   * Names of the properties read.
+   *
+   * @return Names of the properties read.
+   */
+  @Nonnull
+  public Set<String> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Names of the child resources read.
+   *
+   * @return Names of the child resources read.
+   */
+  @Nonnull
+  public Set<String> getChildren() {
+    return children;
+  }
+
+  /**
+   * Combines these dependencies with another validator's.
+   *
+   * @param other Dependencies of the other validator.
+   *
+   * @return Dependencies of both validators.
+   */
+  @Nonnull
+  public ValidatorDependencies and(@Nonnull final ValidatorDependencies other) {
+    if (unknown || other.unknown) {
+      return UNKNOWN;
+    }
+    final Set<String> combinedProperties = new LinkedHashSet<>(properties);
+    combinedProperties.addAll(other.properties);
+    final Set<String> combinedChildren = new LinkedHashSet<>(children);
+    combinedChildren.addAll(other.children);
+    return of(combinedProperties, combinedChildren);
+  }
+
+  /**
+   * Whether a change to the model could change the outcome of the validator.
+   *
+   * @param changes Changes to the model.
+   *
+   * @return Whether a change to the model could change the outcome of the validator.
+   */
+  public boolean isAffectedBy(@Nonnull final ModelChangeSet changes) {
+    if (unknown || changes.isUnknown()) {
+      return true;
+    }
+    return !Collections.disjoint(properties, changes.getProperties())
+           || !Collections.disjoint(children, changes.getChildren());
+  }
+}
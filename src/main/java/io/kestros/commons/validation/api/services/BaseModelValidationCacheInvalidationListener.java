@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.cache.ValidationResultStore;
+import io.kestros.commons.validation.api.models.ModelChangeSet;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import io.kestros.commons.validation.api.models.ValidatorDependencies;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+
+/**
+ * Baseline listener that evicts cached validation results when resources change. The changed
+ * resource's results are evicted, along with the results of ancestors whose validators depend on
+ * the child resource the change happened beneath. Validators that do not declare their
+ * dependencies are assumed to depend on every child resource. Results that read the changed
+ * resource while being validated, such as results of resources referencing it, are evicted as
+ * well. Removed resources also have the results of their descendants, and of their descendants'
+ * readers, evicted. Implementations register the listener for the paths
+ * (resource.paths) whose changes should invalidate the cache.
+ */
+public abstract class BaseModelValidationCacheInvalidationListener
+        implements ResourceChangeListener {
+
+  /**
+   * Cache Service whose results are invalidated.
+   *
+   * @return Cache Service whose results are invalidated.
+   */
+  @Nullable
+  protected abstract BaseModelValidationCacheService getModelValidationCacheService();
+
+  /**
+   * Returns the ModelValidatorRegistrationHandlerService.
+   *
+   * @return the ModelValidatorRegistrationHandlerService.
+   */
+  @Nullable
+  protected abstract ModelValidatorRegistrationHandlerService
+      getModelValidatorRegistrationHandlerService();
+
+  @Override
+  public void onChange(@Nonnull final List<ResourceChange> changes) {
+    final BaseModelValidationCacheService cacheService = getModelValidationCacheService();
+    if (cacheService == null) {
+      return;
+    }
+    final ValidationResultStore store = cacheService.getValidationResultStore();
+    final Map<Class<?>, ValidatorDependencies> dependencies = new HashMap<>();
+    for (final ResourceChange change : changes) {
+      final String path = change.getPath();
+      if (path == null) {
+        continue;
+      }
+      final boolean structural = change.getType() != ResourceChange.ChangeType.CHANGED;
+      store.invalidate(path);
+      if (structural) {
+        store.invalidateDescendants(path);
+      }
+      store.invalidateDependents(path, structural);
+      invalidateAncestors(store, path, dependencies);
+    }
+  }
+
+  /**
+   * Union of the dependencies of the validators registered to a Model type.
+   *
+   * @param modelType Model type.
+   *
+   * @return Union of the dependencies of the validators registered to the Model type.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  protected ValidatorDependencies getDependencies(@Nonnull final Class<?> modelType) {
+    final ModelValidatorRegistrationHandlerService handlerService
+            = getModelValidatorRegistrationHandlerService();
+    if (handlerService == null) {
+      return ValidatorDependencies.UNKNOWN;
+    }
+    ValidatorDependencies dependencies = ValidatorDependencies.NONE;
+    for (final ModelValidator validator : (List<ModelValidator>) handlerService
+            .getCompiledValidatorPlan(modelType).getValidators()) {
+      dependencies = dependencies.and(validator.getDependencies());
+    }
+    return dependencies;
+  }
+
+  private void invalidateAncestors(@Nonnull final ValidationResultStore store,
+          @Nonnull final String path,
+          @Nonnull final Map<Class<?>, ValidatorDependencies> dependencies) {
+    int end = path.lastIndexOf('/');
+    String child = path.substring(end + 1);
+    while (end >= 0 && !child.isEmpty()) {
+      final String ancestor = end == 0 ? "/" : path.substring(0, end);
+      final ModelChangeSet changes = ModelChangeSet.of(Collections.emptyList(),
+              Collections.singletonList(child));
+      for (final CachedValidationResult result : store.get(ancestor)) {
+        if (dependencies.computeIfAbsent(result.getModelType(), this::getDependencies).isAffectedBy(
+                changes)) {
+          store.invalidate(ancestor, result.getModelType());
+        }
+      }
+      if (end == 0) {
+        break;
+      }
+      final int parentEnd = path.lastIndexOf('/', end - 1);
+      child = path.substring(parentEnd + 1, end);
+      end = parentEnd;
+    }
+  }
+}
@@ -0,0 +1,545 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.osgiserviceutils.exceptions.CacheRetrievalException;
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.cache.BoundedValidationResultStore;
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.cache.ConcurrentValidationResultStore;
+import io.kestros.commons.validation.api.cache.PersistentValidationResultStore;
+import io.kestros.commons.validation.api.cache.StaleValidationResultStore;
+import io.kestros.commons.validation.api.cache.SummarizedValidationResultStore;
+import io.kestros.commons.validation.api.cache.ValidationResultStore;
+import io.kestros.commons.validation.api.cache.ValidationSummaryIndex;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+/**
+ * Baseline Model Validation Cache Service, which stores typed results stamped with the revision
+ * of the validated resource. Results cached at an older revision are treated as missing. Results
+ * of resources that do not report a revision are, by default, served until a resource change
+ * event invalidates them (see {@link #isEventOnlyInvalidationOfUnknownRevisions()}). Results
+ * cached from a ModelValidationResult also record the resources read during validation. Bounded
+ * caches also keep a bounded summary of whether results that read no other resources had errors
+ * or warnings, which can outlive the eviction of their messages.
+ *
+ * <p>
+ * In stale-while-revalidate mode, invalidated and outdated results are still returned, flagged
+ * as stale, while a single background task per result validates the resource again.
+ * </p>
+ *
+ * <p>
+ * Results are written to the persistent cache file periodically, and only written on shutdown
+ * when concrete components call {@link #deactivate()} from their own {@code @Deactivate} method.
+ * </p>
+ */
+public abstract class BaseModelValidationCacheService implements ModelValidationCacheService {
+
+  private volatile ValidationResultStore validationResultStore;
+  private volatile ScheduledExecutorService persistenceExecutorService;
+
+  /**
+   * Maximum estimated heap size of the cached results, in bytes. When zero or less, the cache is
+   * unbounded. Read once, when the store is created.
+   *
+   * @return Maximum estimated heap size of the cached results, in bytes.
+   */
+  protected long getMaximumCacheWeight() {
+    return 0L;
+  }
+
+  /**
+   * Share of {@link #getMaximumCacheWeight()} set aside for summaries of whether results had
+   * errors or warnings, in percent. Messages are bounded by the rest of the weight. When zero or
+   * less, results are not summarized. Read once, when the store is created.
+   *
+   * @return Share of the maximum cache weight set aside for summaries, in percent.
+   */
+  protected int getSummaryWeightPercent() {
+    return 10;
+  }
+
+  /**
+   * Local file cached results are persisted to, periodically and when the service is
+   * deactivated, and restored from after it is activated again. When null, cached results are
+   * not persisted. Read once, when the store is created.
+   *
+   * @return Local file cached results are persisted to.
+   */
+  @Nullable
+  protected Path getPersistentCacheFile() {
+    return null;
+  }
+
+  /**
+   * Interval, in seconds, at which cached results are persisted while the service runs, so that
+   * a crash only loses the results cached since the last write. When zero or less, results are
+   * only persisted when the service is deactivated. Read once, when the store is created.
+   *
+   * @return Interval, in seconds, at which cached results are persisted.
+   */
+  protected long getPersistenceIntervalSeconds() {
+    return 300L;
+  }
+
+  /**
+   * Whether invalidated and outdated results are returned as stale, while they are validated
+   * again in the background. Requires {@link #getModelValidationService()} and
+   * {@link #openRevalidationResourceResolver()}. Read once, when the store is created.
+   *
+   * @return Whether invalidated and outdated results are returned as stale.
+   */
+  protected boolean isStaleWhileRevalidate() {
+    return false;
+  }
+
+  /**
+   * Whether results of resources that do not report a revision are served until a resource
+   * change event invalidates them. Many JCR nodes, such as nt:unstructured nodes without
+   * jcr:lastModified, report a modification time of -1, so this defaults to true to keep caching
+   * them.
+   *
+   * <p>
+   * The trade-off is that such results are only as fresh as the invalidation events. Changes to
+   * paths no BaseModelValidationCacheInvalidationListener observes go unnoticed until the result
+   * is evicted, and their results are never restored from the persistent cache file, since
+   * changes made while the instance was down cannot be detected. Return false to treat them as
+   * outdated, so such resources are validated again on every lookup.
+   * </p>
+   *
+   * @return Whether results of resources without a revision are only invalidated by events.
+   */
+  protected boolean isEventOnlyInvalidationOfUnknownRevisions() {
+    return true;
+  }
+
+  /**
+   * Validation Service that stale results are validated again with. When null, stale results
+   * are treated as missing.
+   *
+   * @return Validation Service that stale results are validated again with.
+   */
+  @Nullable
+  protected ModelValidationService getModelValidationService() {
+    return null;
+  }
+
+  /**
+   * Opens a ResourceResolver for a background revalidation, which is closed once the resource
+   * has been validated. When null, the stale result is treated as missing.
+   *
+   * @return ResourceResolver for a background revalidation.
+   */
+  @Nullable
+  protected ResourceResolver openRevalidationResourceResolver() {
+    return null;
+  }
+
+  /**
+   * Executor that stale results are validated again on. Defaults to the common ForkJoinPool.
+   *
+   * @return Executor that stale results are validated again on.
+   */
+  @Nonnull
+  protected ExecutorService getRevalidationExecutorService() {
+    return ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Creates the store cached results are held in. Called once, on first use. The store is bounded
+   * by {@link #getMaximumCacheWeight()}, persisted to {@link #getPersistentCacheFile()}, when
+   * set, and keeps invalidated results as stale in stale-while-revalidate mode. Bounded stores are
+   * summarized within {@link #getSummaryWeightPercent()} of the maximum weight, so errors and
+   * warnings can be checked after messages are evicted.
+   *
+   * @return Store cached results are held in.
+   */
+  @Nonnull
+  protected ValidationResultStore createValidationResultStore() {
+    final long maximumCacheWeight = getMaximumCacheWeight();
+    final int summaryWeightPercent = Math.max(0, Math.min(getSummaryWeightPercent(), 99));
+    final long maximumSummaryWeight = Math.max(0L, maximumCacheWeight) * summaryWeightPercent
+                                      / 100;
+    final ValidationResultStore memoryStore;
+    if (maximumCacheWeight > 0) {
+      memoryStore = new BoundedValidationResultStore(maximumCacheWeight - maximumSummaryWeight);
+    } else {
+      memoryStore = new ConcurrentValidationResultStore();
+    }
+    ValidationResultStore store = memoryStore;
+    final Path persistentCacheFile = getPersistentCacheFile();
+    if (persistentCacheFile != null) {
+      store = new PersistentValidationResultStore(persistentCacheFile, store);
+    }
+    if (maximumSummaryWeight > 0) {
+      store = new SummarizedValidationResultStore(store, maximumSummaryWeight);
+    }
+    if (isStaleWhileRevalidate()) {
+      store = new StaleValidationResultStore(store);
+    }
+    return store;
+  }
+
+  /**
+   * Stops persisting cached results periodically, and persists them one last time, when the
+   * store is persistent. A failure to persist leaves the next activation with the results of the
+   * last periodic write. Concrete components must call this from their own {@code @Deactivate}
+   * method, as DS annotations of an abstract superclass are only processed when bnd runs with
+   * {@code -dsannotations-options: inherit}.
+   */
+  protected void deactivate() {
+    final ScheduledExecutorService executorService = persistenceExecutorService;
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+    final PersistentValidationResultStore store = getPersistentStore(validationResultStore);
+    if (store != null) {
+      persist(store);
+    }
+  }
+
+  /**
+   * Store cached results are held in.
+   *
+   * @return Store cached results are held in.
+   */
+  @Nonnull
+  protected ValidationResultStore getValidationResultStore() {
+    ValidationResultStore store = validationResultStore;
+    if (store == null) {
+      synchronized (this) {
+        store = validationResultStore;
+        if (store == null) {
+          store = createValidationResultStore();
+          validationResultStore = store;
+          schedulePersistence(store);
+        }
+      }
+    }
+    return store;
+  }
+
+  /**
+   * Retrieves the cached result of a resource, when adapted to a model type. In
+   * stale-while-revalidate mode, a stale or outdated result is returned flagged as stale, and the
+   * resource is validated again in the background.
+   *
+   * @param resource Resource to retrieve the cached result of.
+   * @param clazz Model class that the resource was validated against.
+   * @param <T> extends BaseResource
+   *
+   * @return Cached validation result, or null when none is cached.
+   */
+  @Nullable
+  @Override
+  public <T extends BaseResource> CachedValidationResult getCachedValidationResult(
+          @Nonnull final Resource resource, @Nonnull final Class<T> clazz) {
+    final ValidationResultStore store = getValidationResultStore();
+    final ResourceResolver resourceResolver = resource.getResourceResolver();
+    final CachedValidationResult result = store.get(resource.getPath(), clazz,
+            path -> CachedValidationResult.getRevision(
+                    resourceResolver != null ? resourceResolver.getResource(path) : null));
+    if (result == null) {
+      return null;
+    }
+    final boolean current = isCurrent(result, CachedValidationResult.getRevision(resource));
+    if (store instanceof StaleValidationResultStore) {
+      if (current && !result.isStale()) {
+        return result;
+      }
+      if (revalidate((StaleValidationResultStore) store, resource.getPath(), clazz)) {
+        return result.asStale();
+      }
+      return null;
+    }
+    if (!current) {
+      store.invalidate(resource.getPath(), clazz);
+      return null;
+    }
+    return result;
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> List<String> getCachedErrorMessages(
+          @Nonnull final Resource resource, @Nonnull final Class<T> clazz)
+          throws CacheRetrievalException {
+    return getCurrentResult(resource, clazz).getErrorMessages();
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> List<String> getCachedWarningMessages(
+          @Nonnull final Resource resource, @Nonnull final Class<T> clazz)
+          throws CacheRetrievalException {
+    return getCurrentResult(resource, clazz).getWarningMessages();
+  }
+
+  @Override
+  public <T extends BaseResource> boolean hasCachedErrors(@Nonnull final Resource resource,
+          @Nonnull final Class<T> clazz) throws CacheRetrievalException {
+    return (getSummaryFlags(resource, clazz) & ValidationSummaryIndex.ERRORS) != 0;
+  }
+
+  @Override
+  public <T extends BaseResource> boolean hasCachedWarnings(@Nonnull final Resource resource,
+          @Nonnull final Class<T> clazz) throws CacheRetrievalException {
+    return (getSummaryFlags(resource, clazz) & ValidationSummaryIndex.WARNINGS) != 0;
+  }
+
+  @Override
+  public <T extends BaseResource> void cacheValidationResults(@Nonnull final T model,
+          @Nonnull final List<String> errorMessages, @Nonnull final List<String> warningMessages) {
+    getValidationResultStore().put(
+            CachedValidationResult.of(model, errorMessages, warningMessages));
+  }
+
+  @Override
+  public void cacheValidationResult(@Nonnull final ModelValidationResult result) {
+    if (result.isPartial() || !(result.getModel() instanceof BaseResource)) {
+      return;
+    }
+    getValidationResultStore().put(
+            CachedValidationResult.of((BaseResource) result.getModel(), result));
+  }
+
+  /**
+   * Estimated number of recent lookups of a resource's cached result, when adapted to a model
+   * type. Always 0 unless the store tracks access frequency, as bounded stores do.
+   *
+   * @param path Resource path.
+   * @param modelType Model type.
+   *
+   * @return Estimated number of recent lookups of the cached result.
+   */
+  public int getAccessFrequency(@Nonnull final String path, @Nonnull final Class<?> modelType) {
+    return getValidationResultStore().getAccessFrequency(path, modelType);
+  }
+
+  /**
+   * Cached results, grouped by resource path.
+   *
+   * @return Cached results, grouped by resource path.
+   */
+  @Nonnull
+  @Override
+  public Map<String, Object> getCachedValidationMap() {
+    final Map<String, Object> cachedValidationMap = new HashMap<>();
+    getValidationResultStore().forEach(result -> addTo(cachedValidationMap, result));
+    return cachedValidationMap;
+  }
+
+  /**
+   * Cached results of a resource and of every resource beneath it, grouped by resource path.
+   *
+   * @param path Path of the subtree root.
+   *
+   * @return Cached results of the subtree, grouped by resource path.
+   */
+  @Nonnull
+  public Map<String, Object> getCachedValidationMap(@Nonnull final String path) {
+    final Map<String, Object> cachedValidationMap = new HashMap<>();
+    getValidationResultStore().forEach(path, result -> addTo(cachedValidationMap, result));
+    return cachedValidationMap;
+  }
+
+  /**
+   * Validates a resource again in the background, unless it is already being validated. Once
+   * validated, the fresh result replaces the stale one. When the resource no longer exists, or
+   * cannot be fully validated, the stale result is removed.
+   *
+   * @return Whether the resource is being validated again.
+   */
+  private <T extends BaseResource> boolean revalidate(
+          @Nonnull final StaleValidationResultStore store, @Nonnull final String path,
+          @Nonnull final Class<T> clazz) {
+    final ModelValidationService validationService = getModelValidationService();
+    if (validationService == null) {
+      return false;
+    }
+    if (!store.startRevalidation(path, clazz)) {
+      return true;
+    }
+    try {
+      getRevalidationExecutorService().execute(() -> {
+        try {
+          if (!revalidate(path, clazz, validationService)) {
+            store.remove(path, clazz);
+          }
+        } finally {
+          store.finishRevalidation(path, clazz);
+        }
+      });
+    } catch (final RejectedExecutionException exception) {
+      store.finishRevalidation(path, clazz);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Validates and caches a resource with a ResourceResolver of its own.
+   *
+   * @return Whether a fresh result was cached.
+   */
+  private <T extends BaseResource> boolean revalidate(@Nonnull final String path,
+          @Nonnull final Class<T> clazz, @Nonnull final ModelValidationService validationService) {
+    try (ResourceResolver resourceResolver = openRevalidationResourceResolver()) {
+      if (resourceResolver == null) {
+        return false;
+      }
+      final Resource resource = resourceResolver.getResource(path);
+      final T model = resource != null ? resource.adaptTo(clazz) : null;
+      if (model == null) {
+        return false;
+      }
+      final ModelValidationResult result = validationService.validate(model);
+      if (result.isPartial()) {
+        return false;
+      }
+      cacheValidationResult(result);
+      return true;
+    } catch (final RuntimeException exception) {
+      // The stale result is dropped, so the next lookup validates the resource synchronously.
+      return false;
+    }
+  }
+
+  /**
+   * Summary flags of a resource's current result. Read from the summary index when the store is
+   * summarized and the summary is current, and otherwise from the cached result, unless it is
+   * stale.
+   */
+  private <T extends BaseResource> int getSummaryFlags(@Nonnull final Resource resource,
+          @Nonnull final Class<T> clazz) throws CacheRetrievalException {
+    ValidationResultStore store = getValidationResultStore();
+    if (store instanceof StaleValidationResultStore) {
+      store = ((StaleValidationResultStore) store).getStore();
+    }
+    final long revision = CachedValidationResult.getRevision(resource);
+    if (store instanceof SummarizedValidationResultStore
+        && (revision != CachedValidationResult.UNKNOWN_REVISION
+            || isEventOnlyInvalidationOfUnknownRevisions())) {
+      final int flags = ((SummarizedValidationResultStore) store).getSummaryIndex().getFlags(
+              resource.getPath(), clazz, revision);
+      if ((flags & ValidationSummaryIndex.CACHED) != 0
+          && (flags & ValidationSummaryIndex.STALE) == 0) {
+        return flags;
+      }
+    }
+    final CachedValidationResult result = getCurrentResult(resource, clazz);
+    if (result.isStale()) {
+      throw new CacheRetrievalException(
+              "Cached validation result of " + resource.getPath() + " is stale.");
+    }
+    return ValidationSummaryIndex.getFlags(result);
+  }
+
+  /**
+   * Persists the store's results on a daemon thread, every
+   * {@link #getPersistenceIntervalSeconds()}, when the store is persistent.
+   */
+  private void schedulePersistence(@Nonnull final ValidationResultStore store) {
+    final PersistentValidationResultStore persistentStore = getPersistentStore(store);
+    final long interval = getPersistenceIntervalSeconds();
+    if (persistentStore == null || interval <= 0) {
+      return;
+    }
+    final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              final Thread thread = new Thread(task, "validation-cache-persistence");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executorService.scheduleWithFixedDelay(() -> persist(persistentStore), interval, interval,
+            TimeUnit.SECONDS);
+    persistenceExecutorService = executorService;
+  }
+
+  private static void persist(@Nonnull final PersistentValidationResultStore store) {
+    try {
+      store.persist();
+    } catch (final IOException exception) {
+      // The previous file is kept, and the cache is rebuilt on demand after a restart.
+    }
+  }
+
+  @Nullable
+  private static PersistentValidationResultStore getPersistentStore(
+          @Nullable ValidationResultStore store) {
+    if (store instanceof StaleValidationResultStore) {
+      store = ((StaleValidationResultStore) store).getStore();
+    }
+    if (store instanceof SummarizedValidationResultStore) {
+      store = ((SummarizedValidationResultStore) store).getStore();
+    }
+    return store instanceof PersistentValidationResultStore
+           ? (PersistentValidationResultStore) store : null;
+  }
+
+  /**
+   * Whether a cached result is current. Results whose revision and resource revision are both
+   * unknown fall back to event-only invalidation, when enabled.
+   */
+  private boolean isCurrent(@Nonnull final CachedValidationResult result,
+          final long currentRevision) {
+    if (result.isCurrent(currentRevision)) {
+      return true;
+    }
+    return currentRevision == CachedValidationResult.UNKNOWN_REVISION
+           && result.getRevision() == CachedValidationResult.UNKNOWN_REVISION
+           && isEventOnlyInvalidationOfUnknownRevisions();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void addTo(@Nonnull final Map<String, Object> cachedValidationMap,
+          @Nonnull final CachedValidationResult result) {
+    ((List<CachedValidationResult>) cachedValidationMap.computeIfAbsent(result.getPath(),
+            path -> new ArrayList<>())).add(result);
+  }
+
+  @Nonnull
+  private <T extends BaseResource> CachedValidationResult getCurrentResult(
+          @Nonnull final Resource resource, @Nonnull final Class<T> clazz)
+          throws CacheRetrievalException {
+    final CachedValidationResult result = getCachedValidationResult(resource, clazz);
+    if (result == null) {
+      throw new CacheRetrievalException(
+              "No current validation result cached for " + resource.getPath() + ".");
+    }
+    return result;
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.models.CompactModelValidationResult;
+import io.kestros.commons.validation.api.models.CompiledValidatorPlan;
+import io.kestros.commons.validation.api.models.ModelChangeSet;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Baseline Model Validation Service, which validates models against the compiled plans of their
+ * registered ModelValidators.
+ */
+public abstract class BaseModelValidationService implements ModelValidationService {
+
+  /**
+   * Minimum number of models of one type before a batch is split across threads.
+   */
+  protected static final int PARALLEL_BATCH_THRESHOLD = 64;
+
+  private volatile CompiledValidatorPlans validatorPlans;
+
+  /**
+   * Returns the ModelValidatorRegistrationHandlerService.
+   *
+   * @return the ModelValidatorRegistrationHandlerService.
+   */
+  @Nullable
+  protected abstract ModelValidatorRegistrationHandlerService
+      getModelValidatorRegistrationHandlerService();
+
+  /**
+   * Executor that large batches are split across, when {@link #getBatchParallelism()} is above 1.
+   * Defaults to the common ForkJoinPool.
+   *
+   * @return Executor that large batches are split across.
+   */
+  @Nonnull
+  protected ExecutorService getBatchExecutorService() {
+    return ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Maximum number of tasks a large batch is split across on {@link #getBatchExecutorService()}.
+   * Defaults to {@link #getValidationParallelism()}, which keeps batches on the calling thread.
+   * Batch tasks share the models' ResourceResolver, which is not thread safe, so larger values
+   * should only be returned when models come from thread-safe resource resolvers.
+   *
+   * @return Maximum number of tasks a large batch is split across.
+   */
+  protected int getBatchParallelism() {
+    return getValidationParallelism();
+  }
+
+  /**
+   * Compiled plan of the validators registered to a Model type. Plans are cached per type, and
+   * compiled again once the validators registered to the type change.
+   *
+   * @param type Model type.
+   *
+   * @return Compiled plan of the validators registered to the Model type.
+   */
+  @Nonnull
+  protected CompiledValidatorPlan getValidatorPlan(@Nonnull final Class type) {
+    final ModelValidatorRegistrationHandlerService handlerService
+            = getModelValidatorRegistrationHandlerService();
+    if (handlerService == null) {
+      return CompiledValidatorPlan.compile(Collections.emptyList());
+    }
+    CompiledValidatorPlans plans = validatorPlans;
+    if (plans == null) {
+      synchronized (this) {
+        plans = validatorPlans;
+        if (plans == null) {
+          plans = new CompiledValidatorPlans();
+          validatorPlans = plans;
+        }
+      }
+    }
+    return plans.get(handlerService, type);
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> ModelValidationResult validate(@Nonnull final T model) {
+    return validate(model, ModelValidationMode.FULL);
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> ModelValidationResult validate(@Nonnull final T model,
+          @Nonnull final ModelValidationMode mode) {
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      return validate(model, getValidatorPlan(model.getClass()), mode);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> ModelValidationResult revalidate(@Nonnull final T model,
+          @Nonnull final ModelValidationResult previous, @Nonnull final ModelChangeSet changes) {
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      final CompiledValidatorPlan plan = getValidatorPlan(model.getClass());
+      if (previous instanceof CompactModelValidationResult
+          && ((CompactModelValidationResult) previous).getPlan().getValidators().equals(
+              plan.getValidators())) {
+        return CompactModelValidationResult.revalidate(model,
+                (CompactModelValidationResult) previous, changes);
+      }
+      return validate(model, plan, ModelValidationMode.FULL);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> Map<String, ModelValidationResult> validateAll(
+          @Nonnull final Collection<T> models) {
+    final Map<String, Class> types = new HashMap<>();
+    for (final T model : models) {
+      final Class type = types.putIfAbsent(model.getPath(), model.getClass());
+      if (type != null && type != model.getClass()) {
+        throw new IllegalArgumentException(String.format(
+                "Model path %s is included as both %s and %s. Use validateAllByType.",
+                model.getPath(), type.getName(), model.getClass().getName()));
+      }
+    }
+    final Map<Class, Map<String, ModelValidationResult>> resultsByType = validateAllByType(
+            models);
+    final Map<String, ModelValidationResult> results = new LinkedHashMap<>();
+    for (final T model : models) {
+      results.put(model.getPath(), resultsByType.get(model.getClass()).get(model.getPath()));
+    }
+    return results;
+  }
+
+  @Nonnull
+  @Override
+  public <T extends BaseResource> Map<Class, Map<String, ModelValidationResult>>
+      validateAllByType(@Nonnull final Collection<T> models) {
+    final Map<Class, List<T>> modelsByType = new LinkedHashMap<>();
+    for (final T model : models) {
+      modelsByType.computeIfAbsent(model.getClass(), type -> new ArrayList<>()).add(model);
+    }
+    final Map<Class, Map<String, ModelValidationResult>> results = new LinkedHashMap<>();
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      for (final Map.Entry<Class, List<T>> entry : modelsByType.entrySet()) {
+        results.put(entry.getKey(),
+                validateBatch(entry.getValue(), getValidatorPlan(entry.getKey())));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Lazily validates a resource subtree against every Model type with registered validators.
+   *
+   * @param root Root of the subtree to validate.
+   *
+   * @return ModelValidationResults, in traversal order.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public Stream<ModelValidationResult> validateSubtree(@Nonnull final Resource root) {
+    final List<Class<? extends BaseResource>> types = new ArrayList<>();
+    final ModelValidatorRegistrationHandlerService handlerService
+            = getModelValidatorRegistrationHandlerService();
+    if (handlerService != null) {
+      for (final Class type : handlerService.getRegisteredModelValidatorMap().keySet()) {
+        if (BaseResource.class.isAssignableFrom(type)) {
+          types.add(type);
+        }
+      }
+    }
+    return validateSubtree(root, types);
+  }
+
+  /**
+   * Validates models of a single type against a plan, splitting large batches across the batch
+   * executor when batch parallelism allows.
+   *
+   * @param models Models to validate.
+   * @param plan Plan of the validators registered to the models' type.
+   * @param <T> Model type.
+   *
+   * @return Validation results, keyed by model path.
+   */
+  @Nonnull
+  private <T extends BaseResource> Map<String, ModelValidationResult> validateBatch(
+          @Nonnull final List<T> models, @Nonnull final CompiledValidatorPlan plan) {
+    final ModelValidationResult[] results = new ModelValidationResult[models.size()];
+    final int parallelism = Math.min(getBatchParallelism(),
+            models.size() / PARALLEL_BATCH_THRESHOLD);
+    if (parallelism < 2) {
+      for (int i = 0; i < results.length; i++) {
+        results[i] = validate(models.get(i), plan, ModelValidationMode.FULL);
+      }
+    } else {
+      final List<Future<?>> futures = new ArrayList<>(parallelism);
+      for (int chunk = 0; chunk < parallelism; chunk++) {
+        final int first = chunk;
+        futures.add(getBatchExecutorService().submit(ValidationContext.wrap(
+                (Callable<Void>) () -> {
+                  for (int i = first; i < results.length; i += parallelism) {
+                    results[i] = validate(models.get(i), plan, ModelValidationMode.FULL);
+                  }
+                  return null;
+                })));
+      }
+      awaitAll(futures);
+    }
+    final Map<String, ModelValidationResult> resultMap = new LinkedHashMap<>();
+    for (int i = 0; i < results.length; i++) {
+      resultMap.put(models.get(i).getPath(), results[i]);
+    }
+    return resultMap;
+  }
+
+  /**
+   * Validates a model against a plan. Within a validation pass, each model is validated once per
+   * mode. A model that is already being validated further up the chain of nested validations is
+   * not validated again. Its result is invalid, with an error reporting the reference cycle.
+   *
+   * @param model Model to validate.
+   * @param plan Plan of the validators registered to the model's type.
+   * @param mode Validation mode.
+   * @param <T> Model type.
+   *
+   * @return Validation result.
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  protected <T extends BaseResource> ModelValidationResult validate(@Nonnull final T model,
+          @Nonnull final CompiledValidatorPlan plan, @Nonnull final ModelValidationMode mode) {
+    final ValidationContext context = ValidationContext.getCurrent();
+    if (context == null) {
+      return CompactModelValidationResult.validate(model, plan, mode);
+    }
+    final ModelValidationResult result = context.validate(model, mode,
+            member -> CompactModelValidationResult.validate(member, plan, mode));
+    if (result == null) {
+      return CompactModelValidationResult.cyclic(model, plan);
+    }
+    return result;
+  }
+
+  private static void awaitAll(@Nonnull final List<Future<?>> futures) {
+    try {
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while validating models.", exception);
+    } catch (final ExecutionException exception) {
+      if (exception.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) exception.getCause();
+      }
+      throw new IllegalStateException(exception.getCause());
+    } finally {
+      for (final Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,531 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+/**
+ * Baseline service that fills the validation cache in the background, so that users do not pay
+ * for validation after a deploy or a cache purge. The configured subtrees are discovered depth
+ * first, and each discovered resource is validated against every registered Model type on a small
+ * dedicated pool, while discovery continues. Discovered resources wait in a bounded window, from
+ * which the most frequently looked up are validated first, and discovery pauses while the window
+ * is full, so memory stays bounded however large the subtrees are. Results that are already
+ * cached are skipped. Workers pause while the system load is high, and repository reads are rate
+ * limited.
+ *
+ * <p>
+ * Concrete components must call {@link #activate()} and {@link #deactivate()} from their own
+ * {@code @Activate} and {@code @Deactivate} methods, as DS annotations of an abstract superclass
+ * are only processed when bnd runs with {@code -dsannotations-options: inherit}.
+ * </p>
+ */
+public abstract class BaseValidationCacheWarmupService {
+
+  private static final long THROTTLE_INTERVAL_MILLIS = 100L;
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private ValidationCacheWarmup currentWarmup;
+
+  /**
+   * Service the warmed up resources are validated with.
+   *
+   * @return Service the warmed up resources are validated with.
+   */
+  @Nullable
+  protected abstract ModelValidationService getModelValidationService();
+
+  /**
+   * Cache Service the validation results are cached in.
+   *
+   * @return Cache Service the validation results are cached in.
+   */
+  @Nullable
+  protected abstract ModelValidationCacheService getModelValidationCacheService();
+
+  /**
+   * Returns the ModelValidatorRegistrationHandlerService.
+   *
+   * @return the ModelValidatorRegistrationHandlerService.
+   */
+  @Nullable
+  protected abstract ModelValidatorRegistrationHandlerService
+      getModelValidatorRegistrationHandlerService();
+
+  /**
+   * Opens a ResourceResolver for a warm-up thread. Each thread opens its own, and closes it once
+   * it has finished.
+   *
+   * @return ResourceResolver for a warm-up thread, or null when none can be opened.
+   */
+  @Nullable
+  protected abstract ResourceResolver openWarmupResourceResolver();
+
+  /**
+   * Paths of the subtrees warmed up when the service is activated.
+   *
+   * @return Paths of the subtrees warmed up when the service is activated.
+   */
+  @Nonnull
+  protected Collection<String> getWarmupRootPaths() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Maximum number of discovered resources waiting to be validated. Discovery pauses while this
+   * many are waiting, and resources are prioritized among those waiting. Defaults to 10000.
+   *
+   * @return Maximum number of discovered resources waiting to be validated.
+   */
+  protected int getWarmupWindowSize() {
+    return 10000;
+  }
+
+  /**
+   * Number of threads resources are validated on. Defaults to a quarter of the available
+   * processors.
+   *
+   * @return Number of threads resources are validated on.
+   */
+  protected int getWarmupThreadCount() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+  }
+
+  /**
+   * System load per processor above which warm-up threads pause. When zero or less, threads
+   * never pause for load.
+   *
+   * @return System load per processor above which warm-up threads pause.
+   */
+  protected double getMaximumSystemLoad() {
+    return 0.75;
+  }
+
+  /**
+   * Maximum number of resources read per second, across all warm-up threads. A validated
+   * resource counts as one read, plus one for each resource read while validating it. When zero
+   * or less, reads are not limited.
+   *
+   * @return Maximum number of resources read per second.
+   */
+  protected int getMaximumReadsPerSecond() {
+    return 1000;
+  }
+
+  /**
+   * Current system load per processor, or 0 when the platform does not report it.
+   *
+   * @return Current system load per processor.
+   */
+  protected double getSystemLoad() {
+    final double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    if (load < 0) {
+      return 0;
+    }
+    return load / Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Priority of a resource. Resources with a higher priority are warmed up first. Defaults to how
+   * often the resource's results were recently looked up in the cache.
+   *
+   * @param path Resource path.
+   * @param types Model types the resource will be validated as.
+   *
+   * @return Priority of the resource.
+   */
+  protected int getWarmupPriority(@Nonnull final String path,
+          @Nonnull final Collection<Class<? extends BaseResource>> types) {
+    final ModelValidationCacheService cacheService = getModelValidationCacheService();
+    int priority = 0;
+    if (cacheService instanceof BaseModelValidationCacheService) {
+      for (final Class<? extends BaseResource> type : types) {
+        priority = Math.max(priority,
+                ((BaseModelValidationCacheService) cacheService).getAccessFrequency(path, type));
+      }
+    }
+    return priority;
+  }
+
+  /**
+   * Starts warming up the configured root paths. Concrete components call this when activated.
+   */
+  protected void activate() {
+    final Collection<String> rootPaths = getWarmupRootPaths();
+    if (!rootPaths.isEmpty()) {
+      warmup(rootPaths);
+    }
+  }
+
+  /**
+   * Cancels the running warm-up. Concrete components call this when deactivated.
+   */
+  protected synchronized void deactivate() {
+    if (currentWarmup != null) {
+      currentWarmup.cancel();
+    }
+  }
+
+  /**
+   * Warm-up that was started last.
+   *
+   * @return Warm-up that was started last, or null when none was started.
+   */
+  @Nullable
+  public synchronized ValidationCacheWarmup getCurrentWarmup() {
+    return currentWarmup;
+  }
+
+  /**
+   * Starts warming up the cache for resource subtrees, in the background. A warm-up that is
+   * still running is cancelled.
+   *
+   * @param rootPaths Paths of the subtrees to warm up.
+   *
+   * @return Progress of the warm-up.
+   */
+  @Nonnull
+  public synchronized ValidationCacheWarmup warmup(@Nonnull final Collection<String> rootPaths) {
+    if (currentWarmup != null) {
+      currentWarmup.cancel();
+    }
+    final ValidationCacheWarmup warmup = new ValidationCacheWarmup(rootPaths);
+    currentWarmup = warmup;
+    final List<Class<? extends BaseResource>> types = getRegisteredTypes();
+    final int threadCount = Math.max(1, getWarmupThreadCount());
+    final ReadThrottle throttle = new ReadThrottle(getMaximumReadsPerSecond());
+    final WarmupWindow window = new WarmupWindow(warmup, Math.max(1, getWarmupWindowSize()),
+            threadCount);
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount + 1, task -> {
+      final Thread thread = new Thread(task,
+              "validation-cache-warmup-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    final CompletableFuture<?>[] tasks = new CompletableFuture[threadCount + 1];
+    tasks[0] = CompletableFuture.runAsync(() -> discover(warmup, window, types, throttle),
+            executor);
+    for (int i = 1; i <= threadCount; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> warm(warmup, window, types, throttle),
+              executor);
+    }
+    CompletableFuture.allOf(tasks).whenComplete((ignored, failure) -> {
+      executor.shutdown();
+      warmup.complete(failure);
+    });
+    return warmup;
+  }
+
+  /**
+   * Walks the warm-up's subtrees depth first, adding each resource to the window. Only the
+   * children iterators of the current branch are held, so memory depends on the depth of the
+   * subtrees rather than their size.
+   */
+  private void discover(@Nonnull final ValidationCacheWarmup warmup,
+          @Nonnull final WarmupWindow window,
+          @Nonnull final List<Class<? extends BaseResource>> types,
+          @Nonnull final ReadThrottle throttle) {
+    try (ResourceResolver resolver = openWarmupResourceResolver()) {
+      if (resolver == null) {
+        return;
+      }
+      final Deque<Iterator<Resource>> branch = new ArrayDeque<>();
+      final List<Resource> roots = new ArrayList<>();
+      for (final String rootPath : warmup.getRootPaths()) {
+        final Resource root = resolver.getResource(rootPath);
+        if (root != null) {
+          roots.add(root);
+        }
+      }
+      branch.push(roots.iterator());
+      while (!branch.isEmpty() && !warmup.isCancelled()) {
+        final Iterator<Resource> siblings = branch.peek();
+        if (!siblings.hasNext()) {
+          branch.pop();
+          continue;
+        }
+        final Resource resource = siblings.next();
+        if (!window.put(resource.getPath(), getWarmupPriority(resource.getPath(), types))) {
+          return;
+        }
+        warmup.recordDiscovered();
+        final Iterator<Resource> children = resource.listChildren();
+        if (children != null) {
+          branch.push(children);
+        }
+        pause(warmup, throttle.reserve(1));
+      }
+    } finally {
+      warmup.setTotalCount(warmup.getDiscoveredCount());
+      window.finish();
+    }
+  }
+
+  /**
+   * Validates and caches resources from the window until discovery has finished and the window
+   * is empty, or the warm-up is cancelled.
+   */
+  private void warm(@Nonnull final ValidationCacheWarmup warmup,
+          @Nonnull final WarmupWindow window,
+          @Nonnull final List<Class<? extends BaseResource>> types,
+          @Nonnull final ReadThrottle throttle) {
+    try {
+      final ModelValidationService validationService = getModelValidationService();
+      final ModelValidationCacheService cacheService = getModelValidationCacheService();
+      final double maximumSystemLoad = getMaximumSystemLoad();
+      if (validationService == null || cacheService == null) {
+        return;
+      }
+      try (ResourceResolver resolver = openWarmupResourceResolver()) {
+        String path;
+        while (resolver != null && (path = window.take()) != null) {
+          while (maximumSystemLoad > 0 && getSystemLoad() > maximumSystemLoad
+                 && !warmup.isCancelled()) {
+            pause(warmup, TimeUnit.MILLISECONDS.toNanos(THROTTLE_INTERVAL_MILLIS));
+          }
+          try {
+            pause(warmup, throttle.reserve(
+                    warm(warmup, resolver.getResource(path), types, validationService,
+                            cacheService)));
+          } catch (final RuntimeException exception) {
+            warmup.recordFailed();
+          }
+          warmup.recordProcessed();
+        }
+      }
+    } finally {
+      window.leave();
+    }
+  }
+
+  /**
+   * Validates and caches a resource as every Model type it adapts to, unless already cached.
+   *
+   * @return Number of resources read.
+   */
+  private int warm(@Nonnull final ValidationCacheWarmup warmup, @Nullable final Resource resource,
+          @Nonnull final List<Class<? extends BaseResource>> types,
+          @Nonnull final ModelValidationService validationService,
+          @Nonnull final ModelValidationCacheService cacheService) {
+    if (resource == null) {
+      warmup.recordFailed();
+      return 1;
+    }
+    int reads = 1;
+    for (final Class<? extends BaseResource> type : types) {
+      final BaseResource model = resource.adaptTo(type);
+      if (model == null) {
+        continue;
+      }
+      if (cacheService.getCachedValidationResult(resource, type) != null) {
+        warmup.recordSkipped();
+        continue;
+      }
+      final ModelValidationResult result = validationService.validate(model);
+      cacheService.cacheValidationResult(result);
+      warmup.recordValidated();
+      reads += result.getReadPaths().size();
+    }
+    return reads;
+  }
+
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  private List<Class<? extends BaseResource>> getRegisteredTypes() {
+    final List<Class<? extends BaseResource>> types = new ArrayList<>();
+    final ModelValidatorRegistrationHandlerService handlerService
+            = getModelValidatorRegistrationHandlerService();
+    if (handlerService != null) {
+      for (final Class type : handlerService.getRegisteredModelValidatorMap().keySet()) {
+        if (BaseResource.class.isAssignableFrom(type)) {
+          types.add(type);
+        }
+      }
+    }
+    return types;
+  }
+
+  private static void pause(@Nonnull final ValidationCacheWarmup warmup, final long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      warmup.cancel();
+    }
+  }
+
+  /**
+   * Bounded window of discovered resources waiting to be validated, taken highest priority first
+   * and otherwise in discovery order.
+   */
+  private static final class WarmupWindow {
+
+    private final ValidationCacheWarmup warmup;
+    private final int capacity;
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>();
+    private int workers;
+    private long sequence;
+    private boolean finished;
+
+    private WarmupWindow(@Nonnull final ValidationCacheWarmup warmup, final int capacity,
+            final int workers) {
+      this.warmup = warmup;
+      this.capacity = capacity;
+      this.workers = workers;
+    }
+
+    /**
+     * Adds a resource, waiting while the window is full.
+     *
+     * @return Whether the resource was added, false once the warm-up was cancelled or no worker
+     *     is left to take it.
+     */
+    private synchronized boolean put(@Nonnull final String path, final int priority) {
+      while (entries.size() >= capacity && workers > 0 && !warmup.isCancelled()) {
+        if (!await()) {
+          return false;
+        }
+      }
+      if (workers == 0 || warmup.isCancelled()) {
+        return false;
+      }
+      entries.add(new Entry(path, priority, sequence++));
+      notifyAll();
+      return true;
+    }
+
+    /**
+     * Takes the waiting resource with the highest priority, waiting while the window is empty.
+     *
+     * @return Path of the resource, or null once discovery has finished and the window is empty,
+     *     or the warm-up was cancelled.
+     */
+    @Nullable
+    private synchronized String take() {
+      while (entries.isEmpty() && !finished && !warmup.isCancelled()) {
+        if (!await()) {
+          return null;
+        }
+      }
+      final Entry entry = warmup.isCancelled() ? null : entries.poll();
+      notifyAll();
+      return entry != null ? entry.path : null;
+    }
+
+    private synchronized void finish() {
+      finished = true;
+      notifyAll();
+    }
+
+    private synchronized void leave() {
+      workers--;
+      notifyAll();
+    }
+
+    /**
+     * Waits for a change, waking up regularly to notice cancellation.
+     *
+     * @return Whether the thread may keep waiting, false when it was interrupted.
+     */
+    private boolean await() {
+      try {
+        wait(THROTTLE_INTERVAL_MILLIS);
+        return true;
+      } catch (final InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        warmup.cancel();
+        return false;
+      }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+      private final String path;
+      private final int priority;
+      private final long sequence;
+
+      private Entry(@Nonnull final String path, final int priority, final long sequence) {
+        this.path = path;
+        this.priority = priority;
+        this.sequence = sequence;
+      }
+
+      @Override
+      public int compareTo(@Nonnull final Entry other) {
+        if (priority != other.priority) {
+          return Integer.compare(other.priority, priority);
+        }
+        return Long.compare(sequence, other.sequence);
+      }
+    }
+  }
+
+  /**
+   * Spaces out repository reads across all threads of a warm-up.
+   */
+  private static final class ReadThrottle {
+
+    private final long nanosPerRead;
+    private long next;
+
+    private ReadThrottle(final int readsPerSecond) {
+      this.nanosPerRead = readsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / readsPerSecond : 0;
+      this.next = System.nanoTime();
+    }
+
+    /**
+     * Accounts for reads that were made, and returns how long to wait before reading again.
+     */
+    private synchronized long reserve(final int reads) {
+      if (nanosPerRead == 0) {
+        return 0;
+      }
+      final long now = System.nanoTime();
+      if (next - now < 0) {
+        next = now;
+      }
+      final long wait = next - now;
+      next += reads * nanosPerRead;
+      return wait;
+    }
+  }
+}
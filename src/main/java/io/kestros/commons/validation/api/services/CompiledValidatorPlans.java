@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.validation.api.models.CompiledValidatorPlan;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Compiled plans of the validators registered to Model types, so a plan is compiled once per type
+ * rather than once per validated model. A plan is reused while its type is registered to the same
+ * list holding the same validators, so validators registered or removed by the handler service,
+ * in place or by replacing the list, are compiled into a new plan on the next lookup.
+ */
+final class CompiledValidatorPlans {
+
+  private final ConcurrentMap<Class, Entry> plans = new ConcurrentHashMap<>();
+
+  /**
+   * Compiled plan of the validators registered to a Model type.
+   *
+   * @param handlerService Handler service the validators are registered with.
+   * @param type Model type.
+   *
+   * @return Compiled plan of the validators registered to the Model type.
+   */
+  @Nonnull
+  CompiledValidatorPlan get(@Nonnull final ModelValidatorRegistrationHandlerService handlerService,
+          @Nonnull final Class type) {
+    final Map<Class, List<ModelValidator>> registered
+            = handlerService.getRegisteredModelValidatorMap();
+    final List<ModelValidator> validators = registered != null ? registered.get(type) : null;
+    if (validators == null) {
+      plans.remove(type);
+      return handlerService.getCompiledValidatorPlan(type);
+    }
+    final Entry entry = plans.get(type);
+    if (entry != null && entry.matches(handlerService, validators)) {
+      return entry.plan;
+    }
+    // Snapshot before compiling, so a change made while compiling is seen on the next lookup.
+    final ModelValidator[] snapshot = validators.toArray(new ModelValidator[0]);
+    final CompiledValidatorPlan plan = handlerService.getCompiledValidatorPlan(type);
+    plans.put(type, new Entry(handlerService, validators, snapshot, plan));
+    return plan;
+  }
+
+  private static final class Entry {
+
+    private final ModelValidatorRegistrationHandlerService handlerService;
+    private final List<ModelValidator> source;
+    private final ModelValidator[] validators;
+    private final CompiledValidatorPlan plan;
+
+    private Entry(@Nonnull final ModelValidatorRegistrationHandlerService handlerService,
+            @Nonnull final List<ModelValidator> source, @Nonnull final ModelValidator[] validators,
+            @Nonnull final CompiledValidatorPlan plan) {
+      this.handlerService = handlerService;
+      this.source = source;
+      this.validators = validators;
+      this.plan = plan;
+    }
+
+    private boolean matches(@Nonnull final ModelValidatorRegistrationHandlerService handlerService,
+            @Nonnull final List<ModelValidator> registered) {
+      if (this.handlerService != handlerService || source != registered
+          || validators.length != registered.size()) {
+        return false;
+      }
+      for (int i = 0; i < validators.length; i++) {
+        if (validators[i] != registered.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -24,9 +24,16 @@ import io.kestros.commons.osgiserviceutils.exceptions.CacheRetrievalException;
 import io.kestros.commons.osgiserviceutils.services.cache.CacheService;
 import io.kestros.commons.osgiserviceutils.services.cache.ManagedCacheService;
 import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ValidationMessage;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.sling.api.resource.Resource;
 
 /**
@@ -42,6 +49,33 @@ public interface ModelValidationCacheService extends CacheService, ManagedCacheS
   @Nonnull
   Map<String, Object> getCachedValidationMap();
 
+  /**
+   * Retrieves the cached error and warning messages for a specified resource, when adapted to the
+   * specified Class, in a single lookup. Implementations should return null when the resource
+   * has changed since the result was cached. By default, the messages are retrieved through
+   * {@link #getCachedErrorMessages(Resource, Class)} and
+   * {@link #getCachedWarningMessages(Resource, Class)}, and stamped with
+   * {@link CachedValidationResult#UNKNOWN_REVISION}, as the revision they were cached at is not
+   * known. Such results are never reported as current.
+   *
+   * @param resource Resource to retrieve the cached result of.
+   * @param clazz Model class that the resource was validated against.
+   * @param <T> extends BaseResource
+   *
+   * @return Cached validation result, or null when none is cached.
+   */
+  @Nullable
+  default <T extends BaseResource> CachedValidationResult getCachedValidationResult(
+          @Nonnull Resource resource, @Nonnull Class<T> clazz) {
+    try {
+      return new CachedValidationResult(resource.getPath(), clazz,
+              CachedValidationResult.UNKNOWN_REVISION, getCachedErrorMessages(resource, clazz),
+              getCachedWarningMessages(resource, clazz));
+    } catch (final CacheRetrievalException exception) {
+      return null;
+    }
+  }
+
   /**
    * Retrieves cached error messages for a specified resource, when adapted to the specified Class.
    *
@@ -73,6 +107,46 @@ public interface ModelValidationCacheService extends CacheService, ManagedCacheS
   <T extends BaseResource> List<String> getCachedWarningMessages(@Nonnull Resource resource,
           @Nonnull Class<T> clazz) throws CacheRetrievalException;
 
+  /**
+   * Whether the cached result of a specified resource, when adapted to the specified Class, had
+   * any error messages. Implementations should answer without retrieving the messages, and only
+   * from a result that is current and not stale. By default, the result is retrieved through
+   * {@link #getCachedValidationResult(Resource, Class)}, and only used when its revision is known,
+   * matches the resource's, and the result is not stale.
+   *
+   * @param resource Resource to check the cached result of.
+   * @param clazz Model class that the resource was validated against.
+   * @param <T> extends BaseResource
+   *
+   * @return Whether the cached result had any error messages.
+   *
+   * @throws CacheRetrievalException No current result is cached for the resource.
+   */
+  default <T extends BaseResource> boolean hasCachedErrors(@Nonnull final Resource resource,
+          @Nonnull final Class<T> clazz) throws CacheRetrievalException {
+    return getRequiredCachedValidationResult(resource, clazz).hasErrors();
+  }
+
+  /**
+   * Whether the cached result of a specified resource, when adapted to the specified Class, had
+   * any warning messages. Implementations should answer without retrieving the messages, and only
+   * from a result that is current and not stale. By default, the result is retrieved through
+   * {@link #getCachedValidationResult(Resource, Class)}, and only used when its revision is known,
+   * matches the resource's, and the result is not stale.
+   *
+   * @param resource Resource to check the cached result of.
+   * @param clazz Model class that the resource was validated against.
+   * @param <T> extends BaseResource
+   *
+   * @return Whether the cached result had any warning messages.
+   *
+   * @throws CacheRetrievalException No current result is cached for the resource.
+   */
+  default <T extends BaseResource> boolean hasCachedWarnings(@Nonnull final Resource resource,
+          @Nonnull final Class<T> clazz) throws CacheRetrievalException {
+    return getRequiredCachedValidationResult(resource, clazz).hasWarnings();
+  }
+
   /**
    * Caches validators for a specified resource.
    *
@@ -85,4 +159,60 @@ public interface ModelValidationCacheService extends CacheService, ManagedCacheS
   <T extends BaseResource> void cacheValidationResults(@Nonnull T model,
           @Nonnull List<String> errorMessages, @Nonnull List<String> warningMessages);
 
+  /**
+   * Caches validation messages for a specified resource, without formatting them. Implementations
+   * should store the messages as they are and render them when read. By default, messages are
+   * rendered and cached through {@link #cacheValidationResults(BaseResource, List, List)}.
+   *
+   * @param model model to cache validators for.
+   * @param <T> extends BaseResource
+   * @param errorMessages List of error messages to cache.
+   * @param warningMessages List of warning messages to cache.
+   */
+  default <T extends BaseResource> void cacheValidationMessages(@Nonnull T model,
+          @Nonnull List<ValidationMessage> errorMessages,
+          @Nonnull List<ValidationMessage> warningMessages) {
+    cacheValidationResults(model, render(errorMessages), render(warningMessages));
+  }
+
+  /**
+   * Caches the error and warning messages of a validation result. Implementations should store
+   * the paths of the resources read during validation, so the entry can be invalidated when any
+   * of them changes. Partial results are not cached. By default, messages are cached through
+   * {@link #cacheValidationResults(BaseResource, List, List)}.
+   *
+   * @param result Validation result to cache.
+   */
+  default void cacheValidationResult(@Nonnull final ModelValidationResult result) {
+    if (result.isPartial() || !(result.getModel() instanceof BaseResource)) {
+      return;
+    }
+    final Map<ModelValidationMessageType, List<String>> messages = result.getMessages();
+    cacheValidationResults((BaseResource) result.getModel(),
+            messages.getOrDefault(ModelValidationMessageType.ERROR, Collections.emptyList()),
+            messages.getOrDefault(ModelValidationMessageType.WARNING, Collections.emptyList()));
+  }
+
+  @Nonnull
+  private <T extends BaseResource> CachedValidationResult getRequiredCachedValidationResult(
+          @Nonnull final Resource resource, @Nonnull final Class<T> clazz)
+          throws CacheRetrievalException {
+    final CachedValidationResult result = getCachedValidationResult(resource, clazz);
+    if (result == null || result.isStale()
+        || !result.isCurrent(CachedValidationResult.getRevision(resource))) {
+      throw new CacheRetrievalException(
+              "No current validation result cached for " + resource.getPath() + ".");
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static List<String> render(@Nonnull final List<ValidationMessage> messages) {
+    final List<String> rendered = new ArrayList<>(messages.size());
+    for (final ValidationMessage message : messages) {
+      rendered.add(message.toString());
+    }
+    return rendered;
+  }
+
 }
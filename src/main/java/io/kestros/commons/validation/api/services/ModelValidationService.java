@@ -22,8 +22,25 @@ package io.kestros.commons.validation.api.services;
 
 import io.kestros.commons.osgiserviceutils.services.ManagedService;
 import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.models.ModelChangeSet;
 import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
+import org.apache.sling.api.resource.Resource;
 
 /**
  * Model Validation Service.
@@ -39,4 +56,178 @@ public interface ModelValidationService extends ManagedService {
   @Nonnull
   <T extends BaseResource> ModelValidationResult validate(@Nonnull T model);
 
+  /**
+   * Validates a model, running only the validators included in a validation mode. Results that
+   * skipped any registered validators are marked as partial. Implementations that do not support
+   * validation modes run every validator.
+   * @param model Model to validate.
+   * @param mode Validation mode.
+   * @return ModelValidationResult.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> ModelValidationResult validate(@Nonnull T model,
+          @Nonnull ModelValidationMode mode) {
+    return validate(model);
+  }
+
+  /**
+   * Validates a model within a time budget. Validators that have not run when the budget runs out
+   * are skipped, and reported by the partial result.
+   * @param model Model to validate.
+   * @param budget Time budget.
+   * @return ModelValidationResult.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> ModelValidationResult validate(@Nonnull T model,
+          @Nonnull Duration budget) {
+    return validate(model, ModelValidationMode.FULL, budget);
+  }
+
+  /**
+   * Validates a model in a validation mode, within a time budget. Validators that have not run
+   * when the budget runs out are skipped, and reported by the partial result.
+   * @param model Model to validate.
+   * @param mode Validation mode.
+   * @param budget Time budget.
+   * @return ModelValidationResult.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> ModelValidationResult validate(@Nonnull T model,
+          @Nonnull ModelValidationMode mode, @Nonnull Duration budget) {
+    try (ValidationContext.Scope scope = ValidationContext.open(budget)) {
+      return validate(model, mode);
+    }
+  }
+
+  /**
+   * Revalidates a changed model, rerunning only the validators affected by the changes and
+   * carrying over the outcomes of the rest from the previous result. Implementations that cannot
+   * reuse the previous result run every validator.
+   * @param model Changed model.
+   * @param previous Result of the previous validation of the model.
+   * @param changes Changes to the model since the previous validation.
+   * @return ModelValidationResult.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> ModelValidationResult revalidate(@Nonnull T model,
+          @Nonnull ModelValidationResult previous, @Nonnull ModelChangeSet changes) {
+    return validate(model);
+  }
+
+  /**
+   * Validates a batch of models, sharing child resource lookups across the batch. Since results
+   * are keyed by path, a path may only be included as a single model type. Use
+   * {@link #validateAllByType(Collection)} to validate a path as several model types.
+   * @param models Models to validate.
+   * @return ModelValidationResults, keyed by model path, in iteration order.
+   * @param <T> Model Type.
+   * @throws IllegalArgumentException A path is included as more than one model type.
+   */
+  @Nonnull
+  default <T extends BaseResource> Map<String, ModelValidationResult> validateAll(
+          @Nonnull Collection<T> models) {
+    final Map<String, Class> types = new HashMap<>();
+    for (final T model : models) {
+      final Class type = types.putIfAbsent(model.getPath(), model.getClass());
+      if (type != null && type != model.getClass()) {
+        throw new IllegalArgumentException(String.format(
+                "Model path %s is included as both %s and %s. Use validateAllByType.",
+                model.getPath(), type.getName(), model.getClass().getName()));
+      }
+    }
+    final Map<String, ModelValidationResult> results = new LinkedHashMap<>();
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      for (final T model : models) {
+        results.put(model.getPath(), validate(model));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Validates a batch of models, grouping results by model type.
+   * @param models Models to validate.
+   * @return ModelValidationResults keyed by model path, grouped by model type.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> Map<Class, Map<String, ModelValidationResult>>
+      validateAllByType(@Nonnull Collection<T> models) {
+    final Map<Class, Map<String, ModelValidationResult>> results = new LinkedHashMap<>();
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      for (final T model : models) {
+        results.computeIfAbsent(model.getClass(), type -> new LinkedHashMap<>()).put(
+                model.getPath(), validate(model));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Lazily validates a resource subtree. Resources are visited depth first, starting with the
+   * root, and adapted to each of the specified model types. Each successful adaptation is
+   * validated when its result is pulled from the stream, so arbitrarily large trees can be
+   * validated without holding their results in memory.
+   * @param root Root of the subtree to validate.
+   * @param types Model types to adapt each resource to.
+   * @return ModelValidationResults, in traversal order.
+   */
+  @Nonnull
+  default Stream<ModelValidationResult> validateSubtree(@Nonnull Resource root,
+          @Nonnull Collection<Class<? extends BaseResource>> types) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+            new SubtreeValidationIterator(this, root, types),
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Validates a model on the validation executor, within the ValidationContext bound to the
+   * calling thread, so the deadline of the caller's pass, its memoized results and its recording
+   * of read resources carry over. The model is validated through its own ResourceResolver, which
+   * is not thread safe, so the caller must not use that resolver, or models adapted from it, until
+   * the returned future completes.
+   * @param model Model to validate.
+   * @return ModelValidationResult, completed once validation finishes.
+   * @param <T> Model Type.
+   */
+  @Nonnull
+  default <T extends BaseResource> CompletableFuture<ModelValidationResult> validateAsync(
+          @Nonnull T model) {
+    final Callable<ModelValidationResult> task = ValidationContext.wrap(() -> validate(model));
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return task.call();
+      } catch (final RuntimeException exception) {
+        throw exception;
+      } catch (final Exception exception) {
+        throw new CompletionException(exception);
+      }
+    }, getValidationExecutor());
+  }
+
+  /**
+   * Executor asynchronous validation runs on. Defaults to a virtual thread per task where the JVM
+   * supports them, otherwise the common ForkJoinPool.
+   * @return Executor asynchronous validation runs on.
+   */
+  @Nonnull
+  default Executor getValidationExecutor() {
+    return ValidationExecutors.getDefaultExecutor();
+  }
+
+  /**
+   * Maximum number of threads a single model list or batch validation is split across. Defaults
+   * to 1, so models are validated on the calling thread. Models validated on other threads share
+   * their ResourceResolver, which is not thread safe, so larger values should only be returned
+   * when models come from thread-safe resource resolvers.
+   * @return Maximum number of threads a single list or batch validation is split across.
+   */
+  default int getValidationParallelism() {
+    return 1;
+  }
+
 }
@@ -21,7 +21,9 @@
 package io.kestros.commons.validation.api.services;
 
 import io.kestros.commons.osgiserviceutils.services.ManagedService;
+import io.kestros.commons.validation.api.models.CompiledValidatorPlan;
 import io.kestros.commons.validation.api.models.ModelValidator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -39,6 +41,25 @@ public interface ModelValidatorRegistrationHandlerService extends ManagedService
   @Nonnull
   Map<Class, List<ModelValidator>> getRegisteredModelValidatorMap();
 
+  /**
+   * Returns the registered ModelValidators of a Model type, compiled into an evaluation plan. The
+   * default implementation compiles a new plan on every call. Validation services built on
+   * {@link BaseModelValidationService} cache the returned plan per type, and only call this again
+   * once the list registered to the type, or its contents, change.
+   *
+   * @param type Model type to compile the registered validators of.
+   *
+   * @return Evaluation plan of the ModelValidators registered to the Model type.
+   */
+  @Nonnull
+  default CompiledValidatorPlan getCompiledValidatorPlan(@Nonnull final Class type) {
+    final List<ModelValidator> modelValidators = getRegisteredModelValidatorMap().get(type);
+    if (modelValidators == null) {
+      return CompiledValidatorPlan.compile(Collections.emptyList());
+    }
+    return CompiledValidatorPlan.compile(modelValidators);
+  }
+
   /**
    * Registers all validators from all OSGI services.
    */
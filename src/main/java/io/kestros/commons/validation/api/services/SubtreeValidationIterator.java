@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Walks a resource subtree depth first, adapting each resource to each model type and validating
+ * every successful adaptation. Resources are only read, and models only validated, as results are
+ * pulled, so memory use is bounded by the depth of the tree rather than its size.
+ */
+final class SubtreeValidationIterator implements Iterator<ModelValidationResult> {
+
+  private final ModelValidationService validationService;
+  private final Class<? extends BaseResource>[] types;
+  private final Deque<Iterator<Resource>> children = new ArrayDeque<>();
+  private Resource root;
+  private Resource current;
+  private int typeIndex;
+  private ModelValidationResult next;
+
+  @SuppressWarnings("unchecked")
+  SubtreeValidationIterator(@Nonnull final ModelValidationService validationService,
+          @Nonnull final Resource root,
+          @Nonnull final Collection<Class<? extends BaseResource>> types) {
+    this.validationService = validationService;
+    this.types = types.toArray(new Class[0]);
+    this.root = root;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = advance();
+    }
+    return next != null;
+  }
+
+  @Override
+  public ModelValidationResult next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final ModelValidationResult result = next;
+    next = null;
+    return result;
+  }
+
+  @Nullable
+  private ModelValidationResult advance() {
+    while (true) {
+      if (current != null) {
+        while (typeIndex < types.length) {
+          final BaseResource model = current.adaptTo(types[typeIndex++]);
+          if (model != null) {
+            return validationService.validate(model);
+          }
+        }
+      }
+      current = nextResource();
+      typeIndex = 0;
+      if (current == null) {
+        return null;
+      }
+    }
+  }
+
+  @Nullable
+  private Resource nextResource() {
+    if (root != null) {
+      final Resource resource = root;
+      root = null;
+      children.push(listChildren(resource));
+      return resource;
+    }
+    while (!children.isEmpty()) {
+      final Iterator<Resource> siblings = children.peek();
+      if (siblings.hasNext()) {
+        final Resource resource = siblings.next();
+        children.push(listChildren(resource));
+        return resource;
+      }
+      children.pop();
+    }
+    return null;
+  }
+
+  @Nonnull
+  private static Iterator<Resource> listChildren(@Nonnull final Resource resource) {
+    final Iterator<Resource> iterator = resource.listChildren();
+    if (iterator == null) {
+      return Collections.emptyIterator();
+    }
+    return iterator;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Progress of a background validation cache warm-up. Counts are updated as the warm-up runs, and
+ * can be read from any thread.
+ */
+public final class ValidationCacheWarmup {
+
+  private final List<String> rootPaths;
+  private final CompletableFuture<ValidationCacheWarmup> completion = new CompletableFuture<>();
+  private final AtomicLong validatedCount = new AtomicLong();
+  private final AtomicLong skippedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private final AtomicLong processedCount = new AtomicLong();
+  private final AtomicLong discoveredCount = new AtomicLong();
+  private volatile long totalCount = -1L;
+  private volatile boolean cancelled;
+
+  ValidationCacheWarmup(@Nonnull final Collection<String> rootPaths) {
+    this.rootPaths = Collections.unmodifiableList(new ArrayList<>(rootPaths));
+  }
+
+  /**
+   * Paths of the subtrees being warmed up.
+   *
+   * @return Paths of the subtrees being warmed up.
+   */
+  @Nonnull
+  public List<String> getRootPaths() {
+    return rootPaths;
+  }
+
+  /**
+   * Number of resources to warm up, or -1 while the subtrees are still being discovered.
+   *
+   * @return Number of resources to warm up.
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Number of resources discovered so far. Resources are validated while the subtrees are still
+   * being discovered, so this grows ahead of {@link #getProcessedCount()}.
+   *
+   * @return Number of resources discovered so far.
+   */
+  public long getDiscoveredCount() {
+    return discoveredCount.get();
+  }
+
+  /**
+   * Number of resources processed so far.
+   *
+   * @return Number of resources processed so far.
+   */
+  public long getProcessedCount() {
+    return processedCount.get();
+  }
+
+  /**
+   * Number of validation results computed and cached so far.
+   *
+   * @return Number of validation results computed and cached so far.
+   */
+  public long getValidatedCount() {
+    return validatedCount.get();
+  }
+
+  /**
+   * Number of validation results that were already cached, and so not recomputed.
+   *
+   * @return Number of validation results that were already cached.
+   */
+  public long getSkippedCount() {
+    return skippedCount.get();
+  }
+
+  /**
+   * Number of resources that could not be read or validated.
+   *
+   * @return Number of resources that could not be read or validated.
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Fraction of the resources processed so far, from 0 to 1. While the subtrees are still being
+   * discovered, this is the fraction of the resources discovered so far.
+   *
+   * @return Fraction of the resources processed so far.
+   */
+  public double getProgress() {
+    final long total = totalCount;
+    if (total < 0) {
+      final long discovered = discoveredCount.get();
+      return discovered == 0 ? 0 : Math.min(1, (double) processedCount.get() / discovered);
+    }
+    if (total == 0) {
+      return 1;
+    }
+    return Math.min(1, (double) processedCount.get() / total);
+  }
+
+  /**
+   * Whether the warm-up has finished, either because every resource was processed or because it
+   * was cancelled.
+   *
+   * @return Whether the warm-up has finished.
+   */
+  public boolean isDone() {
+    return completion.isDone();
+  }
+
+  /**
+   * Whether the warm-up was cancelled.
+   *
+   * @return Whether the warm-up was cancelled.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Stops the warm-up once the resources currently being validated are done.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Completes with this warm-up once it has finished.
+   *
+   * @return Completes with this warm-up once it has finished.
+   */
+  @Nonnull
+  public CompletableFuture<ValidationCacheWarmup> getCompletion() {
+    return completion;
+  }
+
+  void setTotalCount(final long totalCount) {
+    this.totalCount = totalCount;
+  }
+
+  void recordDiscovered() {
+    discoveredCount.incrementAndGet();
+  }
+
+  void recordValidated() {
+    validatedCount.incrementAndGet();
+  }
+
+  void recordSkipped() {
+    skippedCount.incrementAndGet();
+  }
+
+  void recordFailed() {
+    failedCount.incrementAndGet();
+  }
+
+  void recordProcessed() {
+    processedCount.incrementAndGet();
+  }
+
+  void complete(@Nullable final Throwable failure) {
+    if (failure != null) {
+      completion.completeExceptionally(failure);
+    } else {
+      completion.complete(this);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+/**
+ * Default executor for asynchronous validation. Uses a virtual thread per task when the running
+ * JVM supports them, otherwise the common ForkJoinPool.
+ */
+final class ValidationExecutors {
+
+  private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+  private ValidationExecutors() {
+  }
+
+  /**
+   * Default executor for asynchronous validation.
+   *
+   * @return Default executor for asynchronous validation.
+   */
+  @Nonnull
+  static Executor getDefaultExecutor() {
+    return DEFAULT_EXECUTOR;
+  }
+
+  @Nonnull
+  private static Executor createDefaultExecutor() {
+    try {
+      return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final ReflectiveOperationException | RuntimeException exception) {
+      return ForkJoinPool.commonPool();
+    }
+  }
+}
@@ -34,11 +34,17 @@ import io.kestros.commons.validation.api.ModelValidationMessageType;
 import io.kestros.commons.validation.api.models.ModelValidationResult;
 import io.kestros.commons.validation.api.models.ModelValidator;
 import io.kestros.commons.validation.api.models.ModelValidatorBundle;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import io.kestros.commons.validation.api.models.ValidationMessage;
+import io.kestros.commons.validation.api.models.ValidatorDependencies;
+import io.kestros.commons.validation.api.services.ModelValidationCacheService;
 import io.kestros.commons.validation.api.services.ModelValidationService;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.Resource;
 
 /**
  * Utility Class which holds static validators which are commonly used.
@@ -46,6 +52,28 @@ import org.apache.commons.lang3.StringUtils;
 @SuppressFBWarnings({"PARAMETER_NULLABILITY", "UMTP_UNBOUND_METHOD_TEMPLATE_PARAMETER"})
 public class CommonValidators {
 
+  private static final String FILE_EXTENSION_MESSAGE = "Resource name ends with %s extension.";
+  private static final String FILE_EXTENSION_DETAILED_MESSAGE
+          = "Filename %s is expected to end with .%s.";
+  private static final String FILE_EXTENSION_NO_MODEL_DETAILED_MESSAGE
+          = "Filename is expected to end with .%s.";
+  private static final String CHILD_RESOURCE_MESSAGE = "Has child resource '%s'.";
+  private static final String CHILD_RESOURCE_DETAILED_MESSAGE
+          = "Expected child resource '%s' was not found.";
+  private static final String VALID_CHILD_RESOURCE_TYPE_MESSAGE
+          = "Has valid child resource '%s'.";
+  private static final String VALID_CHILD_RESOURCE_TYPE_DETAILED_MESSAGE
+          = "Child resource '%s' could not be adapted to %s. Likely the wrong resourceType.";
+  private static final String VALID_CHILD_MESSAGE = "Has valid child %s '%s'";
+  private static final String FAILED_ERROR_VALIDATOR_MESSAGE
+          = "Error validator failed for %s: %s";
+  private static final String FAILED_WARNING_VALIDATOR_MESSAGE
+          = "Warning validator failed for %s: %s";
+  private static final ValidatorDependencies TITLE_DEPENDENCIES
+          = ValidatorDependencies.properties("jcr:title");
+  private static final ValidatorDependencies DESCRIPTION_DEPENDENCIES
+          = ValidatorDependencies.properties("jcr:description");
+
   /**
    * Validator that checks if the current Resource has a title value.
    *
@@ -58,14 +86,19 @@ public class CommonValidators {
     return new ModelValidator<T>() {
 
 
-      @Nonnull
       @Override
-      public Boolean isValidCheck(@Nonnull T model) {
+      public boolean test(@Nonnull T model) {
         BaseResource resource = model;
         return !resource.getName().equals(resource.getTitle()) && StringUtils.isNotEmpty(
                 resource.getTitle());
       }
 
+      @Nonnull
+      @Override
+      public ValidatorDependencies getDependencies() {
+        return TITLE_DEPENDENCIES;
+      }
+
       @Nonnull
       @Override
       public String getMessage() {
@@ -100,13 +133,18 @@ public class CommonValidators {
           final ModelValidationMessageType messageType) {
     return new ModelValidator<T>() {
 
-      @Nonnull
       @Override
-      public Boolean isValidCheck(@Nonnull T model) {
+      public boolean test(@Nonnull T model) {
         BaseResource resource = model;
         return StringUtils.isNotEmpty(resource.getDescription());
       }
 
+      @Nonnull
+      @Override
+      public ValidatorDependencies getDependencies() {
+        return DESCRIPTION_DEPENDENCIES;
+      }
+
       @Nonnull
       @Override
       public String getMessage() {
@@ -141,9 +179,11 @@ public class CommonValidators {
           @Nonnull final String extension, @Nonnull final ModelValidationMessageType messageType) {
     return new ModelValidator<T>() {
 
-      @Nonnull
+      private final ValidationMessage message = ValidationMessage.of(FILE_EXTENSION_MESSAGE,
+              extension);
+
       @Override
-      public Boolean isValidCheck(@Nonnull T model) {
+      public boolean test(@Nonnull T model) {
         BaseResource resource = model;
         return resource.getName().endsWith(extension);
       }
@@ -151,17 +191,29 @@ public class CommonValidators {
       @Nonnull
       @Override
       public String getMessage() {
-        return "Resource name ends with " + extension + " extension.";
+        return getValidationMessage().toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getValidationMessage() {
+        return message;
       }
 
       @Nonnull
       @Override
       public String getDetailedMessage(@Nonnull T model) {
+        return getDetailedValidationMessage(model).toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getDetailedValidationMessage(@Nonnull T model) {
         if (model != null) {
-          return String.format("Filename %s is expected to end with .%s.",
+          return ValidationMessage.of(FILE_EXTENSION_DETAILED_MESSAGE,
                   model.getResource().getName(), extension);
         } else {
-          return String.format("Filename is expected to end with .%s.", extension);
+          return ValidationMessage.of(FILE_EXTENSION_NO_MODEL_DETAILED_MESSAGE, extension);
         }
       }
 
@@ -187,27 +239,51 @@ public class CommonValidators {
           @Nonnull final String childName, @Nonnull ModelValidationMessageType type) {
     return new ModelValidator<T>() {
 
-      @Nonnull
+      private final ValidationMessage message = ValidationMessage.of(CHILD_RESOURCE_MESSAGE,
+              childName);
+      private final ValidationMessage detailedMessage = ValidationMessage.of(
+              CHILD_RESOURCE_DETAILED_MESSAGE, childName);
+      private final ValidatorDependencies dependencies = ValidatorDependencies.children(
+              childName);
+
       @Override
-      public Boolean isValidCheck(@Nonnull T model) {
+      public boolean test(@Nonnull T model) {
         try {
-          SlingModelUtils.getChildAsBaseResource(childName, model.getResource());
+          getChildAsBaseResource(childName, model.getResource());
         } catch (final ChildResourceNotFoundException exception) {
-          return Boolean.FALSE;
+          return false;
         }
-        return Boolean.TRUE;
+        return true;
+      }
+
+      @Nonnull
+      @Override
+      public ValidatorDependencies getDependencies() {
+        return dependencies;
       }
 
       @Nonnull
       @Override
       public String getMessage() {
-        return String.format("Has child resource '%s'.", childName);
+        return message.toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getValidationMessage() {
+        return message;
       }
 
       @Nonnull
       @Override
       public String getDetailedMessage(@Nonnull T model) {
-        return String.format("Expected child resource '%s' was not found.", childName);
+        return detailedMessage.toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getDetailedValidationMessage(@Nonnull T model) {
+        return detailedMessage;
       }
 
       @Nonnull
@@ -237,31 +313,45 @@ public class CommonValidators {
 
     return new ModelValidator<T>() {
 
-      @Nonnull
+      private final ValidationMessage message = ValidationMessage.of(
+              VALID_CHILD_RESOURCE_TYPE_MESSAGE, childName);
+      private final ValidationMessage detailedMessage = ValidationMessage.of(
+              VALID_CHILD_RESOURCE_TYPE_DETAILED_MESSAGE, childName, childType.getSimpleName());
+
       @Override
-      public Boolean isValidCheck(@Nonnull BaseResource model) {
+      public boolean test(@Nonnull T model) {
         try {
-          SlingModelUtils.getChildAsType(childName, model.getResource(), childType);
+          getChildAsType(childName, model.getResource(), childType);
         } catch (InvalidResourceTypeException e) {
-          return Boolean.FALSE;
+          return false;
         } catch (ChildResourceNotFoundException e) {
-          return Boolean.TRUE;
+          return true;
         }
-        return Boolean.TRUE;
+        return true;
       }
 
       @Nonnull
       @Override
       public String getMessage() {
-        return String.format("Has valid child resource '%s'.", childName);
+        return message.toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getValidationMessage() {
+        return message;
       }
 
       @Nonnull
       @Override
       public String getDetailedMessage(@Nonnull T model) {
-        return String.format(
-                "Child resource '%s' could not be adapted to %s. Likely the wrong resourceType.",
-                childName, childType.getSimpleName());
+        return detailedMessage.toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getDetailedValidationMessage(@Nonnull T model) {
+        return detailedMessage;
       }
 
       @Nonnull
@@ -290,10 +380,26 @@ public class CommonValidators {
           @Nonnull final ModelValidationMessageType messageType) {
     return new ModelValidatorBundle<T>() {
 
+      private final ValidationMessage message = ValidationMessage.of(VALID_CHILD_MESSAGE,
+              childType.getSimpleName(), childName);
+
+      @Override
+      public boolean test(@Nonnull T model) {
+        try (ValidationContext.Scope scope = ValidationContext.open()) {
+          return super.test(model);
+        }
+      }
+
       @Nonnull
       @Override
       public String getMessage() {
-        return "Has valid child " + childType.getSimpleName() + " '" + childName + "'";
+        return message.toString();
+      }
+
+      @Nonnull
+      @Override
+      public ValidationMessage getValidationMessage() {
+        return message;
       }
 
 
@@ -336,16 +442,22 @@ public class CommonValidators {
       final ModelValidator validator = new ModelValidator<T>() {
 
 
-        @Nonnull
         @Override
-        public Boolean isValidCheck(@Nonnull T model) {
-          return Boolean.FALSE;
+        public boolean test(@Nonnull T model) {
+          return false;
         }
 
         @Nonnull
         @Override
         public String getMessage() {
-          return "Error validator failed for " + model.getPath() + ": " + errorMessage;
+          return getValidationMessage().toString();
+        }
+
+        @Nonnull
+        @Override
+        public ValidationMessage getValidationMessage() {
+          return ValidationMessage.of(FAILED_ERROR_VALIDATOR_MESSAGE, model.getPath(),
+                  errorMessage);
         }
 
         @Nonnull
@@ -382,16 +494,22 @@ public class CommonValidators {
     for (final String warningMessage : warningMessages) {
       final ModelValidator validator = new ModelValidator<T>() {
 
-        @Nonnull
         @Override
-        public Boolean isValidCheck(@Nonnull T model) {
-          return Boolean.FALSE;
+        public boolean test(@Nonnull T model) {
+          return false;
         }
 
         @Nonnull
         @Override
         public String getMessage() {
-          return "Warning validator failed for " + model.getPath() + ": " + warningMessage;
+          return getValidationMessage().toString();
+        }
+
+        @Nonnull
+        @Override
+        public ValidationMessage getValidationMessage() {
+          return ValidationMessage.of(FAILED_WARNING_VALIDATOR_MESSAGE, model.getPath(),
+                  warningMessage);
         }
 
         @Nonnull
@@ -427,15 +545,14 @@ public class CommonValidators {
 
     return new ModelValidator() {
 
-      @Nonnull
       @Override
-      public Boolean isValidCheck(@Nonnull BaseSlingModel model) {
+      public boolean test(@Nonnull BaseSlingModel model) {
         for (final Object object : list) {
           if (object == null) {
-            return Boolean.FALSE;
+            return false;
           }
         }
-        return Boolean.TRUE;
+        return true;
       }
 
       @Nonnull
@@ -478,6 +595,29 @@ public class CommonValidators {
             modelValidationService);
   }
 
+  /**
+   * Validates whether a specified list of models has any error messages. Cached error messages
+   * are used for models that have them, and the rest are validated.
+   *
+   * @param modelList models to check for errors.
+   * @param message Validation message
+   * @param <T> Extends base Resource.
+   * @param detailedMessage Detailed message to return if validation fails.
+   * @param modelValidationService ModelValidationService to use for validation.
+   * @param modelValidationCacheService ModelValidationCacheService to check first.
+   *
+   * @return Validates whether a specified list of models has any error messages.
+   */
+  @Nonnull
+  public static <T extends BaseResource> ModelValidator modelListHasNoErrors(
+          @Nonnull final List<T> modelList, @Nonnull final String message,
+          @Nonnull final String detailedMessage,
+          @Nonnull final ModelValidationService modelValidationService,
+          @Nullable final ModelValidationCacheService modelValidationCacheService) {
+    return modelListHasNoFailedValidatorsOfType(modelList, message, detailedMessage, ERROR,
+            modelValidationService, modelValidationCacheService);
+  }
+
   /**
    * Validates whether a specified list of models has any warning messages.
    *
@@ -498,35 +638,53 @@ public class CommonValidators {
             modelValidationService);
   }
 
+  /**
+   * Validates whether a specified list of models has any warning messages. Cached warning
+   * messages are used for models that have them, and the rest are validated.
+   *
+   * @param modelList models to check for warnings.
+   * @param message Validation message
+   * @param <T> Extends base Resource.
+   * @param detailedMessage Detailed message to return if validation fails.
+   * @param modelValidationService ModelValidationService to use for validation.
+   * @param modelValidationCacheService ModelValidationCacheService to check first.
+   *
+   * @return Validates whether a specified list of models has any warning messages.
+   */
+  @Nonnull
+  public static <T extends BaseResource> ModelValidator modelListHasNoWarnings(
+          @Nonnull final List<T> modelList, @Nonnull final String message,
+          @Nonnull final String detailedMessage,
+          @Nonnull final ModelValidationService modelValidationService,
+          @Nullable final ModelValidationCacheService modelValidationCacheService) {
+    return modelListHasNoFailedValidatorsOfType(modelList, message, detailedMessage, WARNING,
+            modelValidationService, modelValidationCacheService);
+  }
+
   @Nonnull
   static <T extends BaseResource> ModelValidator modelListHasNoFailedValidatorsOfType(
           @Nonnull List<T> modelList, String message, @Nonnull String detailedMessage,
           @Nonnull ModelValidationMessageType type,
           @Nonnull ModelValidationService validationService) {
+    return modelListHasNoFailedValidatorsOfType(modelList, message, detailedMessage, type,
+            validationService, null);
+  }
+
+  @Nonnull
+  static <T extends BaseResource> ModelValidator modelListHasNoFailedValidatorsOfType(
+          @Nonnull List<T> modelList, String message, @Nonnull String detailedMessage,
+          @Nonnull ModelValidationMessageType type,
+          @Nonnull ModelValidationService validationService,
+          @Nullable ModelValidationCacheService cacheService) {
+    final ModelListValidation<T> listValidation = new ModelListValidation<>(modelList, type,
+            validationService, cacheService);
     return new ModelValidator<T>() {
 
-      @Nonnull
       @Override
-      public Boolean isValidCheck(@Nonnull T model) {
-        for (@Nonnull T model1 : modelList) {
-          ModelValidationResult result = validationService.validate(model1);
-          if (ERROR.name().equals(type.name())) {
-            if (result.getMessages().get(ERROR) != null
-                    && result.getMessages().get(ERROR).size() > 0) {
-              return Boolean.FALSE;
-            }
-            //  if (result.getMessages().get(WARNING) != null
-            //        &&result.getMessages().get(WARNING).size() > 0){
-            //  return Boolean.FALSE;
-            // }
-          } else if (WARNING.name().equals(type.name())) {
-            if (result.getMessages().get(WARNING) != null
-                    && result.getMessages().get(WARNING).size() > 0) {
-              return Boolean.FALSE;
-            }
-          }
+      public boolean test(@Nonnull T model) {
+        try (ValidationContext.Scope scope = ValidationContext.open()) {
+          return !listValidation.hasFailures(scope.getContext());
         }
-        return Boolean.TRUE;
       }
 
       @Override
@@ -549,4 +707,25 @@ public class CommonValidators {
     };
   }
 
-}
\ No newline at end of file
+  @Nonnull
+  private static BaseResource getChildAsBaseResource(@Nonnull final String childName,
+          @Nonnull final Resource resource) throws ChildResourceNotFoundException {
+    final ValidationContext context = ValidationContext.getCurrent();
+    if (context != null) {
+      return context.getChildAsBaseResource(childName, resource);
+    }
+    return SlingModelUtils.getChildAsBaseResource(childName, resource);
+  }
+
+  @Nonnull
+  private static <S extends BaseResource> S getChildAsType(@Nonnull final String childName,
+          @Nonnull final Resource resource, @Nonnull final Class<S> type)
+          throws InvalidResourceTypeException, ChildResourceNotFoundException {
+    final ValidationContext context = ValidationContext.getCurrent();
+    if (context != null) {
+      return context.getChildAsType(childName, resource, type);
+    }
+    return SlingModelUtils.getChildAsType(childName, resource, type);
+  }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.utils;
+
+import io.kestros.commons.osgiserviceutils.exceptions.CacheRetrievalException;
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import io.kestros.commons.validation.api.services.ModelValidationCacheService;
+import io.kestros.commons.validation.api.services.ModelValidationService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Checks whether any model of a list fails a validator of a specified level. Members are
+ * validated fail fast, with only validators of that level. Large lists are split across the
+ * validation executor, up to the validation service's parallelism, which keeps lists on the
+ * calling thread by default. Checking stops as soon as one member fails. A member that is already
+ * being validated further up the chain closes a reference cycle, and counts as a failure.
+ */
+final class ModelListValidation<T extends BaseResource> {
+
+  /**
+   * Minimum number of list members per thread before a list is split across threads.
+   */
+  static final int PARALLEL_LIST_THRESHOLD = 32;
+
+  private final List<T> modelList;
+  private final ModelValidationMessageType type;
+  private final ModelValidationMode mode;
+  private final ModelValidationService validationService;
+  private final ModelValidationCacheService cacheService;
+
+  ModelListValidation(@Nonnull final List<T> modelList,
+          @Nonnull final ModelValidationMessageType type,
+          @Nonnull final ModelValidationService validationService,
+          @Nullable final ModelValidationCacheService cacheService) {
+    this.modelList = modelList;
+    this.type = type;
+    this.mode = type == ModelValidationMessageType.ERROR ? ModelValidationMode.FAIL_FAST
+                                                         : ModelValidationMode.WARNINGS_FAIL_FAST;
+    this.validationService = validationService;
+    this.cacheService = cacheService;
+  }
+
+  /**
+   * Whether any model of the list fails a validator of the specified level.
+   *
+   * @param context Context of the current validation pass.
+   *
+   * @return Whether any model of the list fails a validator of the specified level.
+   */
+  boolean hasFailures(@Nonnull final ValidationContext context) {
+    if (type != ModelValidationMessageType.ERROR && type != ModelValidationMessageType.WARNING) {
+      return false;
+    }
+    final int threads = Math.min(modelList.size() / PARALLEL_LIST_THRESHOLD,
+            validationService.getValidationParallelism());
+    final Executor executor = threads > 1 ? validationService.getValidationExecutor() : null;
+    final boolean failed = executor != null ? hasFailures(context, executor, threads)
+                                            : hasFailures(context, 0, 1, new AtomicBoolean());
+    // Results of models validated after the deadline may be partial.
+    context.checkDeadline();
+    return failed;
+  }
+
+  private boolean hasFailures(@Nonnull final ValidationContext context, final int first,
+          final int step, @Nonnull final AtomicBoolean failed) {
+    for (int i = first; i < modelList.size() && !failed.get(); i += step) {
+      context.checkDeadline();
+      if (hasFailures(context, modelList.get(i))) {
+        failed.set(true);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits the list across the executor. The calling thread runs any share of the list the
+   * executor has not started yet, so nested lists cannot starve a saturated executor.
+   */
+  private boolean hasFailures(@Nonnull final ValidationContext context,
+          @Nonnull final Executor executor, final int threads) {
+    final AtomicBoolean failed = new AtomicBoolean();
+    final List<FutureTask<Boolean>> tasks = new ArrayList<>(threads);
+    for (int thread = 0; thread < threads; thread++) {
+      final int first = thread;
+      tasks.add(new FutureTask<>(
+              ValidationContext.wrap(() -> hasFailures(context, first, threads, failed))));
+    }
+    try {
+      for (int i = 1; i < tasks.size(); i++) {
+        executor.execute(tasks.get(i));
+      }
+      for (final FutureTask<Boolean> task : tasks) {
+        if (failed.get()) {
+          return true;
+        }
+        task.run();
+      }
+      for (final FutureTask<Boolean> task : tasks) {
+        if (task.get()) {
+          return true;
+        }
+      }
+      return failed.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while validating model list.", exception);
+    } catch (final ExecutionException exception) {
+      if (exception.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) exception.getCause();
+      }
+      if (exception.getCause() instanceof Error) {
+        throw (Error) exception.getCause();
+      }
+      throw new IllegalStateException(exception.getCause());
+    } finally {
+      for (final FutureTask<Boolean> task : tasks) {
+        task.cancel(true);
+      }
+    }
+  }
+
+  private boolean hasFailures(@Nonnull final ValidationContext context, @Nullable final T model) {
+    final Boolean cachedFailures = getCachedFailures(model);
+    if (cachedFailures != null) {
+      return cachedFailures;
+    }
+    final ModelValidationResult result = context.delegate(model, mode,
+            member -> validationService.validate(member, mode));
+    if (result == null) {
+      // Already being validated further up the chain, so the list closes a reference cycle.
+      return true;
+    }
+    final List<String> messages = result.getMessages().get(type);
+    return messages != null && !messages.isEmpty();
+  }
+
+  /**
+   * Whether the cached result of a model has failures of the list's level, checked without
+   * retrieving its messages. Only results that are current and not stale are used, so outdated
+   * or stale-while-revalidate results never decide the list.
+   *
+   * @return Whether the cached result has failures, or null when no current result is cached.
+   */
+  @Nullable
+  private Boolean getCachedFailures(@Nullable final T model) {
+    if (cacheService == null || model == null) {
+      return null;
+    }
+    final Resource resource = model.getResource();
+    if (resource == null) {
+      return null;
+    }
+    try {
+      if (type == ModelValidationMessageType.ERROR) {
+        return cacheService.hasCachedErrors(resource, model.getClass());
+      }
+      return cacheService.hasCachedWarnings(resource, model.getClass());
+    } catch (final CacheRetrievalException exception) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedValidationResultStoreTest {
+
+  private BoundedValidationResultStore store;
+  private int entryWeight;
+
+  @Before
+  public void setUp() throws Exception {
+    entryWeight = createResult("/content/hot/000").getWeight();
+    store = new BoundedValidationResultStore(200L * entryWeight);
+  }
+
+  @Test
+  public void testPut() {
+    CachedValidationResult result = createResult("/content/hot/000");
+    store.put(result);
+
+    assertEquals(result, store.get("/content/hot/000", BaseResource.class));
+    assertEquals(entryWeight, store.getWeight());
+    assertEquals(200L * entryWeight, store.getMaximumWeight());
+  }
+
+  @Test
+  public void testPutWhenFull() {
+    for (int i = 0; i < 1000; i++) {
+      store.put(createResult(String.format("/content/crawl/%03d", i)));
+    }
+
+    assertTrue(store.getWeight() <= store.getMaximumWeight());
+    assertTrue(store.getEvictionCount() > 0);
+    long[] weight = new long[1];
+    store.forEach(result -> weight[0] += result.getWeight());
+    assertEquals(weight[0], store.getWeight());
+  }
+
+  @Test
+  public void testPutWhenFrequentlyReadResultsAndCrawl() {
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 100; i++) {
+        readThrough(String.format("/content/hot/%03d", i));
+      }
+    }
+    for (int i = 0; i < 1000; i++) {
+      readThrough(String.format("/content/crawl/%03d", i));
+    }
+
+    int retained = 0;
+    for (int i = 0; i < 100; i++) {
+      if (store.get(String.format("/content/hot/%03d", i), BaseResource.class) != null) {
+        retained++;
+      }
+    }
+    assertTrue(retained >= 90);
+  }
+
+  @Test
+  public void testPutWhenHeavierThanMaximumWeight() {
+    store = new BoundedValidationResultStore(entryWeight);
+    store.put(new CachedValidationResult("/content/heavy", BaseResource.class, 1L,
+            Arrays.asList("error1", "error2"), Collections.emptyList()));
+
+    assertNull(store.get("/content/heavy", BaseResource.class));
+    assertEquals(0, store.getWeight());
+  }
+
+  @Test
+  public void testInvalidate() {
+    store.put(createResult("/content/hot/000"));
+    store.put(createResult("/content/hot/001"));
+
+    store.invalidate("/content/hot/000");
+    assertEquals(entryWeight, store.getWeight());
+    assertNotNull(store.get("/content/hot/001", BaseResource.class));
+
+    store.clear();
+    assertEquals(0, store.getWeight());
+    assertEquals(0, store.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorWhenMaximumWeightIsNotPositive() {
+    new BoundedValidationResultStore(0);
+  }
+
+  private void readThrough(final String path) {
+    if (store.get(path, BaseResource.class) == null) {
+      store.put(createResult(path));
+    }
+  }
+
+  private CachedValidationResult createResult(final String path) {
+    return new CachedValidationResult(path, BaseResource.class, 1L,
+            Collections.singletonList("error"), Collections.emptyList());
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.junit.Test;
+
+public class CachedValidationResultTest {
+
+  @Test
+  public void testGetMessages() {
+    CachedValidationResult result = new CachedValidationResult("/path", BaseResource.class, 5L,
+            Arrays.asList("error1", "error2"), Arrays.asList("warning1"));
+
+    assertEquals("/path", result.getPath());
+    assertEquals(BaseResource.class, result.getModelType());
+    assertEquals(Arrays.asList("error1", "error2"), result.getErrorMessages());
+    assertEquals(Arrays.asList("warning1"), result.getWarningMessages());
+    assertTrue(result.hasErrors());
+    assertTrue(result.hasWarnings());
+    assertTrue(result.isCurrent(5L));
+    assertFalse(result.isCurrent(6L));
+  }
+
+  @Test
+  public void testIsCurrentWhenRevisionUnknown() {
+    CachedValidationResult result = new CachedValidationResult("/path", BaseResource.class,
+            CachedValidationResult.UNKNOWN_REVISION, Collections.emptyList(),
+            Collections.emptyList());
+
+    assertFalse(result.isCurrent(CachedValidationResult.UNKNOWN_REVISION));
+    assertFalse(result.isCurrent(5L));
+    assertFalse(new CachedValidationResult("/path", BaseResource.class, 5L,
+            Collections.emptyList(), Collections.emptyList()).isCurrent(
+            CachedValidationResult.UNKNOWN_REVISION));
+  }
+
+  @Test
+  public void testGetMessagesWhenEmpty() {
+    CachedValidationResult result = new CachedValidationResult("/path", BaseResource.class, 5L,
+            Collections.emptyList(), Collections.emptyList());
+
+    assertFalse(result.hasErrors());
+    assertFalse(result.hasWarnings());
+    assertEquals(0, result.getErrorMessages().size());
+    assertEquals(0, result.getWarningMessages().size());
+  }
+
+  @Test
+  public void testAsStale() {
+    CachedValidationResult result = new CachedValidationResult("/path", BaseResource.class, 5L,
+            Arrays.asList("error1"), Collections.emptyList(), Arrays.asList("/reference"));
+
+    CachedValidationResult stale = result.asStale();
+
+    assertFalse(result.isStale());
+    assertTrue(stale.isStale());
+    assertSame(stale, stale.asStale());
+    assertEquals(5L, stale.getRevision());
+    assertEquals(Arrays.asList("error1"), stale.getErrorMessages());
+    assertEquals(Arrays.asList("/reference"), stale.getReadPaths());
+    assertEquals(result.getWeight(), stale.getWeight());
+  }
+
+  @Test
+  public void testGetRevision() {
+    Resource resource = mock(Resource.class);
+    ResourceMetadata resourceMetadata = mock(ResourceMetadata.class);
+    when(resource.getResourceMetadata()).thenReturn(resourceMetadata);
+    when(resourceMetadata.getModificationTime()).thenReturn(1234L);
+
+    assertEquals(1234L, CachedValidationResult.getRevision(resource));
+    assertEquals(CachedValidationResult.UNKNOWN_REVISION,
+            CachedValidationResult.getRevision(null));
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentValidationResultStoreTest {
+
+  private ValidationResultStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    store = new ConcurrentValidationResultStore();
+  }
+
+  @Test
+  public void testPut() {
+    CachedValidationResult result = createResult("/path", BaseResource.class);
+    CachedValidationResult otherTypeResult = createResult("/path", BaseSlingModel.class);
+
+    store.put(result);
+    store.put(otherTypeResult);
+
+    assertSame(result, store.get("/path", BaseResource.class));
+    assertSame(otherTypeResult, store.get("/path", BaseSlingModel.class));
+    assertNull(store.get("/other", BaseResource.class));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testPutWhenReplacing() {
+    store.put(createResult("/path", BaseResource.class));
+    CachedValidationResult result = createResult("/path", BaseResource.class);
+    store.put(result);
+
+    assertSame(result, store.get("/path", BaseResource.class));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testReplace() {
+    CachedValidationResult result = createResult("/path", BaseResource.class, "/reference");
+    CachedValidationResult replacement = createResult("/path", BaseResource.class, "/other");
+
+    assertFalse(store.replace(result, replacement));
+    assertNull(store.get("/path", BaseResource.class));
+    assertTrue(store.replace(null, result));
+    assertFalse(store.replace(null, replacement));
+    assertTrue(store.replace(result, replacement));
+
+    assertSame(replacement, store.get("/path", BaseResource.class));
+    assertEquals(0, store.getDependents("/reference", false).size());
+    assertEquals(1, store.getDependents("/other", false).size());
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testInvalidate() {
+    store.put(createResult("/path", BaseResource.class));
+    store.put(createResult("/path", BaseSlingModel.class));
+    store.put(createResult("/other", BaseResource.class));
+
+    store.invalidate("/path", BaseResource.class);
+    assertNull(store.get("/path", BaseResource.class));
+    assertEquals(2, store.size());
+
+    store.invalidate("/path");
+    assertNull(store.get("/path", BaseSlingModel.class));
+    assertEquals(1, store.size());
+
+    store.clear();
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testGetWhenAllModelTypes() {
+    store.put(createResult("/path", BaseResource.class));
+    store.put(createResult("/path", BaseSlingModel.class));
+
+    assertEquals(2, store.get("/path").size());
+    assertEquals(0, store.get("/other").size());
+  }
+
+  @Test
+  public void testInvalidateDescendants() {
+    store.put(createResult("/content", BaseResource.class));
+    store.put(createResult("/content/page", BaseResource.class));
+    store.put(createResult("/content/page/child", BaseResource.class));
+    store.put(createResult("/content/pages", BaseResource.class));
+
+    store.invalidateDescendants("/content/page");
+
+    assertNotNull(store.get("/content", BaseResource.class));
+    assertNotNull(store.get("/content/page", BaseResource.class));
+    assertNull(store.get("/content/page/child", BaseResource.class));
+    assertNotNull(store.get("/content/pages", BaseResource.class));
+  }
+
+  @Test
+  public void testGetDescendants() {
+    store.put(createResult("/content", BaseResource.class));
+    store.put(createResult("/content/page", BaseResource.class));
+    store.put(createResult("/content/page/child", BaseSlingModel.class));
+    store.put(createResult("/contents", BaseResource.class));
+
+    assertEquals(2, store.getDescendants("/content").size());
+    assertEquals(4, store.getDescendants("/").size());
+    assertEquals(0, store.getDescendants("/other").size());
+  }
+
+  @Test
+  public void testForEachWhenPath() {
+    store.put(createResult("/content", BaseResource.class));
+    store.put(createResult("/content/page", BaseResource.class));
+    store.put(createResult("/contents", BaseResource.class));
+    List<CachedValidationResult> results = new ArrayList<>();
+
+    store.forEach("/content", results::add);
+
+    assertEquals(2, results.size());
+  }
+
+  @Test
+  public void testClear() {
+    store.put(createResult("/content", BaseResource.class, "/reference"));
+    store.put(createResult("/content/page", BaseResource.class));
+
+    store.clear();
+
+    assertEquals(0, store.size());
+    assertEquals(0, store.getDependents("/reference", false).size());
+  }
+
+  @Test
+  public void testInvalidateDependents() {
+    CachedValidationResult reader = createResult("/page", BaseResource.class, "/reference");
+    CachedValidationResult descendantReader = createResult("/other", BaseResource.class,
+            "/reference/child");
+    store.put(reader);
+    store.put(descendantReader);
+    store.put(createResult("/unrelated", BaseResource.class, "/references"));
+
+    store.invalidateDependents("/reference", false);
+    assertNull(store.get("/page", BaseResource.class));
+    assertSame(descendantReader, store.get("/other", BaseResource.class));
+
+    store.invalidateDependents("/reference", true);
+    assertNull(store.get("/other", BaseResource.class));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testGetDependents() {
+    CachedValidationResult reader = createResult("/page", BaseResource.class, "/reference",
+            "/reference/child");
+    CachedValidationResult descendantReader = createResult("/other", BaseResource.class,
+            "/reference/child");
+    store.put(reader);
+    store.put(descendantReader);
+    store.put(createResult("/unrelated", BaseResource.class, "/references"));
+
+    assertEquals(Arrays.asList(reader), store.getDependents("/reference", false));
+    assertEquals(2, store.getDependents("/reference", true).size());
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void testInvalidateDependentsWhenReplaced() {
+    store.put(createResult("/page", BaseResource.class, "/reference"));
+    CachedValidationResult replacement = createResult("/page", BaseResource.class, "/other");
+    store.put(replacement);
+
+    store.invalidateDependents("/reference", false);
+
+    assertSame(replacement, store.get("/page", BaseResource.class));
+  }
+
+  @Test
+  public void testForEach() {
+    store.put(createResult("/path", BaseResource.class));
+    store.put(createResult("/other", BaseResource.class));
+    List<CachedValidationResult> results = new ArrayList<>();
+
+    store.forEach(results::add);
+
+    assertEquals(2, results.size());
+  }
+
+  private CachedValidationResult createResult(final String path, final Class<?> type,
+          final String... readPaths) {
+    return new CachedValidationResult(path, type, 1L, Collections.emptyList(),
+            Collections.emptyList(), Arrays.asList(readPaths));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+  @Test
+  public void testIncrement() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(42);
+    }
+
+    assertEquals(5, sketch.frequency(42));
+    assertEquals(0, sketch.frequency(43));
+  }
+
+  @Test
+  public void testIncrementWhenSaturated() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(42);
+    }
+
+    assertEquals(15, sketch.frequency(42));
+  }
+
+  @Test
+  public void testIncrementWhenSampleSizeReached() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 15; i++) {
+      sketch.increment(42);
+    }
+    for (int i = 0; i < 10 * sketch.capacity(); i++) {
+      sketch.increment(1000 + i);
+    }
+
+    assertTrue(sketch.frequency(42) < 15);
+  }
+
+  @Test
+  public void testCapacity() {
+    assertEquals(1024, new FrequencySketch(1000).capacity());
+    assertEquals(16, new FrequencySketch(0).capacity());
+  }
+}
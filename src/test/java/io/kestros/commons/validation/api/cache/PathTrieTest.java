@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PathTrieTest {
+
+  private PathTrie<String> trie;
+
+  @Before
+  public void setUp() throws Exception {
+    trie = new PathTrie<>();
+  }
+
+  @Test
+  public void testCompute() {
+    trie.compute("/content/page", current -> "page");
+    trie.compute("/content/page", current -> current + "-updated");
+
+    assertEquals("page-updated", trie.get("/content/page"));
+    assertNull(trie.get("/content"));
+    assertNull(trie.get("/content/page/child"));
+    assertNull(trie.get("content/page"));
+  }
+
+  @Test
+  public void testComputeWhenDistinctPaths() {
+    List<String> paths = Arrays.asList("/", "", "/content", "content", "/content/", "//content",
+            "/content//page", "/content/page");
+    for (String path : paths) {
+      trie.compute(path, current -> path);
+    }
+
+    for (String path : paths) {
+      assertEquals(path, trie.get(path));
+    }
+  }
+
+  @Test
+  public void testComputeWhenManySiblings() {
+    for (int i = 99; i >= 0; i--) {
+      String path = "/content/page-" + i;
+      trie.compute(path, current -> path);
+    }
+    for (int i = 0; i < 100; i += 2) {
+      trie.remove("/content/page-" + i);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i % 2 == 0 ? null : "/content/page-" + i, trie.get("/content/page-" + i));
+    }
+    List<String> values = new ArrayList<>();
+    trie.forEach("/content", false, values::add);
+    assertEquals(50, values.size());
+  }
+
+  @Test
+  public void testComputeIfPresent() {
+    assertNull(trie.computeIfPresent("/content", current -> "content"));
+    assertNull(trie.get("/content"));
+
+    trie.compute("/content", current -> "content");
+
+    assertEquals("content-updated", trie.computeIfPresent("/content",
+            current -> current + "-updated"));
+  }
+
+  @Test
+  public void testRemove() {
+    trie.compute("/content", current -> "content");
+    trie.compute("/content/page", current -> "page");
+
+    assertEquals("page", trie.remove("/content/page"));
+    assertNull(trie.remove("/content/page"));
+    assertEquals("content", trie.get("/content"));
+
+    trie.compute("/content/page", current -> "page");
+
+    assertEquals("page", trie.get("/content/page"));
+  }
+
+  @Test
+  public void testRemoveAll() {
+    trie.compute("/content", current -> "content");
+    trie.compute("/content/page", current -> "page");
+    trie.compute("/content/page/child", current -> "child");
+    trie.compute("/contents", current -> "contents");
+    Map<String, String> removed = new HashMap<>();
+
+    trie.removeAll("/content", false, removed::put);
+
+    assertEquals(2, removed.size());
+    assertEquals("page", removed.get("/content/page"));
+    assertEquals("child", removed.get("/content/page/child"));
+    assertEquals("content", trie.get("/content"));
+    assertEquals("contents", trie.get("/contents"));
+
+    trie.removeAll("/", true, removed::put);
+
+    assertEquals("content", removed.get("/content"));
+    assertEquals("contents", removed.get("/contents"));
+    assertNull(trie.get("/content"));
+  }
+
+  @Test
+  public void testRemoveAllWhenRelative() {
+    trie.compute("content/page", current -> "page");
+    trie.compute("/content/page", current -> "absolute");
+    Map<String, String> removed = new HashMap<>();
+
+    trie.removeAll(removed::put);
+
+    assertEquals("page", removed.get("content/page"));
+    assertEquals("absolute", removed.get("/content/page"));
+    assertEquals(2, removed.size());
+  }
+
+  @Test
+  public void testForEach() {
+    trie.compute("/content", current -> "content");
+    trie.compute("/content/page", current -> "page");
+    trie.compute("/contents", current -> "contents");
+    List<String> values = new ArrayList<>();
+
+    trie.forEach("/content", true, values::add);
+
+    Collections.sort(values);
+    assertEquals(Arrays.asList("content", "page"), values);
+
+    values.clear();
+    trie.forEach("/content", false, values::add);
+
+    assertEquals(Arrays.asList("page"), values);
+
+    values.clear();
+    trie.forEach(values::add);
+
+    assertEquals(3, values.size());
+  }
+
+  @Test
+  public void testComputeWhenConcurrentlyPruned() throws Exception {
+    PathTrie<Integer> counts = new PathTrie<>();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        String name = "thread" + thread;
+        futures.add(executorService.submit(() -> {
+          for (int i = 0; i < 2000; i++) {
+            String parent = "/content/" + i % 10;
+            counts.compute(parent + "/" + name + "/temporary", current -> 1);
+            counts.remove(parent + "/" + name + "/temporary");
+            counts.compute(parent + "/" + name, current -> current != null ? current + 1 : 1);
+            counts.computeIfPresent(parent + "/" + name, current -> current);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    int[] total = new int[1];
+    counts.forEach(value -> total[0] += value);
+
+    assertEquals(8000, total[0]);
+    assertEquals(Integer.valueOf(200), counts.get("/content/3/thread1"));
+    assertNull(counts.get("/content/3/thread1/temporary"));
+  }
+}
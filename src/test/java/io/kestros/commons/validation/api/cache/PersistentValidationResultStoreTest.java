@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistentValidationResultStoreTest {
+
+  private static final ToLongFunction<String> UNCHANGED = path -> 1L;
+
+  private Path directory;
+  private Path file;
+  private PersistentValidationResultStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("validation-cache");
+    file = directory.resolve("validation-results.bin");
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+    store.put(new CachedValidationResult("/content/page", BaseResource.class, 100L,
+            Arrays.asList("error1", "error2"), Arrays.asList("warning1"),
+            Arrays.asList("/content/page/jcr:content")));
+    store.put(new CachedValidationResult("/content/other", BaseResource.class, 200L,
+            Collections.emptyList(), Collections.emptyList(),
+            Collections.singletonList("/content/reference")));
+    store.put(new CachedValidationResult("/content/page", BaseSlingModel.class, 100L,
+            Collections.emptyList(), Arrays.asList("warning2")));
+    store.persist();
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Test
+  public void testGet() {
+    assertEquals(3, store.size());
+
+    CachedValidationResult result = store.get("/content/page", BaseResource.class, UNCHANGED);
+
+    assertEquals(100L, result.getRevision());
+    assertEquals(Arrays.asList("error1", "error2"), result.getErrorMessages());
+    assertEquals(Arrays.asList("warning1"), result.getWarningMessages());
+    assertEquals(Arrays.asList("/content/page/jcr:content"), result.getReadPaths());
+    assertEquals(result, store.get("/content/page", BaseResource.class));
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void testGetWhenReadPathChangedAfterPersist() {
+    assertNull(store.get("/content/page", BaseResource.class,
+            path -> System.currentTimeMillis() + 60_000L));
+    assertNull(store.get("/content/page", BaseResource.class, UNCHANGED));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testGetWhenReadPathIsMissing() {
+    assertNull(store.get("/content/other", BaseResource.class,
+            path -> CachedValidationResult.UNKNOWN_REVISION));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testGetWithoutRevisions() {
+    assertNull(store.get("/content/page", BaseResource.class));
+    assertNotNull(store.get("/content/page", BaseSlingModel.class));
+  }
+
+  @Test
+  public void testGetWhenRevisionUnknown() throws Exception {
+    store.put(new CachedValidationResult("/content/unknown", BaseResource.class,
+            CachedValidationResult.UNKNOWN_REVISION, Collections.emptyList(),
+            Collections.emptyList()));
+    store.persist();
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+
+    assertEquals(4, store.size());
+    assertNull(store.get("/content/unknown", BaseResource.class, UNCHANGED));
+  }
+
+  @Test
+  public void testGetWhenModelTypeNotSeen() {
+    store.get("/content/missing", BaseSlingModel.class);
+
+    assertEquals(1, store.get("/content/page").size());
+    assertNull(store.get("/content/page", BaseResource.class, UNCHANGED));
+  }
+
+  @Test
+  public void testInvalidateDependents() {
+    store.invalidateDependents("/content/reference", false);
+    store.invalidateDependents("/content/page", true);
+
+    assertNull(store.get("/content/other", BaseResource.class, UNCHANGED));
+    assertNull(store.get("/content/page", BaseResource.class, UNCHANGED));
+    assertNotNull(store.get("/content/page", BaseSlingModel.class));
+  }
+
+  @Test
+  public void testInvalidateDescendants() {
+    store.invalidateDescendants("/content/page");
+
+    assertEquals(3, store.size());
+
+    store.invalidateDescendants("/content");
+
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testPersist() throws Exception {
+    store.invalidate("/content/other");
+    store.get("/content/page", BaseResource.class, UNCHANGED);
+    store.persist();
+
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+
+    assertEquals(2, store.size());
+    assertNull(store.get("/content/other", BaseResource.class));
+    assertEquals(Arrays.asList("warning2"),
+            store.get("/content/page", BaseSlingModel.class).getWarningMessages());
+  }
+
+  @Test
+  public void testPersistKeepsTimeOfCarriedOverResults() throws Exception {
+    Thread.sleep(5L);
+    final long changed = System.currentTimeMillis();
+    store.persist();
+
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+
+    assertEquals(3, store.size());
+    assertNull(store.get("/content/other", BaseResource.class, path -> changed));
+  }
+
+  @Test
+  public void testGetWhenFileIsCorrupt() throws IOException {
+    Files.write(file, "not a validation result file".getBytes(StandardCharsets.UTF_8));
+
+    store = new PersistentValidationResultStore(file, new ConcurrentValidationResultStore());
+
+    assertEquals(0, store.size());
+    assertNull(store.get("/content/page", BaseResource.class));
+  }
+
+  @Test
+  public void testGetWhenFileIsMissing() {
+    store = new PersistentValidationResultStore(directory.resolve("missing.bin"),
+            new ConcurrentValidationResultStore());
+
+    assertEquals(0, store.size());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StaleValidationResultStoreTest {
+
+  private ConcurrentValidationResultStore memoryStore;
+  private StaleValidationResultStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    memoryStore = new ConcurrentValidationResultStore();
+    store = new StaleValidationResultStore(memoryStore);
+  }
+
+  @Test
+  public void testInvalidate() {
+    store.put(createResult("/page", BaseResource.class));
+    store.put(createResult("/page", BaseSlingModel.class));
+
+    store.invalidate("/page", BaseResource.class);
+
+    assertTrue(store.get("/page", BaseResource.class).isStale());
+    assertFalse(store.get("/page", BaseSlingModel.class).isStale());
+
+    store.invalidate("/page");
+
+    assertTrue(store.get("/page", BaseSlingModel.class).isStale());
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testInvalidateDescendants() {
+    store.put(createResult("/content", BaseResource.class));
+    store.put(createResult("/content/page", BaseResource.class));
+
+    store.invalidateDescendants("/content");
+
+    assertFalse(store.get("/content", BaseResource.class).isStale());
+    assertTrue(store.get("/content/page", BaseResource.class).isStale());
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testInvalidateDependents() {
+    store.put(createResult("/page", BaseResource.class, "/reference"));
+    store.put(createResult("/other", BaseResource.class, "/reference/child"));
+
+    store.invalidateDependents("/reference", false);
+
+    assertTrue(store.get("/page", BaseResource.class).isStale());
+    assertFalse(store.get("/other", BaseResource.class).isStale());
+
+    store.invalidateDependents("/reference", true);
+
+    assertTrue(store.get("/page", BaseResource.class).isStale());
+    assertTrue(store.get("/other", BaseResource.class).isStale());
+    assertEquals(Arrays.asList("/reference"),
+            store.get("/page", BaseResource.class).getReadPaths());
+    assertEquals(2, memoryStore.getDependents("/reference", true).size());
+  }
+
+  @Test
+  public void testInvalidateWhenReplacedMeanwhile() {
+    CachedValidationResult fresh = createResult("/page", BaseResource.class);
+    store = new StaleValidationResultStore(new ConcurrentValidationResultStore() {
+      @Override
+      public CachedValidationResult get(final String path, final Class<?> modelType) {
+        CachedValidationResult result = super.get(path, modelType);
+        put(fresh);
+        return result;
+      }
+    });
+    store.put(createResult("/page", BaseResource.class));
+
+    store.invalidate("/page", BaseResource.class);
+
+    assertSame(fresh, store.get("/page", BaseResource.class));
+  }
+
+  @Test
+  public void testInvalidateDescendantsWhenReplacedMeanwhile() {
+    CachedValidationResult fresh = createResult("/content/page", BaseResource.class);
+    store = new StaleValidationResultStore(new ConcurrentValidationResultStore() {
+      @Override
+      public void invalidateDescendants(final String path) {
+        super.invalidateDescendants(path);
+        put(fresh);
+      }
+    });
+    store.put(createResult("/content/page", BaseResource.class));
+
+    store.invalidateDescendants("/content");
+
+    assertSame(fresh, store.get("/content/page", BaseResource.class));
+  }
+
+  @Test
+  public void testPutWhenStale() {
+    store.put(createResult("/page", BaseResource.class));
+    store.invalidate("/page");
+    CachedValidationResult fresh = createResult("/page", BaseResource.class);
+
+    store.put(fresh);
+
+    assertSame(fresh, store.get("/page", BaseResource.class));
+  }
+
+  @Test
+  public void testRemove() {
+    store.put(createResult("/page", BaseResource.class));
+    store.invalidate("/page");
+
+    store.remove("/page", BaseResource.class);
+
+    assertNull(store.get("/page", BaseResource.class));
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testStartRevalidation() {
+    assertTrue(store.startRevalidation("/page", BaseResource.class));
+    assertFalse(store.startRevalidation("/page", BaseResource.class));
+    assertTrue(store.startRevalidation("/page", BaseSlingModel.class));
+
+    store.finishRevalidation("/page", BaseResource.class);
+
+    assertTrue(store.startRevalidation("/page", BaseResource.class));
+  }
+
+  @Test
+  public void testClear() {
+    store.put(createResult("/page", BaseResource.class));
+    store.invalidate("/page");
+
+    store.clear();
+
+    assertEquals(0, store.size());
+    assertSame(memoryStore, store.getStore());
+  }
+
+  private CachedValidationResult createResult(final String path, final Class<?> type,
+          final String... readPaths) {
+    return new CachedValidationResult(path, type, 1L, Collections.emptyList(),
+            Collections.emptyList(), Arrays.asList(readPaths));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.CACHED;
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.ERRORS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SummarizedValidationResultStoreTest {
+
+  private BoundedValidationResultStore boundedStore;
+  private SummarizedValidationResultStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    boundedStore = new BoundedValidationResultStore(100_000L);
+    store = new SummarizedValidationResultStore(boundedStore, 10_000L);
+  }
+
+  @Test
+  public void testPut() {
+    CachedValidationResult result = createResult("/page");
+
+    store.put(result);
+
+    assertSame(result, store.get("/page", BaseResource.class));
+    assertEquals(CACHED | ERRORS,
+            store.getSummaryIndex().getFlags("/page", BaseResource.class, 1L));
+    assertSame(boundedStore, store.getStore());
+    assertEquals(10_000L, store.getSummaryIndex().getMaximumWeight());
+  }
+
+  @Test
+  public void testPutWhenReadingOtherResources() {
+    store.put(createResult("/page"));
+    CachedValidationResult result = createResult("/page", "/reference");
+
+    store.put(result);
+
+    assertSame(result, store.get("/page", BaseResource.class));
+    assertEquals(0, store.getSummaryIndex().getFlags("/page", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testPutWhenMessagesEvicted() {
+    store.put(createResult("/page"));
+
+    boundedStore.invalidate("/page");
+
+    assertNull(store.get("/page", BaseResource.class));
+    assertEquals(CACHED | ERRORS,
+            store.getSummaryIndex().getFlags("/page", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testInvalidate() {
+    store.put(createResult("/page"));
+
+    store.invalidate("/page", BaseResource.class);
+
+    assertNull(store.get("/page", BaseResource.class));
+    assertEquals(0, store.getSummaryIndex().getFlags("/page", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testInvalidateDescendants() {
+    store.put(createResult("/content/page"));
+
+    store.invalidateDescendants("/content");
+
+    assertEquals(0, store.size());
+    assertEquals(0, store.getSummaryIndex().size());
+  }
+
+  @Test
+  public void testInvalidateDependents() {
+    store.put(createResult("/page", "/reference"));
+
+    store.invalidateDependents("/reference", false);
+
+    assertNull(store.get("/page", BaseResource.class));
+    assertEquals(0, store.getSummaryIndex().size());
+  }
+
+  @Test
+  public void testClear() {
+    store.put(createResult("/page"));
+
+    store.clear();
+
+    assertEquals(0, store.size());
+    assertEquals(0, store.getSummaryIndex().size());
+  }
+
+  private CachedValidationResult createResult(final String path, final String... readPaths) {
+    return new CachedValidationResult(path, BaseResource.class, 1L, Arrays.asList("error"),
+            Collections.emptyList(), Arrays.asList(readPaths));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.cache;
+
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.CACHED;
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.ERRORS;
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.STALE;
+import static io.kestros.commons.validation.api.cache.ValidationSummaryIndex.WARNINGS;
+import static org.junit.Assert.assertEquals;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValidationSummaryIndexTest {
+
+  private ValidationSummaryIndex summaryIndex;
+
+  @Before
+  public void setUp() throws Exception {
+    summaryIndex = new ValidationSummaryIndex(100_000L);
+  }
+
+  @Test
+  public void testGetFlags() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, false));
+    summaryIndex.put(createResult("/page", BaseSlingModel.class, 1L, false, true));
+
+    assertEquals(CACHED | ERRORS, summaryIndex.getFlags("/page", BaseResource.class, 1L));
+    assertEquals(CACHED | WARNINGS, summaryIndex.getFlags("/page", BaseSlingModel.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/page", BaseResource.class, 2L));
+    assertEquals(0, summaryIndex.getFlags("/other", BaseResource.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/page", String.class, 1L));
+    assertEquals(1, summaryIndex.size());
+  }
+
+  @Test
+  public void testGetFlagsWhenStale() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, true).asStale());
+
+    assertEquals(CACHED | ERRORS | WARNINGS | STALE,
+            summaryIndex.getFlags("/page", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testPutWhenReplacing() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, false));
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, false, false));
+
+    assertEquals(CACHED, summaryIndex.getFlags("/page", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testPutWhenRevisionChanged() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, false));
+    summaryIndex.put(createResult("/page", BaseSlingModel.class, 2L, false, false));
+
+    assertEquals(0, summaryIndex.getFlags("/page", BaseResource.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/page", BaseResource.class, 2L));
+    assertEquals(CACHED, summaryIndex.getFlags("/page", BaseSlingModel.class, 2L));
+  }
+
+  @Test
+  public void testPutWhenManyModelTypes() {
+    List<Class<?>> types = new ArrayList<>(Arrays.asList(BaseResource.class,
+            BaseSlingModel.class, String.class, Integer.class, Long.class, Short.class,
+            Byte.class, Double.class, Float.class, Character.class, Boolean.class, Object.class,
+            Number.class, List.class, ArrayList.class, Arrays.class, Collections.class));
+    for (int i = 0; i < types.size(); i++) {
+      summaryIndex.put(createResult("/page", types.get(i), 1L, i % 2 == 0, false));
+    }
+
+    for (int i = 0; i < types.size(); i++) {
+      assertEquals(i % 2 == 0 ? CACHED | ERRORS : CACHED,
+              summaryIndex.getFlags("/page", types.get(i), 1L));
+    }
+  }
+
+  @Test
+  public void testRemove() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, false));
+    summaryIndex.put(createResult("/page", BaseSlingModel.class, 1L, true, false));
+
+    summaryIndex.remove("/page", BaseResource.class);
+
+    assertEquals(0, summaryIndex.getFlags("/page", BaseResource.class, 1L));
+    assertEquals(CACHED | ERRORS, summaryIndex.getFlags("/page", BaseSlingModel.class, 1L));
+
+    summaryIndex.remove("/page", BaseSlingModel.class);
+
+    assertEquals(0, summaryIndex.size());
+  }
+
+  @Test
+  public void testRemoveDescendants() {
+    summaryIndex.put(createResult("/content", BaseResource.class, 1L, false, false));
+    summaryIndex.put(createResult("/content/page", BaseResource.class, 1L, false, false));
+    summaryIndex.put(createResult("/contents", BaseResource.class, 1L, false, false));
+
+    summaryIndex.removeDescendants("/content");
+
+    assertEquals(CACHED, summaryIndex.getFlags("/content", BaseResource.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/content/page", BaseResource.class, 1L));
+    assertEquals(CACHED, summaryIndex.getFlags("/contents", BaseResource.class, 1L));
+  }
+
+  @Test
+  public void testPutWhenReadingOtherResources() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, true, false));
+    summaryIndex.put(createResult("/page", BaseSlingModel.class, 1L, true, false));
+
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, false, false, "/reference"));
+
+    assertEquals(0, summaryIndex.getFlags("/page", BaseResource.class, 1L));
+    assertEquals(CACHED | ERRORS, summaryIndex.getFlags("/page", BaseSlingModel.class, 1L));
+  }
+
+  @Test
+  public void testPutWhenGenerationFull() {
+    summaryIndex = new ValidationSummaryIndex(512L);
+    for (String path : Arrays.asList("/a", "/b", "/c", "/a", "/d", "/e")) {
+      summaryIndex.put(createResult(path, BaseResource.class, 1L, false, false));
+    }
+
+    assertEquals(CACHED, summaryIndex.getFlags("/a", BaseResource.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/b", BaseResource.class, 1L));
+    assertEquals(0, summaryIndex.getFlags("/c", BaseResource.class, 1L));
+    assertEquals(CACHED, summaryIndex.getFlags("/e", BaseResource.class, 1L));
+    assertEquals(3, summaryIndex.size());
+    assertEquals(512L, summaryIndex.getMaximumWeight());
+  }
+
+  @Test
+  public void testRemoveWhenInOldGeneration() {
+    summaryIndex = new ValidationSummaryIndex(256L);
+    summaryIndex.put(createResult("/a", BaseResource.class, 1L, false, false));
+    summaryIndex.put(createResult("/b", BaseResource.class, 1L, false, false));
+
+    summaryIndex.remove("/a", BaseResource.class);
+    summaryIndex.removeDescendants("/");
+
+    assertEquals(0, summaryIndex.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorWhenMaximumWeightIsNotPositive() {
+    new ValidationSummaryIndex(0L);
+  }
+
+  @Test
+  public void testClear() {
+    summaryIndex.put(createResult("/page", BaseResource.class, 1L, false, false));
+
+    summaryIndex.clear();
+
+    assertEquals(0, summaryIndex.size());
+  }
+
+  private CachedValidationResult createResult(final String path, final Class<?> type,
+          final long revision, final boolean errors, final boolean warnings,
+          final String... readPaths) {
+    return new CachedValidationResult(path, type, revision,
+            errors ? Arrays.asList("error") : Collections.emptyList(),
+            warnings ? Arrays.asList("warning") : Collections.emptyList(),
+            Arrays.asList(readPaths));
+  }
+}
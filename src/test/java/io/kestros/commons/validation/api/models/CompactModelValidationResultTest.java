@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static io.kestros.commons.validation.api.ModelValidationMessageType.ERROR;
+import static io.kestros.commons.validation.api.ModelValidationMessageType.INFO;
+import static io.kestros.commons.validation.api.ModelValidationMessageType.WARNING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.exceptions.ValidationDeadlineExceededException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactModelValidationResultTest {
+
+  private BaseResource model;
+  private ModelValidator modelValidator1;
+  private ModelValidator modelValidator2;
+  private ModelValidator modelValidator3;
+
+  @Before
+  public void setUp() throws Exception {
+    model = mock(BaseResource.class);
+    modelValidator1 = createValidator(ERROR, true, "error1");
+    modelValidator2 = createValidator(ERROR, false, "error2");
+    modelValidator3 = createValidator(WARNING, false, "warning1");
+  }
+
+  @Test
+  public void testValidate() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator3)));
+
+    assertSame(model, result.getModel());
+    assertFalse(result.isValid());
+    assertTrue(result.isPassed(0));
+    assertFalse(result.isPassed(1));
+    assertFalse(result.isPassed(2));
+    assertTrue(result.hasFailures(ERROR));
+    assertTrue(result.hasFailures(WARNING));
+    assertFalse(result.hasFailures(INFO));
+    assertEquals(3, result.getValidators().size());
+  }
+
+  @Test
+  public void testGetMessages() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator3)));
+
+    assertEquals(Arrays.asList("error2"), result.getMessages().get(ERROR));
+    assertEquals(Arrays.asList("warning1"), result.getMessages().get(WARNING));
+    assertEquals(0, result.getMessages().get(INFO).size());
+  }
+
+  @Test
+  public void testGetResults() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator3)));
+
+    assertEquals(3, result.getResults().size());
+    assertTrue(result.getResults().get(0).isValid());
+    assertFalse(result.getResults().get(1).isValid());
+    assertEquals("error2", result.getResults().get(1).getMessage());
+    assertEquals(ERROR, result.getResults().get(1).getType());
+    assertNull(result.getResults().get(1).getBundled());
+    assertNull(result.getResults().get(1).getDocumentationResourceType());
+    assertEquals(0, result.getResults().get(0).getMessages().size());
+    assertEquals(Arrays.asList("error2"), result.getResults().get(1).getMessages().get(ERROR));
+  }
+
+  @Test
+  public void testValidateWhenFullMode() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator3)),
+            ModelValidationMode.FULL);
+
+    assertFalse(result.isPartial());
+    assertEquals(0, result.getSkippedValidators().size());
+  }
+
+  @Test
+  public void testValidateWhenErrorsOnly() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator3, modelValidator1, modelValidator2)),
+            ModelValidationMode.ERRORS_ONLY);
+
+    assertTrue(result.isPartial());
+    assertFalse(result.isValid());
+    assertFalse(result.isEvaluated(0));
+    assertTrue(result.isEvaluated(2));
+    assertFalse(result.hasFailures(WARNING));
+    assertEquals(Arrays.asList(modelValidator3), result.getSkippedValidators());
+    assertEquals(Arrays.asList(modelValidator1, modelValidator2), result.getValidators());
+    assertEquals(2, result.getResults().size());
+    assertEquals(0, result.getMessages().get(WARNING).size());
+    assertEquals(Arrays.asList("error2"), result.getMessages().get(ERROR));
+    verify(modelValidator3, never()).isValidCheck(model);
+  }
+
+  @Test
+  public void testValidateWhenFailFast() {
+    ModelValidator modelValidator4 = createValidator(ERROR, false, "error3");
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator4)),
+            ModelValidationMode.FAIL_FAST);
+
+    assertTrue(result.isPartial());
+    assertFalse(result.isValid());
+    assertEquals(Arrays.asList(modelValidator4), result.getSkippedValidators());
+    assertEquals(Arrays.asList("error2"), result.getMessages().get(ERROR));
+    verify(modelValidator4, never()).isValidCheck(model);
+  }
+
+  @Test
+  public void testValidateWhenFailFastAndAllPass() {
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(modelValidator1, modelValidator1)),
+            ModelValidationMode.FAIL_FAST);
+
+    assertFalse(result.isPartial());
+    assertTrue(result.isValid());
+  }
+
+  @Test
+  public void testValidateWhenDeadlineExceeded() {
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+              CompiledValidatorPlan.compile(Arrays.asList(modelValidator1, modelValidator2)));
+
+      assertTrue(result.isPartial());
+      assertTrue(result.isValid());
+      assertEquals(Arrays.asList(modelValidator1, modelValidator2),
+              result.getSkippedValidators());
+      verify(modelValidator1, never()).isValidCheck(model);
+    }
+  }
+
+  @Test
+  public void testValidateWhenValidatorExceedsDeadline() {
+    ModelValidator modelValidator4 = createValidator(ERROR, false, "error3");
+    when(modelValidator4.isValidCheck(model)).thenThrow(new ValidationDeadlineExceededException());
+
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator4, modelValidator2)));
+
+    assertTrue(result.isPartial());
+    assertTrue(result.isValid());
+    assertEquals(Arrays.asList(modelValidator4, modelValidator2), result.getSkippedValidators());
+  }
+
+  @Test
+  public void testCyclic() {
+    CompactModelValidationResult result = CompactModelValidationResult.cyclic(model,
+            CompiledValidatorPlan.compile(Arrays.asList(modelValidator1, modelValidator3)));
+
+    assertTrue(result.isCyclic());
+    assertFalse(result.isValid());
+    assertTrue(result.isPartial());
+    assertTrue(result.hasFailures(ERROR));
+    assertFalse(result.hasFailures(WARNING));
+    assertEquals(0, result.getResults().size());
+    assertEquals(Arrays.asList(modelValidator1, modelValidator3),
+            result.getSkippedValidators());
+    assertEquals(Arrays.asList(CompactModelValidationResult.CYCLE_MESSAGE),
+            result.getMessages().get(ERROR));
+  }
+
+  @Test
+  public void testRevalidate() {
+    when(modelValidator1.getDependencies()).thenReturn(
+            ValidatorDependencies.properties("jcr:title"));
+    when(modelValidator2.getDependencies()).thenReturn(
+            ValidatorDependencies.properties("jcr:description"));
+    when(modelValidator3.getDependencies()).thenReturn(ValidatorDependencies.UNKNOWN);
+    CompactModelValidationResult previous = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(
+                    Arrays.asList(modelValidator1, modelValidator2, modelValidator3)));
+    when(modelValidator1.isValidCheck(model)).thenReturn(false);
+    when(modelValidator2.isValidCheck(model)).thenReturn(true);
+    when(modelValidator3.isValidCheck(model)).thenReturn(true);
+
+    CompactModelValidationResult result = CompactModelValidationResult.revalidate(model,
+            previous, ModelChangeSet.properties("jcr:title"));
+
+    assertFalse(result.isPartial());
+    assertFalse(result.isPassed(0));
+    assertFalse(result.isPassed(1));
+    assertTrue(result.isPassed(2));
+    verify(modelValidator2, times(1)).isValidCheck(model);
+  }
+
+  @Test
+  public void testRevalidateWhenPreviousWasPartial() {
+    when(modelValidator1.getDependencies()).thenReturn(ValidatorDependencies.NONE);
+    when(modelValidator3.getDependencies()).thenReturn(ValidatorDependencies.NONE);
+    CompactModelValidationResult previous = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(modelValidator1, modelValidator3)),
+            ModelValidationMode.ERRORS_ONLY);
+
+    CompactModelValidationResult result = CompactModelValidationResult.revalidate(model,
+            previous, ModelChangeSet.properties("jcr:title"));
+
+    assertTrue(previous.isPartial());
+    assertFalse(result.isPartial());
+    assertTrue(result.hasFailures(WARNING));
+    verify(modelValidator1, times(1)).isValidCheck(model);
+  }
+
+  @Test
+  public void testValidateWhenMoreThan64Validators() {
+    List<ModelValidator> validators = new ArrayList<>();
+    for (int i = 0; i < 70; i++) {
+      validators.add(modelValidator1);
+    }
+    validators.add(modelValidator3);
+
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(validators));
+
+    assertTrue(result.isValid());
+    assertTrue(result.isPassed(69));
+    assertFalse(result.isPassed(70));
+    assertEquals(1, result.getMessages().get(WARNING).size());
+  }
+
+  @Test
+  public void testValidateWhenTopLevelParallelBundleIsUnregistered() {
+    ModelValidatorBundle<BaseResource> bundle = createBundle(true, true,
+            new CountingValidator(ERROR, true), new CountingValidator(ERROR, false));
+
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(bundle)),
+            ModelValidationMode.ERRORS_ONLY);
+
+    assertFalse(result.isPartial());
+    assertFalse(result.isValid());
+    assertTrue(result.hasFailures(ERROR));
+    assertEquals(Arrays.asList("bundle"), result.getMessages().get(ERROR));
+    assertEquals(0, result.getMessages().get(INFO).size());
+  }
+
+  @Test
+  public void testGetBundled() {
+    CountingValidator validator1 = new CountingValidator(ERROR, true);
+    CountingValidator validator2 = new CountingValidator(ERROR, false);
+    CountingValidator validator3 = new CountingValidator(ERROR, true);
+    CountingValidator validator4 = new CountingValidator(WARNING, false);
+    ModelValidatorBundle<BaseResource> bundle = createBundle(true, false, validator1,
+            createBundle(false, false, validator2, validator3), validator4);
+
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(bundle, validator1)));
+    List<ValidatorResult> bundled = result.getResults().get(0).getBundled();
+
+    assertFalse(result.isValid());
+    assertEquals(3, bundled.size());
+    assertTrue(bundled.get(0).isValid());
+    assertTrue(bundled.get(1).isValid());
+    assertFalse(bundled.get(2).isValid());
+    assertEquals(2, bundled.get(1).getBundled().size());
+    assertFalse(bundled.get(1).getBundled().get(0).isValid());
+    assertTrue(bundled.get(1).getBundled().get(1).isValid());
+    assertNull(result.getResults().get(1).getBundled());
+    assertEquals(2, validator1.runs.get());
+    assertEquals(1, validator2.runs.get());
+    assertEquals(1, validator4.runs.get());
+  }
+
+  @Test
+  public void testGetBundledWhenShortCircuited() {
+    CountingValidator validator1 = new CountingValidator(ERROR, false);
+    CountingValidator validator2 = new CountingValidator(ERROR, true);
+    ModelValidatorBundle<BaseResource> bundle = createBundle(true, false, validator1,
+            validator2);
+
+    CompactModelValidationResult result = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(bundle)));
+    List<ValidatorResult> bundled = result.getResults().get(0).getBundled();
+
+    assertEquals(1, bundled.size());
+    assertFalse(bundled.get(0).isValid());
+    assertEquals(0, validator2.runs.get());
+  }
+
+  @Test
+  public void testRevalidateKeepsBundledOutcomes() {
+    CountingValidator validator1 = new CountingValidator(ERROR, true);
+    CountingValidator validator2 = new CountingValidator(ERROR, false);
+    ModelValidatorBundle<BaseResource> bundle = createBundle(false, false, validator1,
+            validator2);
+    CompactModelValidationResult previous = CompactModelValidationResult.validate(model,
+            CompiledValidatorPlan.compile(Arrays.asList(bundle, validator2)));
+
+    CompactModelValidationResult result = CompactModelValidationResult.revalidate(model,
+            previous, ModelChangeSet.properties("jcr:title"));
+
+    assertEquals(1, result.getResults().get(0).getBundled().size());
+    assertTrue(result.getResults().get(0).getBundled().get(0).isValid());
+  }
+
+  private static ModelValidatorBundle<BaseResource> createBundle(final boolean allMustBeTrue,
+          final boolean parallel, final ModelValidator<BaseResource>... validators) {
+    return new ModelValidatorBundle<BaseResource>() {
+      @Override
+      public void registerValidators() {
+        addAllValidators(Arrays.asList(validators));
+      }
+
+      @Override
+      public boolean isAllMustBeTrue() {
+        return allMustBeTrue;
+      }
+
+      @Override
+      public boolean isParallelEvaluation() {
+        return parallel;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "bundle";
+      }
+    };
+  }
+
+  private static final class CountingValidator extends ModelValidator<BaseResource> {
+
+    private final ModelValidationMessageType type;
+    private final boolean valid;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private CountingValidator(final ModelValidationMessageType type, final boolean valid) {
+      this.type = type;
+      this.valid = valid;
+    }
+
+    @Override
+    public boolean test(@Nonnull final BaseResource model) {
+      runs.incrementAndGet();
+      return valid;
+    }
+
+    @Nonnull
+    @Override
+    public String getMessage() {
+      return "counting";
+    }
+
+    @Nonnull
+    @Override
+    public String getDetailedMessage(@Nonnull final BaseResource model) {
+      return "counting";
+    }
+
+    @Nonnull
+    @Override
+    public ModelValidationMessageType getType() {
+      return type;
+    }
+
+    @Nonnull
+    @Override
+    public ValidatorDependencies getDependencies() {
+      return ValidatorDependencies.NONE;
+    }
+  }
+
+  private ModelValidator createValidator(final ModelValidationMessageType type,
+          final boolean valid, final String message) {
+    ModelValidator validator = mock(ModelValidator.class);
+    when(validator.getType()).thenReturn(type);
+    when(validator.isValidCheck(model)).thenReturn(valid);
+    when(validator.getMessage()).thenReturn(message);
+    return validator;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledValidatorPlanTest {
+
+  private ModelValidator modelValidator1;
+  private ModelValidator modelValidator2;
+  private ModelValidator modelValidator3;
+  private BaseResource model;
+
+  @Before
+  public void setUp() throws Exception {
+    modelValidator1 = mock(ModelValidator.class);
+    modelValidator2 = mock(ModelValidator.class);
+    modelValidator3 = mock(ModelValidator.class);
+    model = mock(BaseResource.class);
+  }
+
+  @Test
+  public void testCompileWhenEmpty() {
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(Collections.emptyList());
+
+    assertEquals(0, plan.size());
+    assertEquals(0, plan.getLeafCount());
+    assertTrue(plan.isAllValid(model));
+  }
+
+  @Test
+  public void testIsValid() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    when(modelValidator2.isValidCheck(model)).thenReturn(false);
+
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(
+            Arrays.asList(modelValidator1, modelValidator2));
+
+    assertEquals(2, plan.size());
+    assertEquals(modelValidator2, plan.getValidator(1));
+    assertTrue(plan.isValid(0, model));
+    assertFalse(plan.isValid(1, model));
+    assertFalse(plan.isAllValid(model));
+  }
+
+  @Test
+  public void testIsValidWhenNestedBundles() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(false);
+    when(modelValidator2.isValidCheck(model)).thenReturn(true);
+    when(modelValidator3.isValidCheck(model)).thenReturn(false);
+
+    ModelValidatorBundle anyBundle = createBundle(false, modelValidator1, modelValidator2);
+    ModelValidatorBundle allBundle = createBundle(true, anyBundle, modelValidator3);
+
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(
+            Arrays.asList(anyBundle, allBundle));
+
+    assertEquals(2, plan.size());
+    assertEquals(5, plan.getLeafCount());
+    assertTrue(plan.isValid(0, model));
+    assertFalse(plan.isValid(1, model));
+  }
+
+  @Test
+  public void testIsValidShortCircuitsWhenAllMustBeTrue() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(false);
+
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(
+            Collections.singletonList(createBundle(true, modelValidator1, modelValidator2)));
+
+    assertFalse(plan.isValid(0, model));
+    verify(modelValidator2, never()).isValidCheck(model);
+  }
+
+  @Test
+  public void testIsValidShortCircuitsWhenOneMustBeTrue() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(
+            Collections.singletonList(createBundle(false, modelValidator1, modelValidator2)));
+
+    assertTrue(plan.isValid(0, model));
+    verify(modelValidator2, never()).isValidCheck(model);
+  }
+
+  @Test
+  public void testIsValidWhenBundleIsEmpty() {
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(
+            Collections.singletonList(createBundle(true)));
+
+    assertEquals(0, plan.getLeafCount());
+    assertTrue(plan.isValid(0, model));
+  }
+
+  @Test
+  public void testCompileWhenBundleOverridesIsValidCheck() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    ModelValidatorBundle bundle = new ModelValidatorBundle() {
+      @Override
+      public void registerValidators() {
+        addValidator(modelValidator1);
+      }
+
+      @Override
+      public boolean isAllMustBeTrue() {
+        return true;
+      }
+
+      @Nonnull
+      @Override
+      public Boolean isValidCheck(@Nonnull final BaseSlingModel model) {
+        return false;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "bundle";
+      }
+    };
+
+    CompiledValidatorPlan plan = CompiledValidatorPlan.compile(Collections.singletonList(bundle));
+
+    assertEquals(1, plan.getLeafCount());
+    assertFalse(plan.isValid(0, model));
+  }
+
+  private ModelValidatorBundle createBundle(final boolean allMustBeTrue,
+          final ModelValidator... validators) {
+    return new ModelValidatorBundle() {
+      @Override
+      public void registerValidators() {
+        addAllValidators((List) Arrays.asList(validators));
+      }
+
+      @Override
+      public boolean isAllMustBeTrue() {
+        return allMustBeTrue;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "bundle";
+      }
+    };
+  }
+}
@@ -32,6 +32,15 @@ import io.kestros.commons.structuredslingmodels.BaseResource;
 import io.kestros.commons.validation.api.ModelValidationMessageType;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nonnull;
 import org.junit.Before;
 import org.junit.Test;
@@ -225,4 +234,250 @@ public class ModelValidatorBundleTest {
     modelValidatorBundle.addAllValidators(modelValidatorList);
     assertEquals(3, modelValidatorBundle.getValidators().size());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testGetDependencies() {
+    when(modelValidator1.getDependencies()).thenReturn(
+            ValidatorDependencies.properties("jcr:title"));
+    when(modelValidator2.getDependencies()).thenReturn(ValidatorDependencies.children("child"));
+    modelValidatorBundle.addValidator(modelValidator1);
+    modelValidatorBundle.addValidator(modelValidator2);
+
+    assertTrue(modelValidatorBundle.getDependencies().getProperties().contains("jcr:title"));
+    assertTrue(modelValidatorBundle.getDependencies().getChildren().contains("child"));
+
+    when(modelValidator3.getDependencies()).thenReturn(ValidatorDependencies.UNKNOWN);
+    modelValidatorBundle.addValidator(modelValidator3);
+
+    assertTrue(modelValidatorBundle.getDependencies().isUnknown());
+  }
+
+  @Test
+  public void testIsValidCheckWhenCalledConcurrentlyRegistersOnce() throws Exception {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    when(modelValidator2.isValidCheck(model)).thenReturn(true);
+    final AtomicInteger registrations = new AtomicInteger();
+    final ModelValidatorBundle bundle = new ModelValidatorBundle() {
+      @Override
+      public void registerValidators() {
+        registrations.incrementAndGet();
+        addValidator(modelValidator1);
+        addValidator(modelValidator2);
+      }
+
+      @Override
+      public boolean isAllMustBeTrue() {
+        return true;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "bundle";
+      }
+    };
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(8);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final List<Future<Boolean>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(executorService.submit((Callable<Boolean>) () -> {
+        latch.await();
+        return bundle.isValidCheck(model);
+      }));
+    }
+    latch.countDown();
+    for (Future<Boolean> future : futures) {
+      assertTrue(future.get());
+    }
+    executorService.shutdown();
+
+    assertEquals(2, bundle.getValidators().size());
+    assertTrue(registrations.get() >= 1);
+  }
+
+  @Test
+  public void testIsValidCheckWhenAdaptiveOrdering() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    when(modelValidator2.isValidCheck(model)).thenReturn(false);
+    modelValidatorList.add(modelValidator1);
+    modelValidatorList.add(modelValidator2);
+
+    doReturn(true).when(modelValidatorBundle).isAllMustBeTrue();
+    doReturn(true).when(modelValidatorBundle).isAdaptiveOrdering();
+
+    modelValidatorBundle.addAllValidators(modelValidatorList);
+    assertEquals(modelValidator1, modelValidatorBundle.getEvaluationOrder().get(0));
+    for (int i = 0; i < AdaptiveValidatorOrdering.REORDER_INTERVAL; i++) {
+      assertFalse(modelValidatorBundle.isValidCheck(model));
+    }
+    assertEquals(modelValidator2, modelValidatorBundle.getEvaluationOrder().get(0));
+    assertEquals(modelValidator1, modelValidatorBundle.getEvaluationOrder().get(1));
+    assertTrue(modelValidatorBundle.getAdaptiveValidatorOrdering().getPassRate(modelValidator2)
+            < 0.01);
+  }
+
+  @Test
+  public void testIsValidCheckWhenParallelEvaluationAndAllMustBeTrue() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    when(modelValidator2.isValidCheck(model)).thenReturn(false);
+    when(modelValidator3.isValidCheck(model)).thenReturn(true);
+    modelValidatorList.add(modelValidator1);
+    modelValidatorList.add(modelValidator2);
+    modelValidatorList.add(modelValidator3);
+
+    doReturn(true).when(modelValidatorBundle).isAllMustBeTrue();
+    doReturn(true).when(modelValidatorBundle).isParallelEvaluation();
+
+    modelValidatorBundle.addAllValidators(modelValidatorList);
+    assertFalse(modelValidatorBundle.isValidCheck(model));
+  }
+
+  @Test
+  public void testIsValidCheckWhenParallelEvaluationAndAllPass() {
+    when(modelValidator1.isValidCheck(model)).thenReturn(true);
+    when(modelValidator2.isValidCheck(model)).thenReturn(true);
+    modelValidatorList.add(modelValidator1);
+    modelValidatorList.add(modelValidator2);
+
+    doReturn(true).when(modelValidatorBundle).isAllMustBeTrue();
+    doReturn(true).when(modelValidatorBundle).isParallelEvaluation();
+
+    modelValidatorBundle.addAllValidators(modelValidatorList);
+    assertTrue(modelValidatorBundle.isValidCheck(model));
+  }
+
+  @Test(timeout = 10000)
+  public void testIsValidCheckWhenNestedParallelBundlesShareSingleThreadPool() {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      ModelValidatorBundle<BaseResource> outer = createParallelBundle(pool,
+              createParallelBundle(pool, createValidator(true), createValidator(true)),
+              createParallelBundle(pool, createValidator(true), createValidator(true)));
+
+      assertTrue(outer.test(model));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 10000, expected = IllegalStateException.class)
+  public void testIsValidCheckWhenParallelEvaluationAndEarlierValidatorThrows() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch decided = new CountDownLatch(1);
+    try {
+      ModelValidatorBundle<BaseResource> bundle = createParallelBundle(executor,
+              createValidator(() -> {
+                awaitUninterruptibly(decided);
+                throw new IllegalStateException();
+              }), createValidator(() -> {
+                decided.countDown();
+                return false;
+              }));
+
+      bundle.test(model);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testIsValidCheckWhenParallelEvaluationAndLaterValidatorThrows() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch decided = new CountDownLatch(1);
+    try {
+      ModelValidatorBundle<BaseResource> bundle = createParallelBundle(executor,
+              createValidator(() -> {
+                awaitUninterruptibly(decided);
+                return false;
+              }), createValidator(() -> {
+                decided.countDown();
+                throw new IllegalStateException();
+              }));
+
+      assertFalse(bundle.test(model));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void awaitUninterruptibly(final CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (final InterruptedException exception) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static ModelValidatorBundle<BaseResource> createParallelBundle(final Executor executor,
+          final ModelValidator<BaseResource>... validators) {
+    return new ModelValidatorBundle<BaseResource>() {
+      @Override
+      public void registerValidators() {
+        for (ModelValidator<BaseResource> validator : validators) {
+          addValidator(validator);
+        }
+      }
+
+      @Override
+      public boolean isAllMustBeTrue() {
+        return true;
+      }
+
+      @Override
+      public boolean isParallelEvaluation() {
+        return true;
+      }
+
+      @Nonnull
+      @Override
+      public Executor getParallelExecutor() {
+        return executor;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "bundle";
+      }
+    };
+  }
+
+  private static ModelValidator<BaseResource> createValidator(final boolean valid) {
+    return createValidator(() -> valid);
+  }
+
+  private static ModelValidator<BaseResource> createValidator(final BooleanSupplier test) {
+    return new ModelValidator<BaseResource>() {
+      @Override
+      public boolean test(@Nonnull final BaseResource model) {
+        return test.getAsBoolean();
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "validator";
+      }
+
+      @Nonnull
+      @Override
+      public String getDetailedMessage(@Nonnull final BaseResource model) {
+        return "validator";
+      }
+
+      @Nonnull
+      @Override
+      public ModelValidationMessageType getType() {
+        return ModelValidationMessageType.ERROR;
+      }
+    };
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import javax.annotation.Nonnull;
+import org.junit.Test;
+
+public class ModelValidatorTest {
+
+  private BaseResource model = mock(BaseResource.class);
+
+  @Test
+  public void testTestWhenIsValidCheckIsOverridden() {
+    assertTrue(create(Boolean.TRUE).test(model));
+    assertFalse(create(Boolean.FALSE).test(model));
+  }
+
+  @Test
+  public void testTestWhenIsValidCheckReturnsNull() {
+    assertFalse(create(null).test(model));
+  }
+
+  @Test
+  public void testIsValidCheckWhenTestIsOverridden() {
+    ModelValidator<BaseResource> validator = new ModelValidator<BaseResource>() {
+      @Override
+      public boolean test(@Nonnull BaseResource model) {
+        return true;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "message";
+      }
+
+      @Nonnull
+      @Override
+      public String getDetailedMessage(@Nonnull BaseResource model) {
+        return "detailed-message";
+      }
+
+      @Nonnull
+      @Override
+      public ModelValidationMessageType getType() {
+        return ModelValidationMessageType.ERROR;
+      }
+    };
+    assertEquals(Boolean.TRUE, validator.isValidCheck(model));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testConstructorWhenNeitherTestNorIsValidCheckIsOverridden() {
+    new ModelValidator<BaseResource>() {
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "message";
+      }
+
+      @Nonnull
+      @Override
+      public String getDetailedMessage(@Nonnull BaseResource model) {
+        return "detailed-message";
+      }
+
+      @Nonnull
+      @Override
+      public ModelValidationMessageType getType() {
+        return ModelValidationMessageType.ERROR;
+      }
+    };
+  }
+
+  @Test
+  public void testEvaluateWhenIsValidCheckIsOverridden() {
+    assertTrue(ModelValidator.evaluate(create(Boolean.TRUE), model));
+    assertFalse(ModelValidator.evaluate(create(null), model));
+  }
+
+  @Test
+  public void testEvaluateWhenMock() {
+    ModelValidator<BaseResource> validator = mock(ModelValidator.class);
+    when(validator.isValidCheck(model)).thenReturn(true);
+
+    assertTrue(ModelValidator.evaluate(validator, model));
+  }
+
+  private ModelValidator<BaseResource> create(final Boolean valid) {
+    return new ModelValidator<BaseResource>() {
+      @Nonnull
+      @Override
+      public Boolean isValidCheck(@Nonnull BaseResource model) {
+        return valid;
+      }
+
+      @Nonnull
+      @Override
+      public String getMessage() {
+        return "message";
+      }
+
+      @Nonnull
+      @Override
+      public String getDetailedMessage(@Nonnull BaseResource model) {
+        return "detailed-message";
+      }
+
+      @Nonnull
+      @Override
+      public ModelValidationMessageType getType() {
+        return ModelValidationMessageType.ERROR;
+      }
+    };
+  }
+}
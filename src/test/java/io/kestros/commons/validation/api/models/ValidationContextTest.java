@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.exceptions.ChildResourceNotFoundException;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.exceptions.ValidationDeadlineExceededException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.sling.api.resource.Resource;
+import org.junit.Test;
+
+public class ValidationContextTest {
+
+  @Test
+  public void testOpen() {
+    assertNull(ValidationContext.getCurrent());
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      assertNotNull(scope.getContext());
+      assertSame(scope.getContext(), ValidationContext.getCurrent());
+    }
+    assertNull(ValidationContext.getCurrent());
+  }
+
+  @Test
+  public void testOpenWhenNested() {
+    try (ValidationContext.Scope outer = ValidationContext.open()) {
+      try (ValidationContext.Scope inner = ValidationContext.open()) {
+        assertSame(outer.getContext(), inner.getContext());
+      }
+      assertSame(outer.getContext(), ValidationContext.getCurrent());
+    }
+    assertNull(ValidationContext.getCurrent());
+  }
+
+  @Test
+  public void testEnterWhenNull() {
+    try (ValidationContext.Scope scope = ValidationContext.enter(null)) {
+      assertNull(scope.getContext());
+      assertNull(ValidationContext.getCurrent());
+    }
+  }
+
+  @Test
+  public void testWrap() throws Exception {
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      assertEquals(scope.getContext(),
+              executorService.submit(ValidationContext.wrap(ValidationContext::getCurrent))
+                      .get());
+    }
+    assertNull(executorService.submit(ValidationContext::getCurrent).get());
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testOpenWhenBudget() {
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ofHours(1))) {
+      assertFalse(scope.getContext().isDeadlineExceeded());
+      scope.getContext().checkDeadline();
+    }
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      assertTrue(scope.getContext().isDeadlineExceeded());
+    }
+  }
+
+  @Test(expected = ValidationDeadlineExceededException.class)
+  public void testCheckDeadlineWhenExceeded() {
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      scope.getContext().checkDeadline();
+    }
+  }
+
+  @Test
+  public void testOpenWhenBudgetAndNested() {
+    try (ValidationContext.Scope outer = ValidationContext.open()) {
+      assertFalse(outer.getContext().isDeadlineExceeded());
+      try (ValidationContext.Scope inner = ValidationContext.open(Duration.ZERO)) {
+        assertSame(outer.getContext(), inner.getContext());
+        assertTrue(outer.getContext().isDeadlineExceeded());
+        try (ValidationContext.Scope innermost = ValidationContext.open(Duration.ofHours(1))) {
+          assertTrue(innermost.getContext().isDeadlineExceeded());
+        }
+      }
+      assertFalse(outer.getContext().isDeadlineExceeded());
+    }
+  }
+
+  @Test
+  public void testWrapCarriesDeadline() throws Exception {
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      final ValidationContext context = scope.getContext();
+      assertTrue(executorService.submit(
+              ValidationContext.wrap(context::isDeadlineExceeded)).get());
+      assertFalse(executorService.submit(() -> {
+        try (ValidationContext.Scope ignored = ValidationContext.enter(context)) {
+          return context.isDeadlineExceeded();
+        }
+      }).get());
+    }
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testOpenWhenBudgetOnAnotherThread() throws Exception {
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ofHours(1))) {
+      final ValidationContext context = scope.getContext();
+      assertTrue(executorService.submit(ValidationContext.wrap(() -> {
+        try (ValidationContext.Scope inner = ValidationContext.open(Duration.ZERO)) {
+          return inner.getContext() == context && context.isDeadlineExceeded();
+        }
+      })).get());
+      assertFalse(context.isDeadlineExceeded());
+      assertFalse(executorService.submit(
+              ValidationContext.wrap(context::isDeadlineExceeded)).get());
+    }
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testValidate() {
+    final BaseResource model = createModel("/model");
+    final ModelValidationResult result = mock(ModelValidationResult.class);
+    final AtomicInteger validations = new AtomicInteger();
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      for (int i = 0; i < 3; i++) {
+        assertSame(result, scope.getContext().validate(model, ModelValidationMode.FULL,
+                member -> {
+                  validations.incrementAndGet();
+                  return result;
+                }));
+      }
+      assertSame(result, scope.getContext().validate(model, ModelValidationMode.FAIL_FAST,
+              member -> null));
+    }
+    assertEquals(1, validations.get());
+  }
+
+  @Test
+  public void testValidateWhenNoPath() {
+    final ModelValidationResult result = mock(ModelValidationResult.class);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      assertSame(result, scope.getContext().validate(null, ModelValidationMode.FULL,
+              member -> result));
+    }
+  }
+
+  @Test
+  public void testValidateWhenCycle() {
+    final BaseResource parent = createModel("/parent");
+    final BaseResource child = createModel("/child");
+    final ModelValidationResult result = mock(ModelValidationResult.class);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      final ValidationContext context = scope.getContext();
+      assertSame(result, context.validate(parent, ModelValidationMode.FULL, member -> {
+        assertSame(result, context.validate(child, ModelValidationMode.FULL, nested -> {
+          assertNull(context.validate(parent, ModelValidationMode.FULL, cyclic -> result));
+          return result;
+        }));
+        return result;
+      }));
+    }
+  }
+
+  @Test
+  public void testDelegate() {
+    final BaseResource model = createModel("/model");
+    final ModelValidationResult result = mock(ModelValidationResult.class);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      final ValidationContext context = scope.getContext();
+      assertSame(result, context.delegate(model, ModelValidationMode.FULL,
+              member -> context.validate(member, ModelValidationMode.FULL, delegated -> {
+                assertNull(context.delegate(delegated, ModelValidationMode.FULL,
+                        cyclic -> result));
+                return result;
+              })));
+    }
+  }
+
+  @Test
+  public void testGetReadPaths() {
+    final BaseResource parent = createModel("/parent");
+    final BaseResource member = createModel("/member");
+    final BaseResource nested = createModel("/nested");
+    final BaseResource other = createModel("/other");
+    final ModelValidationResult result = mock(ModelValidationResult.class);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      final ValidationContext context = scope.getContext();
+      context.validate(member, ModelValidationMode.FULL, validated -> {
+        context.recordRead("/reference");
+        context.validate(nested, ModelValidationMode.FULL, cyclic -> result);
+        return result;
+      });
+      context.validate(parent, ModelValidationMode.FULL, validated -> {
+        context.recordRead("/parent");
+        context.validate(member, ModelValidationMode.ERRORS_ONLY, memoized -> null);
+        return result;
+      });
+
+      assertEquals(new HashSet<>(Arrays.asList("/reference", "/nested")),
+              context.getReadPaths(member));
+      assertEquals(new HashSet<>(Arrays.asList("/member", "/reference", "/nested")),
+              context.getReadPaths(parent));
+      assertTrue(context.getReadPaths(other).isEmpty());
+    }
+  }
+
+  @Test
+  public void testGetChildAsTypeResolvesChildOncePerPass() throws Exception {
+    final Resource resource = mock(Resource.class);
+    final Resource childResource = mock(Resource.class);
+    final BaseResource child = createModel("/parent/child");
+    when(resource.getPath()).thenReturn("/parent");
+    when(resource.getChild("child")).thenReturn(childResource);
+    when(childResource.getPath()).thenReturn("/parent/child");
+    when(childResource.adaptTo(BaseResource.class)).thenReturn(child);
+    when(child.getResource()).thenReturn(childResource);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      final BaseResource first = scope.getContext().getChildAsBaseResource("child", resource);
+      assertSame(first, scope.getContext().getChildAsType("child", resource,
+              BaseResource.class));
+      assertSame(first, scope.getContext().getChildAsBaseResource("child", resource));
+    }
+    verify(resource, times(1)).getChild("child");
+  }
+
+  @Test
+  public void testGetChildAsTypeWhenChildIsMissing() throws Exception {
+    final Resource resource = mock(Resource.class);
+    when(resource.getPath()).thenReturn("/parent");
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      for (int i = 0; i < 2; i++) {
+        try {
+          scope.getContext().getChildAsType("child", resource, BaseResource.class);
+          fail();
+        } catch (final ChildResourceNotFoundException exception) {
+          assertNotNull(exception);
+        }
+      }
+    }
+    verify(resource, times(1)).getChild("child");
+  }
+
+  private BaseResource createModel(final String path) {
+    final BaseResource model = mock(BaseResource.class);
+    when(model.getPath()).thenReturn(path);
+    return model;
+  }
+}
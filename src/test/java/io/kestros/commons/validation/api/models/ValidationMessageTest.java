@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class ValidationMessageTest {
+
+  @Test
+  public void testToString() {
+    assertEquals("Has child resource 'child'.",
+            ValidationMessage.of("Has child resource '%s'.", "child").toString());
+  }
+
+  @Test
+  public void testToStringWhenNoArguments() {
+    assertEquals("100% configured.", ValidationMessage.of("100% configured.").toString());
+  }
+
+  @Test
+  public void testGetTemplate() {
+    ValidationMessage message = ValidationMessage.of("Has child resource '%s'.", "child");
+    assertEquals("Has child resource '%s'.", message.getTemplate());
+    assertEquals(1, message.getArguments().length);
+    assertEquals("child", message.getArguments()[0]);
+  }
+
+  @Test
+  public void testEquals() {
+    assertEquals(ValidationMessage.of("Has child resource '%s'.", "child"),
+            ValidationMessage.of("Has child resource '%s'.", "child"));
+    assertEquals(ValidationMessage.of("Has child resource '%s'.", "child").hashCode(),
+            ValidationMessage.of("Has child resource '%s'.", "child").hashCode());
+    assertNotEquals(ValidationMessage.of("Has child resource '%s'.", "child"),
+            ValidationMessage.of("Has child resource '%s'.", "other"));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class ValidatorDependenciesTest {
+
+  @Test
+  public void testIsAffectedBy() {
+    ValidatorDependencies dependencies = ValidatorDependencies.properties("jcr:title");
+
+    assertTrue(dependencies.isAffectedBy(ModelChangeSet.properties("jcr:title")));
+    assertFalse(dependencies.isAffectedBy(ModelChangeSet.properties("jcr:description")));
+    assertFalse(dependencies.isAffectedBy(
+            ModelChangeSet.of(Collections.emptyList(), Arrays.asList("jcr:title"))));
+    assertTrue(dependencies.isAffectedBy(ModelChangeSet.UNKNOWN));
+  }
+
+  @Test
+  public void testIsAffectedByWhenChildren() {
+    ValidatorDependencies dependencies = ValidatorDependencies.children("child");
+
+    assertTrue(dependencies.isAffectedBy(
+            ModelChangeSet.of(Collections.emptyList(), Arrays.asList("child"))));
+    assertFalse(dependencies.isAffectedBy(ModelChangeSet.properties("child")));
+  }
+
+  @Test
+  public void testIsAffectedByWhenUnknown() {
+    assertTrue(ValidatorDependencies.UNKNOWN.isAffectedBy(ModelChangeSet.properties("any")));
+    assertFalse(ValidatorDependencies.NONE.isAffectedBy(ModelChangeSet.properties("any")));
+  }
+
+  @Test
+  public void testAnd() {
+    ValidatorDependencies dependencies = ValidatorDependencies.properties("jcr:title").and(
+            ValidatorDependencies.children("child"));
+
+    assertEquals(Collections.singleton("jcr:title"), dependencies.getProperties());
+    assertEquals(Collections.singleton("child"), dependencies.getChildren());
+    assertFalse(dependencies.isUnknown());
+    assertSame(ValidatorDependencies.UNKNOWN,
+            dependencies.and(ValidatorDependencies.UNKNOWN));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.structuredslingmodels.BaseSlingModel;
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.cache.ValidationResultStore;
+import io.kestros.commons.validation.api.models.CompiledValidatorPlan;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import io.kestros.commons.validation.api.models.ValidatorDependencies;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BaseModelValidationCacheInvalidationListenerTest {
+
+  private BaseModelValidationCacheInvalidationListener listener;
+  private ValidationResultStore store;
+  private ModelValidatorRegistrationHandlerService handlerService;
+
+  @Before
+  public void setUp() throws Exception {
+    listener = mock(BaseModelValidationCacheInvalidationListener.class, CALLS_REAL_METHODS);
+    BaseModelValidationCacheService cacheService = mock(BaseModelValidationCacheService.class,
+            CALLS_REAL_METHODS);
+    handlerService = mock(ModelValidatorRegistrationHandlerService.class);
+    doReturn(cacheService).when(listener).getModelValidationCacheService();
+    doReturn(handlerService).when(listener).getModelValidatorRegistrationHandlerService();
+    store = cacheService.getValidationResultStore();
+
+    ModelValidator childValidator = mock(ModelValidator.class);
+    when(childValidator.getDependencies()).thenReturn(
+            ValidatorDependencies.children("jcr:content"));
+    ModelValidator titleValidator = mock(ModelValidator.class);
+    when(titleValidator.getDependencies()).thenReturn(
+            ValidatorDependencies.properties("jcr:title"));
+    doReturn(CompiledValidatorPlan.compile(Arrays.asList(childValidator))).when(
+            handlerService).getCompiledValidatorPlan(BaseResource.class);
+    doReturn(CompiledValidatorPlan.compile(Arrays.asList(titleValidator))).when(
+            handlerService).getCompiledValidatorPlan(BaseSlingModel.class);
+
+    cache("/", BaseResource.class);
+    cache("/content", BaseResource.class);
+    cache("/content", BaseSlingModel.class);
+    cache("/content/page", BaseResource.class);
+    cache("/content/page", BaseSlingModel.class);
+    cache("/content/page/jcr:content", BaseResource.class);
+    cache("/content/page/jcr:content/child", BaseResource.class);
+  }
+
+  @Test
+  public void testOnChange() {
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.CHANGED, "/content/page/jcr:content", false)));
+
+    assertNull(store.get("/content/page/jcr:content", BaseResource.class));
+    assertNotNull(store.get("/content/page/jcr:content/child", BaseResource.class));
+    assertNull(store.get("/content/page", BaseResource.class));
+    assertNotNull(store.get("/content/page", BaseSlingModel.class));
+    assertNotNull(store.get("/content", BaseResource.class));
+    assertNotNull(store.get("/", BaseResource.class));
+  }
+
+  @Test
+  public void testOnChangeWhenDescendantChanged() {
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.CHANGED, "/content/page/jcr:content/child", false)));
+
+    assertNull(store.get("/content/page/jcr:content/child", BaseResource.class));
+    assertNotNull(store.get("/content/page/jcr:content", BaseResource.class));
+    assertNull(store.get("/content/page", BaseResource.class));
+    assertNotNull(store.get("/content", BaseResource.class));
+    assertEquals(5, store.size());
+  }
+
+  @Test
+  public void testOnChangeWhenRemoved() {
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.REMOVED, "/content/page", false)));
+
+    assertNull(store.get("/content/page", BaseResource.class));
+    assertNull(store.get("/content/page/jcr:content/child", BaseResource.class));
+    assertNotNull(store.get("/content", BaseResource.class));
+    assertNotNull(store.get("/content", BaseSlingModel.class));
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void testOnChangeWhenReferenced() {
+    store.put(new CachedValidationResult("/content/other", BaseSlingModel.class, 1L,
+            Collections.emptyList(), Collections.emptyList(),
+            Collections.singletonList("/content/page/jcr:content/child")));
+
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.REMOVED, "/content/page", false)));
+
+    assertNull(store.get("/content/other", BaseSlingModel.class));
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void testOnChangeWhenDependenciesAreUnknown() {
+    doReturn(null).when(listener).getModelValidatorRegistrationHandlerService();
+
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.CHANGED, "/content/page", false)));
+
+    assertEquals(2, store.size());
+    assertNull(store.get("/", BaseResource.class));
+  }
+
+  @Test
+  public void testOnChangeWhenNoCacheService() {
+    doReturn(null).when(listener).getModelValidationCacheService();
+
+    listener.onChange(Collections.singletonList(
+            new ResourceChange(ChangeType.CHANGED, "/content/page", false)));
+
+    assertEquals(7, store.size());
+  }
+
+  private void cache(final String path, final Class<?> type) {
+    store.put(new CachedValidationResult(path, type, 1L, Collections.emptyList(),
+            Collections.emptyList()));
+  }
+}
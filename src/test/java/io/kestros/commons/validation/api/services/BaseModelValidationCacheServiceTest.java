@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.osgiserviceutils.exceptions.CacheRetrievalException;
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.cache.BoundedValidationResultStore;
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.cache.ConcurrentValidationResultStore;
+import io.kestros.commons.validation.api.cache.PersistentValidationResultStore;
+import io.kestros.commons.validation.api.cache.SummarizedValidationResultStore;
+import io.kestros.commons.validation.api.cache.ValidationResultStore;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.component.annotations.Deactivate;
+
+public class BaseModelValidationCacheServiceTest {
+
+  private BaseModelValidationCacheService baseModelValidationCacheService;
+  private BaseResource model;
+  private Resource resource;
+  private ResourceMetadata resourceMetadata;
+
+  @Before
+  public void setUp() throws Exception {
+    baseModelValidationCacheService = mock(BaseModelValidationCacheService.class,
+            CALLS_REAL_METHODS);
+    model = mock(BaseResource.class);
+    resource = mock(Resource.class);
+    resourceMetadata = mock(ResourceMetadata.class);
+    when(model.getPath()).thenReturn("/content/page");
+    when(model.getResource()).thenReturn(resource);
+    when(resource.getPath()).thenReturn("/content/page");
+    when(resource.getResourceMetadata()).thenReturn(resourceMetadata);
+    when(resourceMetadata.getModificationTime()).thenReturn(100L);
+  }
+
+  @Test
+  public void testCacheValidationResults() throws Exception {
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Arrays.asList("warning"));
+
+    CachedValidationResult result = baseModelValidationCacheService.getCachedValidationResult(
+            resource, model.getClass());
+    assertEquals(100L, result.getRevision());
+    assertEquals(Arrays.asList("error"),
+            baseModelValidationCacheService.getCachedErrorMessages(resource, model.getClass()));
+    assertEquals(Arrays.asList("warning"),
+            baseModelValidationCacheService.getCachedWarningMessages(resource, model.getClass()));
+    assertEquals(1,
+            ((List) baseModelValidationCacheService.getCachedValidationMap().get(
+                    "/content/page")).size());
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenResourceChanged() {
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Collections.emptyList());
+    when(resourceMetadata.getModificationTime()).thenReturn(200L);
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+    assertTrue(baseModelValidationCacheService.getCachedValidationMap().isEmpty());
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenRevisionUnknown() {
+    when(resource.getResourceMetadata()).thenReturn(null);
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Collections.emptyList());
+
+    assertEquals(Arrays.asList("error"), baseModelValidationCacheService.getCachedValidationResult(
+            resource, model.getClass()).getErrorMessages());
+
+    baseModelValidationCacheService.getValidationResultStore().invalidate("/content/page");
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenRevisionUnknownAndNotEventOnlyInvalidation() {
+    when(resource.getResourceMetadata()).thenReturn(null);
+    doReturn(false).when(baseModelValidationCacheService)
+            .isEventOnlyInvalidationOfUnknownRevisions();
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Collections.emptyList());
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+  }
+
+  @Test
+  public void testCacheValidationResult() {
+    ModelValidationResult validationResult = mock(ModelValidationResult.class);
+    Map<ModelValidationMessageType, List<String>> messages = new HashMap<>();
+    messages.put(ModelValidationMessageType.ERROR, Arrays.asList("error"));
+    when(validationResult.getModel()).thenReturn(model);
+    when(validationResult.getMessages()).thenReturn(messages);
+    when(validationResult.getReadPaths()).thenReturn(Collections.singleton("/content/reference"));
+
+    baseModelValidationCacheService.cacheValidationResult(validationResult);
+
+    CachedValidationResult result = baseModelValidationCacheService.getCachedValidationResult(
+            resource, model.getClass());
+    assertEquals(Arrays.asList("error"), result.getErrorMessages());
+    assertEquals(0, result.getWarningMessages().size());
+    assertEquals(Arrays.asList("/content/reference"), result.getReadPaths());
+    assertTrue(result.isDependentOn("/content/reference"));
+  }
+
+  @Test
+  public void testCacheValidationResultWhenPartial() {
+    ModelValidationResult validationResult = mock(ModelValidationResult.class);
+    when(validationResult.getModel()).thenReturn(model);
+    when(validationResult.isPartial()).thenReturn(true);
+
+    baseModelValidationCacheService.cacheValidationResult(validationResult);
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+  }
+
+  @Test
+  public void testGetCachedValidationMapWhenPath() {
+    BaseResource child = mock(BaseResource.class);
+    when(child.getPath()).thenReturn("/content/page/child");
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Collections.emptyList());
+    baseModelValidationCacheService.cacheValidationResults(child, Collections.emptyList(),
+            Collections.emptyList());
+
+    assertEquals(1, baseModelValidationCacheService.getCachedValidationMap(
+            "/content/page/child").size());
+    assertEquals(2, baseModelValidationCacheService.getCachedValidationMap("/content").size());
+    assertEquals(0, baseModelValidationCacheService.getCachedValidationMap("/other").size());
+  }
+
+  @Test
+  public void testCreateValidationResultStore() {
+    assertTrue(baseModelValidationCacheService.createValidationResultStore()
+                       instanceof ConcurrentValidationResultStore);
+
+    doReturn(1024L).when(baseModelValidationCacheService).getMaximumCacheWeight();
+
+    ValidationResultStore store = baseModelValidationCacheService.createValidationResultStore();
+    assertTrue(store instanceof SummarizedValidationResultStore);
+    assertEquals(102L,
+            ((SummarizedValidationResultStore) store).getSummaryIndex().getMaximumWeight());
+    assertEquals(922L, ((BoundedValidationResultStore) ((SummarizedValidationResultStore) store)
+            .getStore()).getMaximumWeight());
+
+    doReturn(0).when(baseModelValidationCacheService).getSummaryWeightPercent();
+
+    store = baseModelValidationCacheService.createValidationResultStore();
+    assertEquals(1024L, ((BoundedValidationResultStore) store).getMaximumWeight());
+  }
+
+  @Test
+  public void testHasCachedErrors() throws Exception {
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Collections.emptyList());
+
+    assertTrue(baseModelValidationCacheService.hasCachedErrors(resource, model.getClass()));
+    assertFalse(baseModelValidationCacheService.hasCachedWarnings(resource, model.getClass()));
+  }
+
+  @Test
+  public void testHasCachedErrorsWhenMessagesEvicted() throws Exception {
+    doReturn(100_000L).when(baseModelValidationCacheService).getMaximumCacheWeight();
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Arrays.asList("warning"));
+    ((SummarizedValidationResultStore) baseModelValidationCacheService
+            .getValidationResultStore()).getStore().invalidate("/content/page");
+
+    assertFalse(baseModelValidationCacheService.hasCachedErrors(resource, model.getClass()));
+    assertTrue(baseModelValidationCacheService.hasCachedWarnings(resource, model.getClass()));
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+  }
+
+  @Test(expected = CacheRetrievalException.class)
+  public void testHasCachedErrorsWhenResourceChanged() throws Exception {
+    doReturn(100_000L).when(baseModelValidationCacheService).getMaximumCacheWeight();
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Collections.emptyList());
+    when(resourceMetadata.getModificationTime()).thenReturn(200L);
+
+    baseModelValidationCacheService.hasCachedErrors(resource, model.getClass());
+  }
+
+  @Test(expected = CacheRetrievalException.class)
+  public void testHasCachedErrorsWhenStaleWhileRevalidate() throws Exception {
+    ExecutorService executorService = mock(ExecutorService.class);
+    doReturn(true).when(baseModelValidationCacheService).isStaleWhileRevalidate();
+    doReturn(mock(ModelValidationService.class)).when(baseModelValidationCacheService)
+            .getModelValidationService();
+    doReturn(mock(ResourceResolver.class)).when(baseModelValidationCacheService)
+            .openRevalidationResourceResolver();
+    doReturn(executorService).when(baseModelValidationCacheService)
+            .getRevalidationExecutorService();
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Collections.emptyList());
+    when(resourceMetadata.getModificationTime()).thenReturn(200L);
+
+    baseModelValidationCacheService.hasCachedErrors(resource, model.getClass());
+  }
+
+  @Test
+  public void testDeactivateWhenPersistent() throws Exception {
+    Path file = Files.createTempFile("validation-results", ".bin");
+    try {
+      doReturn(file).when(baseModelValidationCacheService).getPersistentCacheFile();
+      assertTrue(baseModelValidationCacheService.getValidationResultStore()
+                         instanceof PersistentValidationResultStore);
+      baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+              Collections.emptyList());
+
+      baseModelValidationCacheService.deactivate();
+
+      assertEquals(Arrays.asList("error"), new PersistentValidationResultStore(file,
+              new ConcurrentValidationResultStore()).get("/content/page",
+              model.getClass()).getErrorMessages());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testDeactivateThroughComponentLifecycle() throws Exception {
+    Path file = Files.createTempFile("validation-results", ".bin");
+    try {
+      CacheServiceComponent component = mock(CacheServiceComponent.class, CALLS_REAL_METHODS);
+      doReturn(file).when(component).getPersistentCacheFile();
+      doReturn(0L).when(component).getPersistenceIntervalSeconds();
+      component.cacheValidationResults(model, Arrays.asList("error"), Collections.emptyList());
+
+      component.deactivateComponent();
+
+      CacheServiceComponent restarted = mock(CacheServiceComponent.class, CALLS_REAL_METHODS);
+      doReturn(file).when(restarted).getPersistentCacheFile();
+      assertEquals(Arrays.asList("error"), restarted.getCachedValidationResult(resource,
+              model.getClass()).getErrorMessages());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenPersistedReadPathChanged() throws Exception {
+    Path file = Files.createTempFile("validation-results", ".bin");
+    try {
+      doReturn(file).when(baseModelValidationCacheService).getPersistentCacheFile();
+      ModelValidationResult validationResult = mock(ModelValidationResult.class);
+      when(validationResult.getModel()).thenReturn(model);
+      when(validationResult.getMessages()).thenReturn(Collections.emptyMap());
+      when(validationResult.getReadPaths()).thenReturn(
+              Collections.singleton("/content/reference"));
+      baseModelValidationCacheService.cacheValidationResult(validationResult);
+      baseModelValidationCacheService.deactivate();
+
+      ResourceResolver resourceResolver = mock(ResourceResolver.class);
+      Resource reference = mock(Resource.class);
+      ResourceMetadata referenceMetadata = mock(ResourceMetadata.class);
+      when(resource.getResourceResolver()).thenReturn(resourceResolver);
+      when(resourceResolver.getResource("/content/reference")).thenReturn(reference);
+      when(reference.getResourceMetadata()).thenReturn(referenceMetadata);
+      when(referenceMetadata.getModificationTime()).thenReturn(
+              System.currentTimeMillis() + 60_000L);
+      BaseModelValidationCacheService restarted = mock(BaseModelValidationCacheService.class,
+              CALLS_REAL_METHODS);
+      doReturn(file).when(restarted).getPersistentCacheFile();
+
+      assertNull(restarted.getCachedValidationResult(resource, model.getClass()));
+
+      when(referenceMetadata.getModificationTime()).thenReturn(1L);
+      baseModelValidationCacheService.deactivate();
+      restarted = mock(BaseModelValidationCacheService.class, CALLS_REAL_METHODS);
+      doReturn(file).when(restarted).getPersistentCacheFile();
+
+      assertNotNull(restarted.getCachedValidationResult(resource, model.getClass()));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenStaleWhileRevalidate() throws Exception {
+    ModelValidationService validationService = mock(ModelValidationService.class);
+    ModelValidationResult validationResult = mock(ModelValidationResult.class);
+    ResourceResolver resourceResolver = mock(ResourceResolver.class);
+    ExecutorService executorService = mock(ExecutorService.class);
+    List<Runnable> tasks = new ArrayList<>();
+    doReturn(true).when(baseModelValidationCacheService).isStaleWhileRevalidate();
+    doReturn(validationService).when(baseModelValidationCacheService)
+            .getModelValidationService();
+    doReturn(resourceResolver).when(baseModelValidationCacheService)
+            .openRevalidationResourceResolver();
+    doReturn(executorService).when(baseModelValidationCacheService)
+            .getRevalidationExecutorService();
+    doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executorService).execute(
+            any(Runnable.class));
+    when(resourceResolver.getResource("/content/page")).thenReturn(resource);
+    doReturn(model).when(resource).adaptTo(model.getClass());
+    when(validationService.validate(model)).thenReturn(validationResult);
+    when(validationResult.getModel()).thenReturn(model);
+    when(validationResult.getMessages()).thenReturn(Collections.emptyMap());
+    when(validationResult.getReadPaths()).thenReturn(Collections.emptySet());
+    baseModelValidationCacheService.cacheValidationResults(model, Arrays.asList("error"),
+            Collections.emptyList());
+    when(resourceMetadata.getModificationTime()).thenReturn(200L);
+
+    CachedValidationResult stale = baseModelValidationCacheService.getCachedValidationResult(
+            resource, model.getClass());
+    baseModelValidationCacheService.getCachedValidationResult(resource, model.getClass());
+
+    assertTrue(stale.isStale());
+    assertEquals(Arrays.asList("error"), stale.getErrorMessages());
+    assertEquals(1, tasks.size());
+
+    tasks.get(0).run();
+    CachedValidationResult result = baseModelValidationCacheService.getCachedValidationResult(
+            resource, model.getClass());
+
+    assertFalse(result.isStale());
+    assertEquals(200L, result.getRevision());
+    assertEquals(0, result.getErrorMessages().size());
+    verify(resourceResolver, times(1)).close();
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenStaleAndResourceRemoved() {
+    ResourceResolver resourceResolver = mock(ResourceResolver.class);
+    ExecutorService executorService = mock(ExecutorService.class);
+    List<Runnable> tasks = new ArrayList<>();
+    doReturn(true).when(baseModelValidationCacheService).isStaleWhileRevalidate();
+    doReturn(mock(ModelValidationService.class)).when(baseModelValidationCacheService)
+            .getModelValidationService();
+    doReturn(resourceResolver).when(baseModelValidationCacheService)
+            .openRevalidationResourceResolver();
+    doReturn(executorService).when(baseModelValidationCacheService)
+            .getRevalidationExecutorService();
+    doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executorService).execute(
+            any(Runnable.class));
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Collections.emptyList());
+    baseModelValidationCacheService.getValidationResultStore().invalidate("/content/page");
+
+    assertTrue(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()).isStale());
+
+    tasks.get(0).run();
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+    assertTrue(baseModelValidationCacheService.getCachedValidationMap().isEmpty());
+  }
+
+  @Test
+  public void testGetCachedValidationResultWhenStaleWithoutValidationService() {
+    doReturn(true).when(baseModelValidationCacheService).isStaleWhileRevalidate();
+    baseModelValidationCacheService.cacheValidationResults(model, Collections.emptyList(),
+            Collections.emptyList());
+    when(resourceMetadata.getModificationTime()).thenReturn(200L);
+
+    assertNull(baseModelValidationCacheService.getCachedValidationResult(resource,
+            model.getClass()));
+  }
+
+  @Test(expected = CacheRetrievalException.class)
+  public void testGetCachedErrorMessagesWhenNotCached() throws Exception {
+    baseModelValidationCacheService.getCachedErrorMessages(resource, model.getClass());
+  }
+
+  /**
+   * Concrete component, deactivating the service from its own DS lifecycle method.
+   */
+  abstract static class CacheServiceComponent extends BaseModelValidationCacheService {
+
+    @Deactivate
+    protected void deactivateComponent() {
+      deactivate();
+    }
+  }
+}
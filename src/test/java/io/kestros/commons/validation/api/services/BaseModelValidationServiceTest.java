@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import static io.kestros.commons.validation.api.ModelValidationMessageType.ERROR;
+import static io.kestros.commons.validation.api.ModelValidationMessageType.WARNING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.models.CompiledValidatorPlan;
+import io.kestros.commons.validation.api.models.ModelChangeSet;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import io.kestros.commons.validation.api.models.ValidatorDependencies;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import org.apache.sling.api.resource.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BaseModelValidationServiceTest {
+
+  private BaseModelValidationService baseModelValidationService;
+  private ModelValidatorRegistrationHandlerService modelValidatorRegistrationHandlerService;
+  private ModelValidator modelValidator;
+  private BaseResource validModel;
+  private BaseResource invalidModel;
+
+  @Before
+  public void setUp() throws Exception {
+    validModel = createModel("/valid");
+    invalidModel = createModel("/invalid");
+
+    modelValidator = mock(ModelValidator.class);
+    when(modelValidator.getType()).thenReturn(ERROR);
+    when(modelValidator.getMessage()).thenReturn("message");
+    when(modelValidator.isValidCheck(validModel)).thenReturn(true);
+    when(modelValidator.isValidCheck(invalidModel)).thenReturn(false);
+
+    modelValidatorRegistrationHandlerService = mock(ModelValidatorRegistrationHandlerService.class);
+    when(modelValidatorRegistrationHandlerService.getCompiledValidatorPlan(any())).thenReturn(
+            CompiledValidatorPlan.compile(Collections.singletonList(modelValidator)));
+
+    baseModelValidationService = mock(BaseModelValidationService.class, CALLS_REAL_METHODS);
+    doReturn(modelValidatorRegistrationHandlerService).when(
+            baseModelValidationService).getModelValidatorRegistrationHandlerService();
+  }
+
+  @Test
+  public void testValidate() {
+    assertTrue(baseModelValidationService.validate(validModel).isValid());
+    assertFalse(baseModelValidationService.validate(invalidModel).isValid());
+  }
+
+  @Test
+  public void testValidateWhenErrorsOnly() {
+    ModelValidator warningValidator = mock(ModelValidator.class);
+    when(warningValidator.getType()).thenReturn(WARNING);
+    when(modelValidatorRegistrationHandlerService.getCompiledValidatorPlan(any())).thenReturn(
+            CompiledValidatorPlan.compile(Arrays.asList(modelValidator, warningValidator)));
+
+    ModelValidationResult result = baseModelValidationService.validate(invalidModel,
+            ModelValidationMode.ERRORS_ONLY);
+
+    assertFalse(result.isValid());
+    assertTrue(result.isPartial());
+    assertEquals(Collections.singletonList(warningValidator), result.getSkippedValidators());
+    verify(warningValidator, never()).isValidCheck(any());
+  }
+
+  @Test
+  public void testValidateWhenBudget() {
+    ModelValidationResult result = baseModelValidationService.validate(invalidModel,
+            Duration.ofHours(1));
+
+    assertFalse(result.isValid());
+    assertFalse(result.isPartial());
+  }
+
+  @Test
+  public void testValidateWhenBudgetExceeded() {
+    ModelValidationResult result = baseModelValidationService.validate(invalidModel,
+            Duration.ZERO);
+
+    assertTrue(result.isPartial());
+    assertEquals(Collections.singletonList(modelValidator), result.getSkippedValidators());
+    verify(modelValidator, never()).isValidCheck(any());
+  }
+
+  @Test
+  public void testValidateWhenNoRegistrationHandlerService() {
+    doReturn(null).when(
+            baseModelValidationService).getModelValidatorRegistrationHandlerService();
+
+    assertTrue(baseModelValidationService.validate(invalidModel).isValid());
+  }
+
+  @Test
+  public void testValidateAsync() throws Exception {
+    CompletableFuture<ModelValidationResult> valid = baseModelValidationService.validateAsync(
+            validModel);
+    CompletableFuture<ModelValidationResult> invalid = baseModelValidationService.validateAsync(
+            invalidModel);
+
+    assertTrue(valid.get().isValid());
+    assertFalse(invalid.get().isValid());
+  }
+
+  @Test
+  public void testValidateAsyncCarriesOverValidationContext() throws Exception {
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      ModelValidationResult result = baseModelValidationService.validateAsync(invalidModel).get();
+
+      assertTrue(result.isPartial());
+      verify(modelValidator, never()).isValidCheck(any());
+    }
+  }
+
+  @Test
+  public void testValidateAsyncWhenCustomExecutor() throws Exception {
+    Executor executor = mock(Executor.class);
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArgument(0)).run();
+      return null;
+    }).when(executor).execute(any());
+    doReturn(executor).when(baseModelValidationService).getValidationExecutor();
+
+    assertTrue(baseModelValidationService.validateAsync(validModel).isDone());
+    verify(executor, times(1)).execute(any());
+  }
+
+  @Test
+  public void testRevalidate() {
+    when(modelValidator.getDependencies()).thenReturn(
+            ValidatorDependencies.properties("jcr:title"));
+    ModelValidationResult previous = baseModelValidationService.validate(invalidModel);
+
+    ModelValidationResult result = baseModelValidationService.revalidate(invalidModel, previous,
+            ModelChangeSet.properties("jcr:description"));
+
+    assertFalse(result.isValid());
+    verify(modelValidator, times(1)).isValidCheck(invalidModel);
+
+    baseModelValidationService.revalidate(invalidModel, previous,
+            ModelChangeSet.properties("jcr:title"));
+
+    verify(modelValidator, times(2)).isValidCheck(invalidModel);
+  }
+
+  @Test
+  public void testValidateAll() {
+    Map<String, ModelValidationResult> results = baseModelValidationService.validateAll(
+            Arrays.asList(validModel, invalidModel));
+
+    assertEquals(Arrays.asList("/valid", "/invalid"), new ArrayList<>(results.keySet()));
+    assertTrue(results.get("/valid").isValid());
+    assertFalse(results.get("/invalid").isValid());
+    verify(modelValidatorRegistrationHandlerService, times(1)).getCompiledValidatorPlan(any());
+  }
+
+  @Test
+  public void testValidateAllByType() {
+    Map<Class, Map<String, ModelValidationResult>> results
+            = baseModelValidationService.validateAllByType(Arrays.asList(validModel, invalidModel));
+
+    assertEquals(1, results.size());
+    assertEquals(2, results.get(validModel.getClass()).size());
+  }
+
+  @Test
+  public void testValidateAllKeepsIterationOrderAcrossTypes() {
+    BaseResource otherModel = mock(OtherResource.class);
+    when(otherModel.getPath()).thenReturn("/other");
+
+    Map<String, ModelValidationResult> results = baseModelValidationService.validateAll(
+            Arrays.asList(validModel, otherModel, invalidModel));
+
+    assertEquals(Arrays.asList("/valid", "/other", "/invalid"),
+            new ArrayList<>(results.keySet()));
+    assertSame(otherModel, results.get("/other").getModel());
+    assertFalse(results.get("/invalid").isValid());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidateAllWhenPathIsIncludedAsTwoTypes() {
+    BaseResource otherModel = mock(OtherResource.class);
+    when(otherModel.getPath()).thenReturn("/valid");
+
+    baseModelValidationService.validateAll(Arrays.asList(validModel, otherModel));
+  }
+
+  @Test
+  public void testValidateAllWhenLargeBatch() {
+    doReturn(4).when(baseModelValidationService).getBatchParallelism();
+    List<BaseResource> models = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      BaseResource model = createModel("/model-" + i);
+      when(modelValidator.isValidCheck(model)).thenReturn(i % 2 == 0);
+      models.add(model);
+    }
+
+    Map<String, ModelValidationResult> results = baseModelValidationService.validateAll(models);
+
+    assertEquals(1000, results.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 0, results.get("/model-" + i).isValid());
+    }
+    verify(modelValidatorRegistrationHandlerService, times(1)).getCompiledValidatorPlan(any());
+  }
+
+  @Test
+  public void testValidatorPlanIsCompiledOncePerType() {
+    Map<Class, List<ModelValidator>> registered = new HashMap<>();
+    registered.put(validModel.getClass(), new ArrayList<>(Arrays.asList(modelValidator)));
+    when(modelValidatorRegistrationHandlerService.getRegisteredModelValidatorMap()).thenReturn(
+            registered);
+
+    assertTrue(baseModelValidationService.validate(validModel).isValid());
+    assertFalse(baseModelValidationService.validate(invalidModel).isValid());
+
+    verify(modelValidatorRegistrationHandlerService, times(1)).getCompiledValidatorPlan(any());
+  }
+
+  @Test
+  public void testValidatorPlanIsCompiledAgainWhenValidatorsChange() {
+    List<ModelValidator> validators = new ArrayList<>(Arrays.asList(modelValidator));
+    Map<Class, List<ModelValidator>> registered = new HashMap<>();
+    registered.put(validModel.getClass(), validators);
+    when(modelValidatorRegistrationHandlerService.getRegisteredModelValidatorMap()).thenReturn(
+            registered);
+    baseModelValidationService.validate(validModel);
+
+    validators.add(mock(ModelValidator.class));
+    baseModelValidationService.validate(validModel);
+    registered.put(validModel.getClass(), new ArrayList<>(validators));
+    baseModelValidationService.validate(validModel);
+    baseModelValidationService.validate(validModel);
+
+    verify(modelValidatorRegistrationHandlerService, times(3)).getCompiledValidatorPlan(any());
+  }
+
+  @Test
+  public void testValidateSubtree() {
+    Resource grandchild = createResource(invalidModel);
+    Resource child1 = createResource(validModel, grandchild);
+    Resource child2 = createResource(null);
+    Resource root = createResource(null, child1, child2);
+    when(modelValidatorRegistrationHandlerService.getRegisteredModelValidatorMap()).thenReturn(
+            Collections.singletonMap(BaseResource.class,
+                    Collections.singletonList(modelValidator)));
+
+    List<ModelValidationResult> results = baseModelValidationService.validateSubtree(
+            root).collect(Collectors.toList());
+
+    assertEquals(2, results.size());
+    assertSame(validModel, results.get(0).getModel());
+    assertSame(invalidModel, results.get(1).getModel());
+    verify(child2, times(1)).adaptTo(BaseResource.class);
+  }
+
+  @Test
+  public void testValidateSubtreeIsLazy() {
+    Resource child = createResource(invalidModel);
+    Resource root = createResource(validModel, child);
+
+    List<ModelValidationResult> results = baseModelValidationService.validateSubtree(root,
+            Collections.singletonList(BaseResource.class)).limit(1).collect(Collectors.toList());
+
+    assertEquals(1, results.size());
+    assertTrue(results.get(0).isValid());
+    verify(child, never()).adaptTo(any());
+  }
+
+  private Resource createResource(final BaseResource model, final Resource... children) {
+    Resource resource = mock(Resource.class);
+    when(resource.adaptTo(BaseResource.class)).thenReturn(model);
+    when(resource.listChildren()).thenReturn(Arrays.asList(children).iterator());
+    return resource;
+  }
+
+  private BaseResource createModel(final String path) {
+    BaseResource model = mock(BaseResource.class);
+    when(model.getPath()).thenReturn(path);
+    return model;
+  }
+
+  private static class OtherResource extends BaseResource {
+
+  }
+}
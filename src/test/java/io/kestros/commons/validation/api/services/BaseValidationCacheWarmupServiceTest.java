@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.kestros.commons.validation.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.kestros.commons.structuredslingmodels.BaseResource;
+import io.kestros.commons.validation.api.cache.CachedValidationResult;
+import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Deactivate;
+
+public class BaseValidationCacheWarmupServiceTest {
+
+  private BaseValidationCacheWarmupService warmupService;
+  private ModelValidationService validationService;
+  private ModelValidationCacheService cacheService;
+  private ResourceResolver resourceResolver;
+  private Resource root;
+  private Resource child;
+  private BaseResource rootModel;
+  private BaseResource childModel;
+  private ModelValidationResult result;
+
+  @Before
+  public void setUp() throws Exception {
+    warmupService = mock(BaseValidationCacheWarmupService.class, CALLS_REAL_METHODS);
+    validationService = mock(ModelValidationService.class);
+    cacheService = mock(ModelValidationCacheService.class);
+    ModelValidatorRegistrationHandlerService handlerService = mock(
+            ModelValidatorRegistrationHandlerService.class);
+    resourceResolver = mock(ResourceResolver.class);
+    root = mock(Resource.class);
+    child = mock(Resource.class);
+    rootModel = mock(BaseResource.class);
+    childModel = mock(BaseResource.class);
+    result = mock(ModelValidationResult.class);
+
+    Map<Class, List<ModelValidator>> validatorMap = new HashMap<>();
+    validatorMap.put(BaseResource.class, Collections.emptyList());
+    when(handlerService.getRegisteredModelValidatorMap()).thenReturn(validatorMap);
+    doReturn(validationService).when(warmupService).getModelValidationService();
+    doReturn(cacheService).when(warmupService).getModelValidationCacheService();
+    doReturn(handlerService).when(warmupService).getModelValidatorRegistrationHandlerService();
+    doReturn(resourceResolver).when(warmupService).openWarmupResourceResolver();
+    doReturn(0.0).when(warmupService).getMaximumSystemLoad();
+    doReturn(0).when(warmupService).getMaximumReadsPerSecond();
+    doReturn(1).when(warmupService).getWarmupThreadCount();
+
+    when(resourceResolver.getResource("/content")).thenReturn(root);
+    when(resourceResolver.getResource("/content/child")).thenReturn(child);
+    when(root.getPath()).thenReturn("/content");
+    when(child.getPath()).thenReturn("/content/child");
+    when(root.listChildren()).thenReturn(Arrays.asList(child).iterator());
+    when(child.listChildren()).thenReturn(Collections.emptyIterator());
+    when(root.adaptTo(BaseResource.class)).thenReturn(rootModel);
+    when(child.adaptTo(BaseResource.class)).thenReturn(childModel);
+    when(validationService.validate(childModel)).thenReturn(result);
+    when(result.getReadPaths()).thenReturn(Collections.emptySet());
+    when(cacheService.getCachedValidationResult(root, BaseResource.class)).thenReturn(
+            new CachedValidationResult("/content", BaseResource.class, 1L,
+                    Collections.emptyList(), Collections.emptyList()));
+  }
+
+  @Test
+  public void testWarmup() throws Exception {
+    ValidationCacheWarmup warmup = warmupService.warmup(Collections.singletonList("/content"));
+
+    assertSame(warmup, warmup.getCompletion().get(10, TimeUnit.SECONDS));
+    assertSame(warmup, warmupService.getCurrentWarmup());
+    assertEquals(2, warmup.getTotalCount());
+    assertEquals(2, warmup.getDiscoveredCount());
+    assertEquals(2, warmup.getProcessedCount());
+    assertEquals(1, warmup.getValidatedCount());
+    assertEquals(1, warmup.getSkippedCount());
+    assertEquals(0, warmup.getFailedCount());
+    assertEquals(1.0, warmup.getProgress(), 0);
+    verify(cacheService, times(1)).cacheValidationResult(result);
+    verify(validationService, never()).validate(rootModel);
+    verify(resourceResolver, times(2)).close();
+  }
+
+  @Test
+  public void testWarmupWhenResourceIsMissing() throws Exception {
+    when(resourceResolver.getResource("/content/child")).thenReturn(null);
+
+    ValidationCacheWarmup warmup = warmupService.warmup(Collections.singletonList("/content"));
+    warmup.getCompletion().get(10, TimeUnit.SECONDS);
+
+    assertEquals(2, warmup.getProcessedCount());
+    assertEquals(1, warmup.getFailedCount());
+  }
+
+  @Test
+  public void testWarmupWhenCancelled() throws Exception {
+    ValidationCacheWarmup first = warmupService.warmup(Collections.singletonList("/content"));
+    ValidationCacheWarmup second = warmupService.warmup(Collections.singletonList("/content"));
+    second.getCompletion().get(10, TimeUnit.SECONDS);
+    first.getCompletion().get(10, TimeUnit.SECONDS);
+
+    assertTrue(first.isCancelled());
+    assertTrue(first.isDone());
+    assertSame(second, warmupService.getCurrentWarmup());
+  }
+
+  @Test
+  public void testWarmupWhenWindowIsSmallerThanSubtree() throws Exception {
+    doReturn(1).when(warmupService).getWarmupWindowSize();
+
+    ValidationCacheWarmup warmup = warmupService.warmup(Collections.singletonList("/content"));
+    warmup.getCompletion().get(10, TimeUnit.SECONDS);
+
+    assertEquals(2, warmup.getTotalCount());
+    assertEquals(2, warmup.getProcessedCount());
+    verify(cacheService, times(1)).cacheValidationResult(result);
+  }
+
+  @Test
+  public void testWarmupThroughComponentLifecycle() throws Exception {
+    WarmupComponent component = mock(WarmupComponent.class, CALLS_REAL_METHODS);
+    doReturn(validationService).when(component).getModelValidationService();
+    doReturn(cacheService).when(component).getModelValidationCacheService();
+    doReturn(warmupService.getModelValidatorRegistrationHandlerService()).when(component)
+            .getModelValidatorRegistrationHandlerService();
+    doReturn(resourceResolver).when(component).openWarmupResourceResolver();
+    doReturn(0.0).when(component).getMaximumSystemLoad();
+    doReturn(1).when(component).getMaximumReadsPerSecond();
+    doReturn(1).when(component).getWarmupThreadCount();
+    doReturn(Collections.singletonList("/content")).when(component).getWarmupRootPaths();
+
+    component.activateComponent();
+    ValidationCacheWarmup warmup = component.getCurrentWarmup();
+    component.deactivateComponent();
+    warmup.getCompletion().get(10, TimeUnit.SECONDS);
+
+    assertEquals(Collections.singletonList("/content"), warmup.getRootPaths());
+    assertTrue(warmup.isCancelled());
+  }
+
+  @Test
+  public void testActivateWhenNoRootPaths() {
+    warmupService.activate();
+
+    assertNull(warmupService.getCurrentWarmup());
+  }
+
+  /**
+   * Concrete component, starting and stopping the service from its own DS lifecycle methods.
+   */
+  abstract static class WarmupComponent extends BaseValidationCacheWarmupService {
+
+    @Activate
+    protected void activateComponent() {
+      activate();
+    }
+
+    @Deactivate
+    protected void deactivateComponent() {
+      deactivate();
+    }
+  }
+}
@@ -26,19 +26,35 @@ import static io.kestros.commons.validation.api.ModelValidationMessageType.WARNI
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.kestros.commons.osgiserviceutils.exceptions.CacheRetrievalException;
 import io.kestros.commons.structuredslingmodels.BaseResource;
 import io.kestros.commons.validation.api.ModelValidationMessageType;
+import io.kestros.commons.validation.api.ModelValidationMode;
+import io.kestros.commons.validation.api.exceptions.ValidationDeadlineExceededException;
 import io.kestros.commons.validation.api.models.ModelValidationResult;
+import io.kestros.commons.validation.api.models.ModelValidator;
+import io.kestros.commons.validation.api.models.ValidationContext;
+import io.kestros.commons.validation.api.services.ModelValidationCacheService;
 import io.kestros.commons.validation.api.services.ModelValidationService;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.sling.api.resource.Resource;
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +90,8 @@ public class CommonValidatorsTest {
     assertEquals("The jcr:title property must be configured.",
             CommonValidators.hasTitle().getDetailedMessage(model));
     assertTrue(CommonValidators.hasTitle().isValidCheck(model));
+    assertEquals(Collections.singleton("jcr:title"),
+            CommonValidators.hasTitle().getDependencies().getProperties());
   }
 
   @Test
@@ -89,6 +107,8 @@ public class CommonValidatorsTest {
                     .getDetailedMessage(model));
     assertTrue(
             CommonValidators.hasDescription(INFO).isValidCheck(model));
+    assertEquals(Collections.singleton("jcr:description"),
+            CommonValidators.hasDescription(INFO).getDependencies().getProperties());
   }
 
   @Test
@@ -121,6 +141,12 @@ public class CommonValidatorsTest {
     assertFalse(
             CommonValidators.hasChildResource("childResource", INFO)
                     .isValidCheck(model));
+    assertEquals(Collections.singleton("childResource"),
+            CommonValidators.hasChildResource("childResource", INFO).getDependencies()
+                    .getChildren());
+    assertEquals("Has child resource '%s'.",
+            CommonValidators.hasChildResource("childResource", INFO)
+                    .getValidationMessage().getTemplate());
   }
 
   @Test
@@ -268,7 +294,8 @@ public class CommonValidatorsTest {
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(ERROR, Arrays.asList("error"));
     validationResultMap.put(WARNING, Arrays.asList("warning1"));
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
@@ -285,6 +312,152 @@ public class CommonValidatorsTest {
   }
 
 
+  @Test
+  public void testModelListHasNoErrorsWhenListHasDuplicates() {
+    BaseResource member = mock(BaseResource.class);
+    when(member.getPath()).thenReturn("/member");
+    list = new ArrayList();
+    list.add(member);
+    list.add(member);
+    modelValidationResult = mock(ModelValidationResult.class);
+    when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
+    when(modelValidationService.validate(member, ModelValidationMode.FAIL_FAST)).thenReturn(
+            modelValidationResult);
+
+    assertTrue(CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
+            modelValidationService).test(model));
+    verify(modelValidationService, times(1)).validate(member, ModelValidationMode.FAIL_FAST);
+  }
+
+  @Test
+  public void testModelListHasNoErrorsWhenCycle() {
+    when(model.getPath()).thenReturn("/model");
+    list = new ArrayList();
+    list.add(model);
+    ModelValidator<BaseResource> validator = CommonValidators.modelListHasNoErrors(list,
+            "message", "detailed-message", modelValidationService);
+
+    try (ValidationContext.Scope scope = ValidationContext.open()) {
+      scope.getContext().validate(model, ModelValidationMode.FAIL_FAST, member -> {
+        assertFalse(validator.test(member));
+        return modelValidationResult;
+      });
+    }
+    verify(modelValidationService, never()).validate(model, ModelValidationMode.FAIL_FAST);
+  }
+
+  @Test
+  public void testModelListHasNoErrorsWhenCached() throws Exception {
+    ModelValidationCacheService modelValidationCacheService = mock(
+            ModelValidationCacheService.class);
+    BaseResource cachedMember = mock(BaseResource.class);
+    BaseResource uncachedMember = mock(BaseResource.class);
+    Resource cachedResource = mock(Resource.class);
+    Resource uncachedResource = mock(Resource.class);
+    when(cachedMember.getResource()).thenReturn(cachedResource);
+    when(uncachedMember.getResource()).thenReturn(uncachedResource);
+    when(modelValidationCacheService.hasCachedErrors(eq(cachedResource), any())).thenReturn(
+            false);
+    when(modelValidationCacheService.hasCachedErrors(eq(uncachedResource), any())).thenThrow(
+            new CacheRetrievalException("Not cached."));
+    modelValidationResult = mock(ModelValidationResult.class);
+    when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
+    validationResultMap.put(ERROR, Arrays.asList("error"));
+    when(modelValidationService.validate(uncachedMember, ModelValidationMode.FAIL_FAST)).thenReturn(
+            modelValidationResult);
+
+    assertTrue(CommonValidators.modelListHasNoErrors(Arrays.asList(cachedMember), "message",
+            "detailed-message", modelValidationService, modelValidationCacheService).test(model));
+    assertFalse(CommonValidators.modelListHasNoErrors(Arrays.asList(cachedMember, uncachedMember),
+            "message", "detailed-message", modelValidationService,
+            modelValidationCacheService).test(model));
+    verify(modelValidationService, never()).validate(cachedMember, ModelValidationMode.FAIL_FAST);
+  }
+
+  @Test
+  public void testModelListHasNoErrorsWhenCachedRevisionUnknown() throws Exception {
+    ModelValidationCacheService modelValidationCacheService = mock(
+            ModelValidationCacheService.class, CALLS_REAL_METHODS);
+    BaseResource member = mock(BaseResource.class);
+    Resource resource = mock(Resource.class);
+    when(member.getResource()).thenReturn(resource);
+    when(resource.getPath()).thenReturn("/member");
+    doReturn(Collections.emptyList()).when(modelValidationCacheService).getCachedErrorMessages(
+            eq(resource), any());
+    doReturn(Collections.emptyList()).when(modelValidationCacheService).getCachedWarningMessages(
+            eq(resource), any());
+    modelValidationResult = mock(ModelValidationResult.class);
+    when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
+    validationResultMap.put(ERROR, Arrays.asList("error"));
+    when(modelValidationService.validate(member, ModelValidationMode.FAIL_FAST)).thenReturn(
+            modelValidationResult);
+
+    assertFalse(CommonValidators.modelListHasNoErrors(Arrays.asList(member), "message",
+            "detailed-message", modelValidationService, modelValidationCacheService).test(model));
+    verify(modelValidationService, times(1)).validate(member, ModelValidationMode.FAIL_FAST);
+  }
+
+  @Test
+  public void testModelListHasNoWarningsWhenCached() throws Exception {
+    ModelValidationCacheService modelValidationCacheService = mock(
+            ModelValidationCacheService.class);
+    BaseResource member = mock(BaseResource.class);
+    Resource resource = mock(Resource.class);
+    when(member.getResource()).thenReturn(resource);
+    when(modelValidationCacheService.hasCachedWarnings(eq(resource), any())).thenReturn(true);
+
+    assertFalse(CommonValidators.modelListHasNoWarnings(Arrays.asList(member), "message",
+            "detailed-message", modelValidationService, modelValidationCacheService).test(model));
+    verify(modelValidationService, never()).validate(member,
+            ModelValidationMode.WARNINGS_FAIL_FAST);
+  }
+
+  @Test
+  public void testModelListHasNoErrorsWhenLargeList() {
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    when(modelValidationService.getValidationExecutor()).thenReturn(executorService);
+    when(modelValidationService.getValidationParallelism()).thenReturn(4);
+    ModelValidationResult validResult = mock(ModelValidationResult.class);
+    when(validResult.getMessages()).thenReturn(Collections.emptyMap());
+    list = new ArrayList();
+    for (int i = 0; i < 1000; i++) {
+      BaseResource member = mock(BaseResource.class);
+      when(member.getPath()).thenReturn("/member-" + i);
+      when(modelValidationService.validate(member, ModelValidationMode.FAIL_FAST)).thenReturn(
+              validResult);
+      list.add(member);
+    }
+
+    assertTrue(CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
+            modelValidationService).test(model));
+    for (Object member : list) {
+      verify(modelValidationService, times(1)).validate((BaseResource) member,
+              ModelValidationMode.FAIL_FAST);
+    }
+
+    modelValidationResult = mock(ModelValidationResult.class);
+    when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
+    validationResultMap.put(ERROR, Arrays.asList("error"));
+    when(modelValidationService.validate((BaseResource) list.get(500),
+            ModelValidationMode.FAIL_FAST)).thenReturn(modelValidationResult);
+
+    assertFalse(CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
+            modelValidationService).test(model));
+    executorService.shutdown();
+  }
+
+  @Test(expected = ValidationDeadlineExceededException.class)
+  public void testModelListHasNoErrorsWhenDeadlineExceeded() {
+    list = new ArrayList();
+    list.add(model1);
+
+    try (ValidationContext.Scope scope = ValidationContext.open(Duration.ZERO)) {
+      CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
+              modelValidationService).test(model);
+    }
+  }
+
+
   @Test
   public void testModelListHasNoErrorsWhenHasWarnings() {
     list = new ArrayList();
@@ -295,7 +468,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(WARNING, Arrays.asList("warning1"));
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
 
     assertEquals("message",
@@ -323,7 +497,8 @@ public class CommonValidatorsTest {
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(ERROR, Arrays.asList("error"));
     validationResultMap.put(WARNING, Arrays.asList("warning1"));
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
@@ -349,7 +524,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(ERROR, null);
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
@@ -375,7 +551,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(ERROR, Collections.emptyList());
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoErrors(list, "message", "detailed-message",
@@ -418,7 +595,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(WARNING, null);
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoWarnings(list, "message", "detailed-message",
@@ -444,7 +622,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(WARNING, Collections.emptyList());
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
     assertEquals("message",
             CommonValidators.modelListHasNoWarnings(list, "message", "detailed-message",
@@ -470,7 +649,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(WARNING, Arrays.asList("warning1"));
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
 
     assertEquals("message",
@@ -497,7 +677,8 @@ public class CommonValidatorsTest {
     modelValidationResult = mock(ModelValidationResult.class);
     when(modelValidationResult.getMessages()).thenReturn(validationResultMap);
     validationResultMap.put(WARNING, Arrays.asList("warning1"));
-    when(modelValidationService.validate(model1)).thenReturn(modelValidationResult);
+    when(modelValidationService.validate(eq(model1), any(ModelValidationMode.class))).thenReturn(
+            modelValidationResult);
 
 
     assertEquals("message",